@@ -0,0 +1,73 @@
+#!/bin/bash
+# 生成应用类数据共享(AppCDS)归档，校验归档可用并对比启动时间
+#
+# 用法: scripts/cds-train.sh <应用JAR路径> [基准测试次数]
+#
+# 环境变量:
+#   JAVA_CMD  用于训练和运行的java，默认为PATH中的java。归档只对生成它的JVM有效，
+#             打包发布时应指向打包运行时中的java，例如 /opt/tankbattle/lib/runtime/bin/java
+#   ARCHIVE   归档输出路径，默认为JAR旁边的 app-cds.jsa
+#
+# 归档记录JAR的绝对路径、大小和修改时间，运行时的类路径必须是同一个文件，
+# jpackage启动器使用的 $APPDIR/TankBattle.jar 展开后也是绝对路径，
+# 所以应针对安装后的JAR训练，例如:
+#   JAVA_CMD=/opt/tankbattle/lib/runtime/bin/java scripts/cds-train.sh /opt/tankbattle/lib/app/TankBattle.jar
+# 校验阶段使用 -Xshare:on 运行，归档被拒绝时JVM直接报错，脚本以非零状态退出。
+# Linux无显示环境下请使用 xvfb-run -a 运行本脚本。
+
+set -e
+
+JAR_PATH="$1"
+RUNS="${2:-5}"
+JAVA_CMD="${JAVA_CMD:-java}"
+MAIN_CLASS="com.tankbattle.Launcher"
+
+if [ -z "$JAR_PATH" ] || [ ! -f "$JAR_PATH" ]; then
+    echo "用法: $0 <应用JAR路径> [基准测试次数]" >&2
+    exit 1
+fi
+
+JAR="$(cd "$(dirname "$JAR_PATH")" && pwd)/$(basename "$JAR_PATH")"
+ARCHIVE="${ARCHIVE:-$(dirname "$JAR")/app-cds.jsa}"
+case "$ARCHIVE" in
+    /*) ;;
+    *) ARCHIVE="$(pwd)/$ARCHIVE" ;;
+esac
+
+# 训练和基准测试会在工作目录创建关卡与存档目录，在临时目录中运行，结束后删除
+WORK_DIR="$(mktemp -d)"
+trap 'rm -rf "$WORK_DIR"' EXIT
+cd "$WORK_DIR"
+
+# 取启动报告中从JVM启动到首帧的总耗时（jvmStartupMs + totalMs）
+total_ms() {
+    sed -n 's/.*"jvmStartupMs":\([0-9.-]*\).*"totalMs":\([0-9.]*\).*/\1 \2/p' | awk '{ print $1 + $2 }'
+}
+
+# 多次运行启动基准测试并输出平均总耗时
+benchmark() {
+    for _ in $(seq 1 "$RUNS"); do
+        "$JAVA_CMD" "$@" -cp "$JAR" "$MAIN_CLASS" --startup-benchmark | total_ms | tail -1
+    done | awk '{ sum += $1 } END { printf "%.3f", sum / NR }'
+}
+
+echo "基准测试（仅JDK基础归档）..."
+BEFORE=$(benchmark)
+
+echo "运行CDS训练会话..."
+rm -f "$ARCHIVE"
+"$JAVA_CMD" -XX:ArchiveClassesAtExit="$ARCHIVE" -cp "$JAR" "$MAIN_CLASS" --cds-training
+
+echo "校验归档..."
+"$JAVA_CMD" -Xshare:on -XX:SharedArchiveFile="$ARCHIVE" -Xlog:class+load=info:file="$WORK_DIR/class-load.log" \
+    -cp "$JAR" "$MAIN_CLASS" --startup-benchmark > /dev/null
+SHARED=$(grep -c "source: shared objects file (top)" "$WORK_DIR/class-load.log" || true)
+if [ "$SHARED" -eq 0 ]; then
+    echo "归档未被使用: $ARCHIVE" >&2
+    exit 1
+fi
+
+echo "基准测试（使用应用归档）..."
+AFTER=$(benchmark -XX:SharedArchiveFile="$ARCHIVE")
+
+echo "{\"runs\":$RUNS,\"beforeTotalMs\":$BEFORE,\"afterTotalMs\":$AFTER,\"dynamicArchiveClasses\":$SHARED,\"archive\":\"$ARCHIVE\"}"
@@ -0,0 +1,119 @@
+package com.tankbattle;
+
+import java.util.List;
+
+import javafx.animation.KeyFrame;
+import javafx.animation.Timeline;
+import javafx.application.Platform;
+import javafx.util.Duration;
+
+import com.tankbattle.model.GameModel;
+import com.tankbattle.model.enums.Direction;
+import com.tankbattle.model.save.SaveManager;
+import com.tankbattle.view.GameView;
+
+/**
+ * CDS（类数据共享）训练会话
+ * 以脚本方式走一遍常用流程：主菜单、开始关卡、开火、暂停、保存并加载存档，
+ * 使这些流程涉及的类在 -XX:ArchiveClassesAtExit 运行结束时被写入归档
+ *
+ * @author Taiyu Jin
+ */
+public class CdsTrainingSession {
+
+    // 训练模式的命令行参数
+    public static final String TRAINING_ARG = "--cds-training";
+
+    // 训练过程中使用的临时存档名称
+    private static final String TRAINING_SAVE = "__cds_training__";
+
+    // 每个步骤之间的间隔（秒）
+    private static final double STEP_SECONDS = 0.5;
+
+    private final GameModel gameModel;
+    private final GameView gameView;
+
+    /**
+     * 构造函数
+     *
+     * @param gameModel 游戏模型
+     * @param gameView 游戏视图
+     */
+    public CdsTrainingSession(GameModel gameModel, GameView gameView) {
+        this.gameModel = gameModel;
+        this.gameView = gameView;
+    }
+
+    /**
+     * 检查命令行参数中是否开启了训练模式
+     *
+     * @param args 命令行参数
+     * @return 是否为训练模式
+     */
+    public static boolean isTrainingMode(List<String> args) {
+        return args != null && args.contains(TRAINING_ARG);
+    }
+
+    /**
+     * 开始执行训练脚本，结束后退出应用
+     */
+    public void run() {
+        Runnable[] steps = {
+            // 开始第一关
+            () -> {
+                gameModel.setSelectedLevel(1);
+                gameModel.initGame();
+                gameView.showGameScene();
+            },
+            // 移动并开火
+            () -> {
+                gameModel.movePlayerTank(Direction.UP, true);
+                gameModel.playerFire();
+            },
+            () -> {
+                gameModel.movePlayerTank(Direction.UP, false);
+                gameModel.playerFire();
+            },
+            // 暂停与恢复
+            () -> {
+                gameModel.pauseGame();
+                gameView.showPauseScene();
+            },
+            () -> {
+                gameModel.resumeGame();
+                gameView.showGameScene();
+            },
+            // 保存后返回主菜单
+            () -> {
+                gameModel.saveGameAsync(TRAINING_SAVE, null);
+                gameView.showMainMenu();
+            },
+            // 列出并加载存档
+            () -> {
+                gameModel.getAllSaves();
+                if (gameModel.loadGame(TRAINING_SAVE)) {
+                    gameView.showGameScene();
+                }
+            },
+            // 清理并退出
+            () -> {
+                SaveManager.getInstance().deleteSave(TRAINING_SAVE);
+                System.out.println("CDS训练会话完成");
+                Platform.exit();
+            }
+        };
+
+        Timeline timeline = new Timeline();
+        for (int i = 0; i < steps.length; i++) {
+            Runnable step = steps[i];
+            timeline.getKeyFrames().add(new KeyFrame(Duration.seconds(STEP_SECONDS * (i + 1)), e -> {
+                try {
+                    step.run();
+                } catch (Exception ex) {
+                    System.err.println("CDS训练步骤失败: " + ex.getMessage());
+                }
+            }));
+        }
+        timeline.play();
+    }
+}
@@ -12,6 +12,9 @@ public class Launcher {
      * @param args 命令行参数
      */
     public static void main(String[] args) {
+        // 开始记录启动耗时
+        StartupProfiler.start();
+        
         // 直接调用TankBattleApp的main方法
         TankBattleApp.main(args);
     }
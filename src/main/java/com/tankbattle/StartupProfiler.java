@@ -0,0 +1,117 @@
+package com.tankbattle;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * 启动阶段计时器
+ * 使用单调时钟(System.nanoTime)记录启动过程中各阶段的结束时间，
+ * 每个阶段的耗时为与上一个标记之间的差值
+ *
+ * @author Taiyu Jin
+ */
+public final class StartupProfiler {
+
+    // 启动基准测试模式的命令行参数
+    public static final String BENCHMARK_ARG = "--startup-benchmark";
+
+    // 进入main方法的时间，0表示尚未开始计时
+    private static long originNanos;
+
+    // 进入main方法时JVM已运行的时间（毫秒）
+    private static long jvmUptimeAtMainMillis;
+
+    // 上一次标记的时间
+    private static long lastMarkNanos;
+
+    // 已记录的阶段
+    private static final List<String> phaseNames = new ArrayList<>();
+    private static final List<Long> phaseNanos = new ArrayList<>();
+
+    private StartupProfiler() {
+    }
+
+    /**
+     * 在入口方法中调用，开始计时
+     * 多次调用时只有第一次生效，因此Launcher和TankBattleApp都可以调用
+     */
+    public static synchronized void start() {
+        if (originNanos != 0) {
+            return;
+        }
+        originNanos = System.nanoTime();
+        lastMarkNanos = originNanos;
+        try {
+            jvmUptimeAtMainMillis = ManagementFactory.getRuntimeMXBean().getUptime();
+        } catch (Throwable t) {
+            jvmUptimeAtMainMillis = -1;
+        }
+    }
+
+    /**
+     * 标记一个阶段结束
+     *
+     * @param phase 阶段名称
+     */
+    public static synchronized void mark(String phase) {
+        if (originNanos == 0) {
+            start();
+        }
+        long now = System.nanoTime();
+        phaseNames.add(phase);
+        phaseNanos.add(now - lastMarkNanos);
+        lastMarkNanos = now;
+    }
+
+    /**
+     * 检查命令行参数中是否开启了启动基准测试模式
+     *
+     * @param args 命令行参数
+     * @return 是否为基准测试模式
+     */
+    public static boolean isBenchmarkMode(List<String> args) {
+        return args != null && args.contains(BENCHMARK_ARG);
+    }
+
+    /**
+     * 生成机器可读的阶段耗时报告（单行JSON）
+     *
+     * @return 报告文本
+     */
+    public static synchronized String toJson() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("{\"jvmStartupMs\":").append(jvmUptimeAtMainMillis);
+        sb.append(",\"phases\":[");
+        long total = 0;
+        for (int i = 0; i < phaseNames.size(); i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            long nanos = phaseNanos.get(i);
+            total += nanos;
+            sb.append("{\"name\":\"").append(phaseNames.get(i)).append("\",\"ms\":")
+              .append(formatMillis(nanos)).append('}');
+        }
+        sb.append("],\"totalMs\":").append(formatMillis(total));
+        try {
+            sb.append(",\"loadedClasses\":")
+              .append(ManagementFactory.getClassLoadingMXBean().getTotalLoadedClassCount());
+        } catch (Throwable t) {
+            // 管理接口不可用时省略类加载数量
+        }
+        sb.append('}');
+        return sb.toString();
+    }
+
+    /**
+     * 将纳秒格式化为保留三位小数的毫秒数
+     *
+     * @param nanos 纳秒
+     * @return 毫秒字符串
+     */
+    private static String formatMillis(long nanos) {
+        return String.format(Locale.ROOT, "%.3f", nanos / 1_000_000.0);
+    }
+}
@@ -1,5 +1,6 @@
 package com.tankbattle;
 
+import javafx.animation.AnimationTimer;
 import javafx.application.Application;
 import javafx.application.Platform;
 import javafx.stage.Stage;
@@ -10,7 +11,12 @@ import com.tankbattle.controller.GameController;
 import com.tankbattle.view.GameView;
 import com.tankbattle.model.GameModel;
 import com.tankbattle.model.AudioManager;
+import com.tankbattle.model.ContentPack;
 import com.tankbattle.model.ResourceManager;
+import com.tankbattle.model.level.LevelLoader;
+import com.tankbattle.model.level.LevelManager;
+import com.tankbattle.model.level.LevelWatcher;
+import com.tankbattle.model.save.SaveManager;
 
 /**
  * 坦克大战游戏主应用类
@@ -22,18 +28,32 @@ public class TankBattleApp extends Application {
     private GameController gameController;
     private GameView gameView;
     private GameModel gameModel;
+    private LevelWatcher levelWatcher;
     
     @Override
     public void start(Stage primaryStage) {
+        StartupProfiler.mark("fx_toolkit_launch");
+        boolean benchmarkMode = StartupProfiler.isBenchmarkMode(getParameters().getRaw());
+        
         try {
+            // 指定了内容包时先挂载，之后的图像、音频和关卡都优先从内容包读取
+            ContentPack.installFromArgs(getParameters().getRaw());
+            
             // 提前初始化资源管理器，确保资源已加载
             ResourceManager.getInstance();
+            StartupProfiler.mark("resource_preload");
             
             // 音频管理器使用懒加载方式，减少启动时的加载问题
             AudioManager.getInstance();
+            StartupProfiler.mark("audio_init");
+            
+            // 解析关卡文件
+            LevelManager.getInstance();
+            StartupProfiler.mark("level_parsing");
             
             // 初始化游戏模型、视图和控制器
             gameModel = new GameModel();
+            StartupProfiler.mark("game_model");
             gameView = new GameView(primaryStage, gameModel);
             gameController = new GameController(gameModel, gameView);
             
@@ -42,10 +62,32 @@ public class TankBattleApp extends Application {
             
             // 显示主菜单
             gameView.showMainMenu();
+            StartupProfiler.mark("scene_construction");
             
             // 显示窗口
             primaryStage.show();
             
+            // 记录首帧显示时间，基准测试模式下输出报告后退出
+            watchFirstFrame(benchmarkMode);
+            
+            // 主菜单显示后，利用空闲时间预先创建常用场景
+            if (!benchmarkMode) {
+                gameView.prebuildScenesWhenIdle();
+            }
+            
+            // CDS训练模式下按脚本走一遍常用流程后退出
+            if (CdsTrainingSession.isTrainingMode(getParameters().getRaw())) {
+                new CdsTrainingSession(gameModel, gameView).run();
+            }
+            
+            // 关卡监视模式下，关卡文件修改后自动重新加载
+            if (LevelWatcher.isWatchMode(getParameters().getRaw())) {
+                levelWatcher = new LevelWatcher(LevelLoader.getDefaultLevelsDirectory().toPath(),
+                        LevelManager.getInstance(),
+                        config -> Platform.runLater(() -> gameModel.applyLevelChange(config)));
+                levelWatcher.start();
+            }
+            
             // 设置未捕获异常处理器
             Thread.setDefaultUncaughtExceptionHandler((thread, throwable) -> {
                 System.err.println("未捕获异常：" + throwable.getMessage());
@@ -76,15 +118,50 @@ public class TankBattleApp extends Application {
         }
     }
     
+    /**
+     * 等待首帧显示后记录启动阶段
+     * 动画计时器在每个脉冲开始时回调，第二次回调时首帧已经提交渲染
+     * 
+     * @param benchmarkMode 是否为启动基准测试模式
+     */
+    private void watchFirstFrame(boolean benchmarkMode) {
+        new AnimationTimer() {
+            private int pulses = 0;
+            
+            @Override
+            public void handle(long now) {
+                if (++pulses < 2) {
+                    return;
+                }
+                stop();
+                StartupProfiler.mark("first_frame");
+                
+                if (benchmarkMode) {
+                    System.out.println(StartupProfiler.toJson());
+                    Platform.exit();
+                }
+            }
+        }.start();
+    }
+    
     @Override
     public void stop() {
         try {
             // 确保在应用关闭时释放资源
             AudioManager audioManager = AudioManager.getInstance();
             if (audioManager != null) {
-                audioManager.stopBackgroundMusic();
+                audioManager.shutdown(500);
+            }
+            
+            if (levelWatcher != null) {
+                levelWatcher.stop();
             }
             
+            // 等待后台存档写入完成
+            SaveManager.getInstance().shutdown(2000);
+            
+            ContentPack.uninstall();
+            
             // 这里可以添加其他需要在关闭时执行的清理操作
         } catch (Exception e) {
             System.err.println("应用关闭时发生错误: " + e.getMessage());
@@ -97,6 +174,10 @@ public class TankBattleApp extends Application {
      * @param args 命令行参数
      */
     public static void main(String[] args) {
+        // 直接从本类启动时（如打包后的JAR）也开始计时
+        StartupProfiler.start();
+        StartupProfiler.mark("app_class_loading");
+        
         try {
             // 启动JavaFX应用
             launch(args);
@@ -1,31 +1,161 @@
 package com.tankbattle.model;
 
 import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import javax.sound.sampled.AudioFileFormat;
+import javax.sound.sampled.AudioSystem;
 
-import javafx.application.Platform;
 import javafx.scene.media.AudioClip;
 import javafx.scene.media.Media;
 import javafx.scene.media.MediaPlayer;
 
+import com.tankbattle.model.audio.LineAudioSink;
+import com.tankbattle.model.audio.SoftwareMixer;
+
 /**
  * 音频管理器类，负责加载和播放游戏音频
+ * 所有播放操作都以命令形式放入队列，由专门的音频分发线程依次执行，
+ * 游戏和界面代码只负责入队，不会被音频操作阻塞
+ * 设置系统属性 tankbattle.audio.mixer=software 时，音效改由软件混音器播放
  * 
  * @author Taiyu Jin
  */
 public class AudioManager {
-    // 音效集合
-    private Map<String, AudioClip> soundEffects;
+    // 游戏过程中GameModel和GameView可能触发的音效，关卡开始时预加载
+    public static final List<String> GAMEPLAY_SOUND_EFFECTS = List.of(
+        "tank_move", "tank_fire", "tank_explosion", "bullet_hit",
+        "button_click", "game_start", "victory", "game_over"
+    );
+    
+    // 菜单界面使用的音效，初始化时预加载
+    private static final List<String> MENU_SOUND_EFFECTS = List.of("button_click", "game_start");
+    
+    // 预先创建播放器的背景音乐
+    public static final List<String> BACKGROUND_MUSIC_TRACKS = List.of(
+        "audio/menu_bgm.wav", "audio/game_bgm.wav",
+        "audio/gameover_bgm.wav", "audio/victory_bgm.wav"
+    );
+    
+    // 背景音乐淡入淡出时长（纳秒）
+    private static final long CROSSFADE_NANOS = 400_000_000L;
+    
+    // 淡入淡出期间调整音量的间隔（毫秒）
+    private static final long FADE_TICK_MILLIS = 20;
+    
+    // 已解码的音效集合（后台线程写入，游戏线程读取）
+    private final Map<String, AudioClip> soundEffects = new ConcurrentHashMap<>();
+    
+    // 正在加载的音效，保证同一音效只加载一次
+    private final Map<String, CompletableFuture<Void>> pendingLoads = new ConcurrentHashMap<>();
+    
+    // 加载失败的音效，不再重复尝试
+    private final Set<String> failedSoundEffects = ConcurrentHashMap.newKeySet();
+    
+    // 音效时长（纳秒），用于估计声部何时播放结束
+    private final Map<String, Long> soundDurations = new ConcurrentHashMap<>();
+    
+    // 同一音效同时播放的默认最大声部数
+    private static final int DEFAULT_VOICES_PER_EFFECT = 3;
+    
+    // 个别音效的声部上限（持续性或提示类音效只保留一个声部）
+    private static final Map<String, Integer> VOICES_PER_EFFECT = Map.of(
+        "tank_move", 1,
+        "button_click", 1,
+        "game_start", 1,
+        "victory", 1,
+        "game_over", 1
+    );
+    
+    // 所有音效同时播放的最大声部数
+    private static final int MAX_TOTAL_VOICES = 8;
+    
+    // 同一音效在该时间窗口内的重复触发会被合并（纳秒）
+    private static final long COALESCE_WINDOW_NANOS = 50_000_000L;
+    
+    // 无法读取音效时长时使用的默认值（纳秒）
+    private static final long DEFAULT_SOUND_DURATION_NANOS = 1_000_000_000L;
+    
+    // 正在播放的声部，按开始时间排序（仅由音频分发线程访问）
+    private final List<Voice> activeVoices = new ArrayList<>();
+    
+    // 各音效最近一次触发的时间（仅由音频分发线程访问）
+    private final Map<String, Long> lastTriggerTimes = new HashMap<>();
     
-    // 背景音乐播放器
-    private MediaPlayer bgmPlayer;
+    // 音频命令队列
+    private final BlockingQueue<Runnable> commandQueue = new LinkedBlockingQueue<>();
+    
+    // 音频分发线程
+    private final Thread dispatchThread;
+    
+    // 分发线程是否继续运行
+    private volatile boolean running = true;
+    
+    /**
+     * 一个正在播放的音效声部
+     */
+    private static class Voice {
+        final String name;
+        final long startNanos;
+        final long endNanos;
+        final double volume;
+        
+        Voice(String name, long startNanos, long endNanos, double volume) {
+            this.name = name;
+            this.startNanos = startNanos;
+            this.endNanos = endNanos;
+            this.volume = volume;
+        }
+    }
+    
+    // 软件混音器，为null时使用AudioClip播放音效
+    private volatile SoftwareMixer softwareMixer;
+    
+    // 音效预加载线程
+    private final ExecutorService preloadExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "audio-preload");
+        thread.setDaemon(true);
+        return thread;
+    });
+    
+    /**
+     * 一个背景音乐通道，播放器切换时只暂停而不释放，以便下次直接复用
+     */
+    private static class BgmChannel {
+        final MediaPlayer player;
+        // 当前淡入淡出系数和目标系数（0.0-1.0）
+        double level;
+        double target;
+        
+        BgmChannel(MediaPlayer player) {
+            this.player = player;
+        }
+    }
+    
+    // 已创建的背景音乐通道，按资源路径索引（仅由音频分发线程访问）
+    private final Map<String, BgmChannel> bgmChannels = new HashMap<>();
+    
+    // 上一次调整淡入淡出音量的时间
+    private long lastFadeNanos;
     
     // 全局音量（0.0-1.0），0为静音
-    private double globalVolume = 0.0;
+    private volatile double globalVolume = 0.0;
     
     // 错误跟踪
-    private boolean hasLoadingError = false;
+    private volatile boolean hasLoadingError = false;
 
     // 单例实例
     private static AudioManager instance;
@@ -35,7 +165,7 @@ public class AudioManager {
      * 
      * @return AudioManager实例
      */
-    public static AudioManager getInstance() {
+    public static synchronized AudioManager getInstance() {
         if (instance == null) {
             instance = new AudioManager();
         }
@@ -46,7 +176,10 @@ public class AudioManager {
      * 私有构造函数
      */
     private AudioManager() {
-        soundEffects = new HashMap<>();
+        dispatchThread = new Thread(this::dispatchLoop, "audio-dispatch");
+        dispatchThread.setDaemon(true);
+        dispatchThread.start();
+        
         try {
             initAudio();
         } catch (Exception e) {
@@ -56,12 +189,103 @@ public class AudioManager {
         }
     }
     
+    /**
+     * 音频分发线程主循环，依次执行队列中的命令
+     * 命令中的任何异常都在此线程内处理，不会传播到游戏线程
+     */
+    private void dispatchLoop() {
+        while (running) {
+            try {
+                // 有正在进行的淡入淡出时定时醒来调整音量
+                Runnable command = isFading()
+                        ? commandQueue.poll(FADE_TICK_MILLIS, TimeUnit.MILLISECONDS)
+                        : commandQueue.take();
+                if (command != null) {
+                    command.run();
+                }
+                advanceFades();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Throwable t) {
+                System.out.println("音频命令执行失败: " + t.getMessage());
+            }
+        }
+    }
+    
+    /**
+     * 将命令放入音频队列，不会阻塞调用线程
+     * 
+     * @param command 音频命令
+     * @return 是否成功入队
+     */
+    private boolean enqueue(Runnable command) {
+        if (!running) {
+            return false;
+        }
+        return commandQueue.offer(command);
+    }
+    
     /**
      * 初始化音频资源
      */
     private void initAudio() {
-        // 预加载音效 - 使用懒加载，只在需要时才加载
-        // 不在构造函数中尝试加载所有音效
+        if (SoftwareMixer.isEnabled()) {
+            SoftwareMixer mixer = new SoftwareMixer(new LineAudioSink());
+            if (mixer.start()) {
+                softwareMixer = mixer;
+                System.out.println("已启用软件混音器");
+            } else {
+                System.out.println("软件混音器不可用，使用默认音效播放");
+            }
+        }
+        
+        // 在后台预加载菜单音效，不阻塞启动
+        preloadSoundEffects(MENU_SOUND_EFFECTS);
+        // 在后台预先创建背景音乐播放器，切换场景时无需初始化媒体管线
+        warmUpBackgroundMusic();
+    }
+    
+    /**
+     * 在后台线程预加载音效
+     * 已加载、正在加载或加载失败的音效会被跳过
+     * 
+     * @param names 音效名称集合
+     */
+    public void preloadSoundEffects(Collection<String> names) {
+        if (hasLoadingError) return;
+        
+        for (String name : names) {
+            preloadSoundEffect(name);
+        }
+    }
+    
+    /**
+     * 在后台线程预加载单个音效
+     * 
+     * @param name 音效名称
+     */
+    private void preloadSoundEffect(String name) {
+        if (isSoundEffectLoaded(name) || failedSoundEffects.contains(name)) {
+            return;
+        }
+        pendingLoads.computeIfAbsent(name, key -> CompletableFuture.runAsync(() -> {
+            if (!loadSoundEffect(key, "audio/" + key + ".wav")) {
+                failedSoundEffects.add(key);
+            }
+            pendingLoads.remove(key);
+        }, preloadExecutor));
+    }
+    
+    /**
+     * 检查音效是否已加载完成
+     * 
+     * @param name 音效名称
+     * @return 是否可以立即播放
+     */
+    private boolean isSoundEffectLoaded(String name) {
+        SoftwareMixer mixer = softwareMixer;
+        return mixer != null ? mixer.isLoaded(name) : soundEffects.containsKey(name);
     }
     
     /**
@@ -76,21 +300,33 @@ public class AudioManager {
             URL url = null;
             
             // 尝试多种加载方式
-            // 1. 直接从根路径加载
-            url = AudioManager.class.getResource("/" + path);
+            // 1. 从已安装的内容包加载
+            url = getPackUrl(path);
+            
+            // 2. 直接从根路径加载
+            if (url == null) {
+                url = AudioManager.class.getResource("/" + path);
+            }
             
-            // 2. 使用类加载器
+            // 3. 使用类加载器
             if (url == null) {
                 url = getClass().getClassLoader().getResource(path);
             }
             
-            // 3. 尝试从模块路径加载
+            // 4. 尝试从模块路径加载
             if (url == null) {
                 url = getClass().getResource("/com/tankbattle/" + path);
             }
             
             if (url != null) {
+                SoftwareMixer mixer = softwareMixer;
+                if (mixer != null) {
+                    // 软件混音器一次性解码为共享的PCM数据
+                    soundDurations.put(name, mixer.loadSound(name, url));
+                    return true;
+                }
                 AudioClip clip = new AudioClip(url.toString());
+                soundDurations.put(name, readDurationNanos(url));
                 soundEffects.put(name, clip);
                 return true;
             } else {
@@ -103,130 +339,413 @@ public class AudioManager {
         }
     }
     
+    /**
+     * 读取WAV文件时长
+     * 
+     * @param url 音频资源地址
+     * @return 时长（纳秒），无法读取时返回默认值
+     */
+    private long readDurationNanos(URL url) {
+        try {
+            AudioFileFormat format = AudioSystem.getAudioFileFormat(url);
+            if (format.getFrameLength() > 0 && format.getFormat().getFrameRate() > 0) {
+                return (long) (format.getFrameLength() / format.getFormat().getFrameRate() * 1_000_000_000L);
+            }
+        } catch (Exception e) {
+            System.out.println("读取音效时长失败: " + url + ", 错误: " + e.getMessage());
+        }
+        return DEFAULT_SOUND_DURATION_NANOS;
+    }
+    
     /**
      * 播放音效
+     * 只查找已预加载的音效，不会阻塞调用线程；尚未加载完成的音效直接跳过
      * 
      * @param name 音效名称
-     * @return 是否成功播放
+     * @return 是否成功提交播放
      */
     public boolean playSoundEffect(String name) {
+        return playSoundEffect(name, 1.0);
+    }
+    
+    /**
+     * 以相对音量播放音效
+     * 同一音效在短时间内的重复触发会被合并；超出声部上限时抢占最安静、最早开始的声部
+     * 
+     * @param name 音效名称
+     * @param relativeVolume 相对全局音量的比例（0.0-1.0）
+     * @return 是否成功提交播放
+     */
+    public boolean playSoundEffect(String name, double relativeVolume) {
         if (hasLoadingError) return false;
         
+        if (!isSoundEffectLoaded(name)) {
+            // 尚未加载，在后台加载供下次使用，本次跳过
+            preloadSoundEffect(name);
+            return false;
+        }
+        
+        // 以触发时间而不是执行时间判断是否合并
+        long triggerNanos = System.nanoTime();
+        return enqueue(() -> doPlaySoundEffect(name, relativeVolume, triggerNanos));
+    }
+    
+    /**
+     * 在音频分发线程上播放音效
+     * 
+     * @param name 音效名称
+     * @param relativeVolume 相对音量
+     * @param now 触发时间（纳秒）
+     */
+    private void doPlaySoundEffect(String name, double relativeVolume, long now) {
         try {
+            SoftwareMixer mixer = softwareMixer;
             AudioClip clip = soundEffects.get(name);
-            if (clip == null) {
-                // 懒加载 - 首次使用时加载
-                String resourcePath = "audio/" + name + ".wav";
-                boolean loaded = loadSoundEffect(name, resourcePath);
-                if (!loaded) {
-                    // 如果加载失败，记录但继续游戏
-                    return false;
-                }
-                clip = soundEffects.get(name);
+            if (mixer == null && clip == null) {
+                return;
             }
             
-            if (clip != null) {
-                // 使用全局音量播放音效
-                clip.play(globalVolume);
-                return true;
+            pruneFinishedVoices(now);
+            
+            // 合并同一帧或短时间内的重复触发
+            Long lastTrigger = lastTriggerTimes.get(name);
+            if (lastTrigger != null && now - lastTrigger < COALESCE_WINDOW_NANOS) {
+                return;
             }
-            return false;
+            
+            // 超出单个音效的声部上限时，抢占该音效的声部
+            int effectLimit = VOICES_PER_EFFECT.getOrDefault(name, DEFAULT_VOICES_PER_EFFECT);
+            if (countVoices(name) >= effectLimit) {
+                stealVoice(name);
+            }
+            
+            // 超出全局声部上限时，抢占所有音效中的声部
+            if (activeVoices.size() >= MAX_TOTAL_VOICES) {
+                stealVoice(null);
+            }
+            
+            // 使用全局音量播放音效
+            double volume = globalVolume * Math.max(0, Math.min(1, relativeVolume));
+            if (mixer != null) {
+                mixer.play(name, volume);
+            } else {
+                clip.play(volume);
+            }
+            
+            long duration = soundDurations.getOrDefault(name, DEFAULT_SOUND_DURATION_NANOS);
+            activeVoices.add(new Voice(name, now, now + duration, volume));
+            lastTriggerTimes.put(name, now);
         } catch (Exception e) {
             System.out.println("播放音效失败: " + name + ", 错误: " + e.getMessage());
-            return false;
         }
     }
     
-    // 当前正在播放的BGM路径
+    /**
+     * 移除已经播放结束的声部
+     * 
+     * @param now 当前时间（纳秒）
+     */
+    private void pruneFinishedVoices(long now) {
+        activeVoices.removeIf(voice -> voice.endNanos <= now);
+    }
+    
+    /**
+     * 统计指定音效正在播放的声部数
+     * 
+     * @param name 音效名称
+     * @return 声部数
+     */
+    private int countVoices(String name) {
+        int count = 0;
+        for (Voice voice : activeVoices) {
+            if (voice.name.equals(name)) {
+                count++;
+            }
+        }
+        return count;
+    }
+    
+    /**
+     * 抢占一个声部：优先选择音量最小的，音量相同时选择最早开始的
+     * AudioClip只能整体停止，因此被抢占音效的所有声部都会停止
+     * 
+     * @param name 限定的音效名称，为null时在所有声部中选择
+     */
+    private void stealVoice(String name) {
+        Voice victim = null;
+        for (Voice voice : activeVoices) {
+            if (name != null && !voice.name.equals(name)) {
+                continue;
+            }
+            if (victim == null || voice.volume < victim.volume
+                    || (voice.volume == victim.volume && voice.startNanos < victim.startNanos)) {
+                victim = voice;
+            }
+        }
+        if (victim == null) {
+            return;
+        }
+        
+        SoftwareMixer mixer = softwareMixer;
+        if (mixer != null) {
+            mixer.stop(victim.name);
+        } else {
+            AudioClip clip = soundEffects.get(victim.name);
+            if (clip != null) {
+                clip.stop();
+            }
+        }
+        for (Iterator<Voice> it = activeVoices.iterator(); it.hasNext();) {
+            if (it.next().name.equals(victim.name)) {
+                it.remove();
+            }
+        }
+    }
+    
+    // 当前正在播放的BGM路径（仅由音频分发线程访问）
     private String currentBgmPath;
-
-    public boolean playBackgroundMusic(String path, boolean loop) {
-        if (hasLoadingError) return false;
-
-        // 重复播放同一路径时直接返回
-        if (currentBgmPath != null && currentBgmPath.equals(path) && bgmPlayer != null) {
-            return true;
+    
+    /**
+     * 在后台线程为常用背景音乐创建播放器
+     * 播放器创建后异步完成媒体准备，创建完成后交给分发线程登记
+     */
+    private void warmUpBackgroundMusic() {
+        for (String path : BACKGROUND_MUSIC_TRACKS) {
+            preloadExecutor.execute(() -> {
+                MediaPlayer player = createBgmPlayer(path);
+                if (player != null) {
+                    enqueue(() -> registerBgmChannel(path, player));
+                }
+            });
         }
-
-        // 停止并释放现有播放器
-        stopBackgroundMusic();
-
-        // 尝试加载资源，保持原有逻辑
+    }
+    
+    /**
+     * 获取已安装内容包中音频条目的URL
+     * 
+     * @param path 音频资源路径
+     * @return 条目URL，没有安装内容包或包中没有该条目时返回null
+     */
+    private static URL getPackUrl(String path) {
+        ContentPack pack = ContentPack.getInstalled();
+        return pack != null ? pack.getUrl(path) : null;
+    }
+    
+    /**
+     * 查找背景音乐资源并创建播放器
+     * 
+     * @param path 音乐资源路径
+     * @return 播放器，资源不存在或创建失败时返回null
+     */
+    private MediaPlayer createBgmPlayer(String path) {
         try {
-            URL url = getClass().getClassLoader().getResource(path);
+            URL url = getPackUrl(path);
             // 尝试其他加载方式
+            if (url == null) {
+                url = getClass().getClassLoader().getResource(path);
+            }
             if (url == null) {
                 url = AudioManager.class.getResource("/" + path);
             }
             if (url == null) {
                 url = getClass().getResource("/com/tankbattle/" + path);
             }
-            if (url != null) {
-                try {
-                    Media media = new Media(url.toString());
-                    bgmPlayer = new MediaPlayer(media);
-                    
-                    // 设置错误处理
-                    bgmPlayer.setOnError(() -> {
-                        System.out.println("背景音乐播放错误: " + bgmPlayer.getError());
-                        stopBackgroundMusic(); // 确保完全停止和释放
-                    });
-                    
-                    // 设置完成事件处理，防止音乐意外停止
-                    bgmPlayer.setOnEndOfMedia(() -> {
-                        if (loop) {
-                            bgmPlayer.seek(javafx.util.Duration.ZERO);
-                            bgmPlayer.play();
-                        } else {
-                            stopBackgroundMusic();
-                        }
-                    });
-                    
-                    if (loop) {
-                        bgmPlayer.setCycleCount(MediaPlayer.INDEFINITE);
-                    }
-                    // 根据全局音量设置背景音乐音量
-                    bgmPlayer.setVolume(globalVolume);
-                 // 直接播放背景音乐，同步调用，避免创建额外线程
-                 bgmPlayer.play();
-                 // 记录当前播放路径
-                 currentBgmPath = path;
-                 return true;
-                } catch (Exception e) {
-                    System.out.println("背景音乐创建失败: " + path + ", 错误: " + e.getMessage());
-                    return false;
-                }
-            } else {
+            if (url == null) {
                 System.out.println("背景音乐文件不存在: " + path);
-                return false;
+                return null;
             }
+            MediaPlayer player = new MediaPlayer(new Media(url.toString()));
+            player.setVolume(0);
+            return player;
         } catch (Exception e) {
             System.out.println("背景音乐加载失败: " + path + ", 错误: " + e.getMessage());
-            return false;
+            return null;
         }
     }
     
     /**
-     * 停止背景音乐
+     * 在分发线程上登记背景音乐通道
+     * 
+     * @param path 音乐资源路径
+     * @param player 播放器
+     * @return 登记的通道（已存在时返回原有通道）
      */
-    public void stopBackgroundMusic() {
-        try {
-            if (bgmPlayer != null) {
-                bgmPlayer.stop();
-                bgmPlayer.dispose();
-                bgmPlayer = null;
-                // 清除当前路径
+    private BgmChannel registerBgmChannel(String path, MediaPlayer player) {
+        BgmChannel existing = bgmChannels.get(path);
+        if (existing != null) {
+            // 分发线程已经同步创建过，丢弃预热的播放器
+            player.dispose();
+            return existing;
+        }
+        
+        BgmChannel channel = new BgmChannel(player);
+        // 设置错误处理（回调在JavaFX线程上执行，转交给分发线程处理）
+        player.setOnError(() -> enqueue(() -> {
+            System.out.println("背景音乐播放错误: " + player.getError());
+            if (bgmChannels.remove(path, channel)) {
+                player.dispose();
+            }
+            if (path.equals(currentBgmPath)) {
                 currentBgmPath = null;
-                System.gc();
             }
-        } catch (Exception e) {
-            System.out.println("停止背景音乐失败: " + e.getMessage());
-            // 即使出错，也确保播放器被置为null
-            bgmPlayer = null;
+        }));
+        bgmChannels.put(path, channel);
+        return channel;
+    }
+
+    /**
+     * 播放背景音乐
+     * 与当前背景音乐交叉淡入淡出，不会等待媒体初始化
+     * 
+     * @param path 音乐资源路径
+     * @param loop 是否循环播放
+     * @return 是否成功提交播放
+     */
+    public boolean playBackgroundMusic(String path, boolean loop) {
+        if (hasLoadingError) return false;
+        return enqueue(() -> doPlayBackgroundMusic(path, loop));
+    }
+    
+    /**
+     * 在音频分发线程上播放背景音乐
+     * 
+     * @param path 音乐资源路径
+     * @param loop 是否循环播放
+     */
+    private void doPlayBackgroundMusic(String path, boolean loop) {
+        // 重复播放同一路径时直接返回
+        if (path.equals(currentBgmPath)) {
+            return;
+        }
+
+        BgmChannel channel = bgmChannels.get(path);
+        if (channel == null) {
+            // 未预热的音乐（或预热尚未完成）在此同步创建
+            MediaPlayer player = createBgmPlayer(path);
+            if (player == null) {
+                return;
+            }
+            channel = registerBgmChannel(path, player);
+        }
+        
+        // 当前音乐淡出
+        fadeOutCurrent();
+        
+        MediaPlayer player = channel.player;
+        player.setCycleCount(loop ? MediaPlayer.INDEFINITE : 1);
+        BgmChannel playing = channel;
+        player.setOnEndOfMedia(loop ? null : () -> enqueue(() -> {
+            // 播放结束后视为已完全淡出，下次播放从头开始
+            playing.level = 0.0;
+            playing.target = 0.0;
+            player.pause();
+            if (path.equals(currentBgmPath)) {
+                currentBgmPath = null;
+            }
+        }));
+        if (channel.level <= 0) {
+            // 已完全淡出的播放器从头开始播放；仍在淡出的播放器直接淡入
+            player.seek(javafx.util.Duration.ZERO);
+        }
+        player.play();
+        channel.target = 1.0;
+        currentBgmPath = path;
+        startFade();
+    }
+    
+    /**
+     * 停止背景音乐（淡出后暂停）
+     */
+    public void stopBackgroundMusic() {
+        enqueue(this::fadeOutCurrent);
+    }
+    
+    /**
+     * 在音频分发线程上淡出当前背景音乐
+     */
+    private void fadeOutCurrent() {
+        if (currentBgmPath != null) {
+            BgmChannel channel = bgmChannels.get(currentBgmPath);
+            if (channel != null) {
+                channel.target = 0.0;
+                startFade();
+            }
             currentBgmPath = null;
         }
     }
     
+    /**
+     * 记录淡入淡出的起始时间
+     */
+    private void startFade() {
+        if (lastFadeNanos == 0) {
+            lastFadeNanos = System.nanoTime();
+        }
+    }
+    
+    /**
+     * 检查是否有正在进行的淡入淡出
+     * 
+     * @return 是否有通道的音量尚未达到目标
+     */
+    private boolean isFading() {
+        for (BgmChannel channel : bgmChannels.values()) {
+            if (channel.level != channel.target) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * 按经过的时间推进所有通道的淡入淡出，完全淡出的播放器暂停
+     */
+    private void advanceFades() {
+        if (lastFadeNanos == 0) {
+            return;
+        }
+        long now = System.nanoTime();
+        double step = (double) (now - lastFadeNanos) / CROSSFADE_NANOS;
+        lastFadeNanos = now;
+        
+        boolean fading = false;
+        for (BgmChannel channel : bgmChannels.values()) {
+            if (channel.level == channel.target) {
+                continue;
+            }
+            if (channel.level < channel.target) {
+                channel.level = Math.min(channel.target, channel.level + step);
+            } else {
+                channel.level = Math.max(channel.target, channel.level - step);
+            }
+            channel.player.setVolume(globalVolume * channel.level);
+            if (channel.level <= 0 && channel.target <= 0) {
+                channel.player.pause();
+            }
+            fading |= channel.level != channel.target;
+        }
+        if (!fading) {
+            lastFadeNanos = 0;
+        }
+    }
+    
+    /**
+     * 立即停止并释放所有背景音乐播放器
+     */
+    private void disposeBackgroundMusic() {
+        for (BgmChannel channel : bgmChannels.values()) {
+            try {
+                channel.player.stop();
+                channel.player.dispose();
+            } catch (Exception e) {
+                System.out.println("停止背景音乐失败: " + e.getMessage());
+            }
+        }
+        bgmChannels.clear();
+        currentBgmPath = null;
+        lastFadeNanos = 0;
+    }
+    
     /**
      * 设置全局音量，0为静音
      * @param volume 范围0.0-1.0
@@ -234,9 +753,11 @@ public class AudioManager {
     public void setGlobalVolume(double volume) {
         this.globalVolume = Math.max(0, Math.min(1, volume));
         // 调整当前背景音乐音量
-        if (bgmPlayer != null) {
-            bgmPlayer.setVolume(this.globalVolume);
-        }
+        enqueue(() -> {
+            for (BgmChannel channel : bgmChannels.values()) {
+                channel.player.setVolume(this.globalVolume * channel.level);
+            }
+        });
     }
 
     /**
@@ -254,4 +775,29 @@ public class AudioManager {
     public void disableAllAudio() {
         stopBackgroundMusic();
     }
-}
\ No newline at end of file
+    
+    /**
+     * 关闭音频系统：停止所有声音并结束分发线程
+     * 在应用退出时调用
+     * 
+     * @param timeoutMillis 等待分发线程结束的最长时间（毫秒）
+     */
+    public void shutdown(long timeoutMillis) {
+        enqueue(() -> {
+            disposeBackgroundMusic();
+            for (AudioClip clip : soundEffects.values()) {
+                clip.stop();
+            }
+            if (softwareMixer != null) {
+                softwareMixer.stop();
+            }
+            running = false;
+        });
+        preloadExecutor.shutdownNow();
+        try {
+            dispatchThread.join(timeoutMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
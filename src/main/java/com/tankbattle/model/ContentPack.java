@@ -0,0 +1,380 @@
+package com.tankbattle.model;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.net.URLStreamHandler;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+/**
+ * 内容包（.tbpack），把关卡、图像和音频打包在一个zip文件中
+ * 通过jdk.zipfs文件系统挂载，挂载时只打开一次文件并根据zip中央目录建立条目索引，
+ * 之后每个条目在需要时才解压读取。包内路径与类路径资源一致，例如
+ * levels/level_1.json、images/brick_wall.svg、audio/tank_fire.wav
+ * 
+ * 启动参数 --pack=文件 安装内容包；也可以用命令行把目录打包:
+ * <pre>
+ * java -cp TankBattle.jar com.tankbattle.model.ContentPack 目录 输出.tbpack
+ * </pre>
+ * 
+ * @author Taiyu Jin
+ */
+public class ContentPack implements Closeable {
+    // 内容包文件扩展名
+    public static final String FILE_EXTENSION = ".tbpack";
+    
+    // 指定内容包的命令行参数前缀
+    public static final String PACK_ARG = "--pack=";
+    
+    // 包内关卡目录
+    public static final String LEVELS_DIRECTORY = "levels";
+    
+    // 打包时包含的目录
+    private static final String[] PACK_DIRECTORIES = {LEVELS_DIRECTORY, "images", "audio"};
+    
+    // 当前安装的内容包
+    private static volatile ContentPack installed;
+    
+    private final Path file;
+    private final FileSystem fileSystem;
+    // 中央目录索引：包内路径 -> 条目信息
+    private final Map<String, Entry> entries;
+    
+    /**
+     * 内容包中的一个条目
+     */
+    public static class Entry {
+        private final String path;
+        private final long size;
+        private final long lastModified;
+        private final long crc;
+        
+        Entry(String path, long size, long lastModified, long crc) {
+            this.path = path;
+            this.size = size;
+            this.lastModified = lastModified;
+            this.crc = crc;
+        }
+        
+        public String getPath() {
+            return path;
+        }
+        
+        public long getSize() {
+            return size;
+        }
+        
+        public long getLastModified() {
+            return lastModified;
+        }
+        
+        public long getCrc() {
+            return crc;
+        }
+    }
+    
+    private ContentPack(Path file, FileSystem fileSystem, Map<String, Entry> entries) {
+        this.file = file;
+        this.fileSystem = fileSystem;
+        this.entries = entries;
+    }
+    
+    /**
+     * 挂载内容包并建立条目索引
+     * zip文件系统在打开时读取中央目录，遍历只访问内存中的目录结构，不读取条目内容
+     * 
+     * @param file 内容包文件
+     * @return 内容包
+     * @throws IOException 文件不存在或不是有效的zip文件
+     */
+    public static ContentPack open(Path file) throws IOException {
+        FileSystem fileSystem = FileSystems.newFileSystem(file, (ClassLoader) null);
+        Map<String, Entry> entries = new HashMap<>();
+        try {
+            Files.walkFileTree(fileSystem.getPath("/"), new SimpleFileVisitor<Path>() {
+                @Override
+                public FileVisitResult visitFile(Path path, BasicFileAttributes attributes) throws IOException {
+                    String name = normalize(path.toString());
+                    Object crc = Files.getAttribute(path, "zip:crc");
+                    entries.put(name, new Entry(name, attributes.size(),
+                            attributes.lastModifiedTime().toMillis(), crc instanceof Long ? (Long) crc : 0));
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        } catch (IOException | RuntimeException e) {
+            fileSystem.close();
+            throw e;
+        }
+        return new ContentPack(file, fileSystem, entries);
+    }
+    
+    /**
+     * 安装内容包，替换之前安装的内容包
+     * 
+     * @param file 内容包文件
+     * @return 安装的内容包
+     * @throws IOException 挂载失败
+     */
+    public static synchronized ContentPack install(Path file) throws IOException {
+        ContentPack pack = open(file);
+        ContentPack previous = installed;
+        installed = pack;
+        if (previous != null) {
+            previous.close();
+        }
+        System.out.println("已安装内容包: " + file + "（" + pack.entries.size() + "个条目）");
+        return pack;
+    }
+    
+    /**
+     * 根据命令行参数安装内容包，没有指定或安装失败时继续使用默认资源
+     * 
+     * @param args 命令行参数
+     * @return 安装的内容包，没有安装时返回null
+     */
+    public static ContentPack installFromArgs(List<String> args) {
+        for (String arg : args) {
+            if (arg.startsWith(PACK_ARG)) {
+                Path file = Paths.get(arg.substring(PACK_ARG.length()));
+                try {
+                    return install(file);
+                } catch (IOException | RuntimeException e) {
+                    System.err.println("无法加载内容包: " + file + ", 错误: " + e.getMessage());
+                    return null;
+                }
+            }
+        }
+        return null;
+    }
+    
+    /**
+     * 获取当前安装的内容包
+     * 
+     * @return 内容包，没有安装时返回null
+     */
+    public static ContentPack getInstalled() {
+        return installed;
+    }
+    
+    /**
+     * 卸载当前安装的内容包
+     */
+    public static synchronized void uninstall() {
+        ContentPack previous = installed;
+        installed = null;
+        if (previous != null) {
+            try {
+                previous.close();
+            } catch (IOException e) {
+                System.err.println("关闭内容包失败: " + e.getMessage());
+            }
+        }
+    }
+    
+    /**
+     * 包内是否有指定条目
+     * 
+     * @param path 包内路径
+     * @return 是否存在
+     */
+    public boolean contains(String path) {
+        return entries.containsKey(normalize(path));
+    }
+    
+    /**
+     * 获取条目信息
+     * 
+     * @param path 包内路径
+     * @return 条目信息，不存在时返回null
+     */
+    public Entry getEntry(String path) {
+        return entries.get(normalize(path));
+    }
+    
+    /**
+     * 列出目录下直接包含的条目（不含子目录），按路径排序
+     * 
+     * @param directory 包内目录，例如"levels"
+     * @return 条目列表
+     */
+    public List<Entry> list(String directory) {
+        String prefix = normalize(directory) + "/";
+        TreeMap<String, Entry> sorted = new TreeMap<>();
+        for (Entry entry : entries.values()) {
+            if (entry.path.startsWith(prefix) && entry.path.indexOf('/', prefix.length()) < 0) {
+                sorted.put(entry.path, entry);
+            }
+        }
+        return new ArrayList<>(sorted.values());
+    }
+    
+    /**
+     * 打开条目的输入流，读取时才解压
+     * 
+     * @param path 包内路径
+     * @return 输入流
+     * @throws IOException 条目不存在或读取错误
+     */
+    public InputStream open(String path) throws IOException {
+        Entry entry = getEntry(path);
+        if (entry == null) {
+            throw new IOException("内容包中没有条目: " + path);
+        }
+        return Files.newInputStream(fileSystem.getPath(entry.path));
+    }
+    
+    /**
+     * 读取条目的全部内容
+     * 
+     * @param path 包内路径
+     * @return 条目内容
+     * @throws IOException 条目不存在或读取错误
+     */
+    public byte[] readAllBytes(String path) throws IOException {
+        try (InputStream in = open(path)) {
+            return in.readAllBytes();
+        }
+    }
+    
+    /**
+     * 获取条目的URL，用于只接受URL的音频接口
+     * URL的文本形式是标准的jar:地址（JavaFX媒体组件按地址自行读取），
+     * 通过URL打开流时则直接从已挂载的文件系统读取，不再打开一次内容包文件
+     * 
+     * @param path 包内路径
+     * @return 条目URL，不存在时返回null
+     */
+    public URL getUrl(String path) {
+        Entry entry = getEntry(path);
+        if (entry == null) {
+            return null;
+        }
+        try {
+            String spec = file.toAbsolutePath().toUri() + "!/" + entry.path;
+            return new URL("jar", "", -1, spec, new URLStreamHandler() {
+                @Override
+                protected URLConnection openConnection(URL url) {
+                    return new URLConnection(url) {
+                        @Override
+                        public void connect() {
+                            connected = true;
+                        }
+                        
+                        @Override
+                        public InputStream getInputStream() throws IOException {
+                            return open(entry.path);
+                        }
+                        
+                        @Override
+                        public long getContentLengthLong() {
+                            return entry.size;
+                        }
+                    };
+                }
+            });
+        } catch (MalformedURLException e) {
+            System.err.println("无法创建内容包条目URL: " + path + ", 错误: " + e.getMessage());
+            return null;
+        }
+    }
+    
+    /**
+     * 条目数量
+     * 
+     * @return 条目数量
+     */
+    public int size() {
+        return entries.size();
+    }
+    
+    public Path getFile() {
+        return file;
+    }
+    
+    @Override
+    public void close() throws IOException {
+        fileSystem.close();
+    }
+    
+    /**
+     * 统一为不带前导斜杠、以/分隔的包内路径
+     */
+    private static String normalize(String path) {
+        String normalized = path.replace('\\', '/');
+        while (normalized.startsWith("/")) {
+            normalized = normalized.substring(1);
+        }
+        return normalized;
+    }
+    
+    /**
+     * 把目录中的levels、images和audio子目录打包为内容包
+     * 
+     * @param directory 源目录
+     * @param packFile 输出的内容包文件
+     * @return 打包的文件数
+     * @throws IOException 读写错误
+     */
+    public static int create(Path directory, Path packFile) throws IOException {
+        Files.deleteIfExists(packFile);
+        int count = 0;
+        try (FileSystem zip = FileSystems.newFileSystem(packFile, Collections.singletonMap("create", "true"))) {
+            for (String name : PACK_DIRECTORIES) {
+                Path source = directory.resolve(name);
+                if (!Files.isDirectory(source)) {
+                    continue;
+                }
+                List<Path> files = new ArrayList<>();
+                try (Stream<Path> stream = Files.walk(source)) {
+                    stream.filter(Files::isRegularFile).forEach(files::add);
+                }
+                for (Path path : files) {
+                    Path target = zip.getPath("/" + name, source.relativize(path).toString().replace('\\', '/'));
+                    Files.createDirectories(target.getParent());
+                    Files.copy(path, target);
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+    
+    /**
+     * 命令行入口：打包目录
+     * 
+     * @param args 源目录和输出文件
+     */
+    public static void main(String[] args) {
+        if (args.length < 2) {
+            System.err.println("用法: ContentPack <目录> <输出" + FILE_EXTENSION + ">");
+            System.exit(2);
+        }
+        try {
+            int count = create(Paths.get(args[0]), Paths.get(args[1]));
+            try (ContentPack pack = open(Paths.get(args[1]))) {
+                System.out.println("已打包" + count + "个文件: " + pack.getFile() + "，关卡"
+                        + pack.list(LEVELS_DIRECTORY).size() + "个");
+            }
+        } catch (IOException e) {
+            System.err.println("打包失败: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+}
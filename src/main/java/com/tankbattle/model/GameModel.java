@@ -1,8 +1,23 @@
 package com.tankbattle.model;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
-import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 import com.tankbattle.model.entity.EnemyTank;
 import com.tankbattle.model.entity.PlayerTank;
@@ -17,6 +32,7 @@ import com.tankbattle.model.enums.Direction;
 import com.tankbattle.model.enums.GameState;
 import com.tankbattle.model.enums.ItemType;
 import com.tankbattle.model.level.LevelConfig;
+import com.tankbattle.model.level.LevelGenerator;
 import com.tankbattle.model.level.LevelManager;
 import com.tankbattle.model.save.GameSave;
 import com.tankbattle.model.save.SaveManager;
@@ -40,6 +56,38 @@ public class GameModel {
     private List<Wall> walls;
     private List<Item> items;
     
+    // 墙体空间索引，与walls同步更新
+    private WallIndex wallIndex;
+    
+    // 上次绘制以来被击中的墙体格子
+    private final List<Wall> damagedWalls = new ArrayList<>();
+    
+    // 上次绘制以来因热重载被移除或新建的墙体，绘制时重新生成它们所在的区块
+    private final List<Wall> reshapedWalls = new ArrayList<>();
+    
+    // 当前关卡的地形层（水面、冰面、树林）
+    private TerrainMap terrainMap;
+    
+    // 当前关卡的分析结果，用于选择敌人出生点和道具位置
+    private LevelAnalysis levelAnalysis;
+    
+    // 当前关卡的配置，热重载时用于比较墙体变化
+    private LevelConfig currentLevelConfig;
+    
+    // 在关卡完成界面后台准备的下一关
+    private CompletableFuture<PreparedLevel> prefetchedLevel;
+    
+    // 无尽模式：关卡由LevelGenerator根据种子生成，没有最后一关
+    private boolean endlessMode;
+    private long endlessSeed;
+    
+    // 关卡预取线程
+    private static final ExecutorService levelPrefetchExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "level-prefetch");
+        thread.setDaemon(true);
+        return thread;
+    });
+    
     // 游戏数据 (使用JavaFX属性以支持绑定)
     private IntegerProperty score = new SimpleIntegerProperty(0);
     private IntegerProperty level = new SimpleIntegerProperty(1);
@@ -47,11 +95,13 @@ public class GameModel {
     private IntegerProperty remainingEnemies = new SimpleIntegerProperty(0);
     // 剩余待生成的敌人数量
     private int spawnRemaining = 0;
-    private Random random;
+    // 是否已输出过出生点被占据的警告
+    private boolean spawnBlockedWarned = false;
+    private GameRandom random;
     
-    // 游戏区域大小
-    private static final int GAME_WIDTH = 800;
-    private static final int GAME_HEIGHT = 600;
+    // 当前地图大小（像素），由关卡配置决定
+    private int mapWidth = LevelConfig.DEFAULT_MAP_WIDTH;
+    private int mapHeight = LevelConfig.DEFAULT_MAP_HEIGHT;
     
     // 网格大小
     private static final int GRID_SIZE = 40;
@@ -68,18 +118,28 @@ public class GameModel {
     // 添加剩余待生成敌人计数
     private int enemiesToSpawn;
     
+    // 世界状态快照的格式版本
+    private static final int WORLD_VERSION = 1;
+    
+    // 快照中的墙体类型
+    private static final byte WALL_BRICK = 0;
+    private static final byte WALL_STEEL = 1;
+    
     /**
      * 构造函数
      */
     public GameModel() {
         this.gameState = GameState.MENU;
-        this.random = new Random();
+        this.random = new GameRandom();
         
         // 初始化游戏对象列表
         this.enemyTanks = new ArrayList<>();
         this.bullets = new ArrayList<>();
         this.walls = new ArrayList<>();
         this.items = new ArrayList<>();
+        this.wallIndex = new WallIndex(walls);
+        this.terrainMap = new TerrainMap(null);
+        this.levelAnalysis = LevelAnalysis.analyze(null, wallIndex);
         
         // 初始化关卡管理器和存档管理器
         this.levelManager = LevelManager.getInstance();
@@ -90,12 +150,34 @@ public class GameModel {
      * 初始化游戏
      */
     public void initGame() {
+        this.endlessMode = false;
+        startNewGame(selectedLevel.get());
+    }
+    
+    /**
+     * 初始化无尽模式游戏，从第1关开始，每一关都由种子生成
+     * 
+     * @param seed 无尽模式的基础种子，相同种子得到相同的关卡序列
+     */
+    public void initEndlessGame(long seed) {
+        this.endlessMode = true;
+        this.endlessSeed = seed;
+        startNewGame(1);
+    }
+    
+    /**
+     * 从指定关卡开始新游戏
+     * 
+     * @param startLevel 起始关卡
+     */
+    private void startNewGame(int startLevel) {
         // 重置游戏数据
         this.score.set(0);
-        this.level.set(selectedLevel.get());
+        this.level.set(startLevel);
         
         // 初始化玩家坦克
-        this.playerTank = new PlayerTank(GAME_WIDTH / 2, GAME_HEIGHT - GRID_SIZE * 2, Direction.UP);
+        this.playerTank = new PlayerTank(LevelConfig.DEFAULT_MAP_WIDTH / 2,
+                LevelConfig.DEFAULT_MAP_HEIGHT - GRID_SIZE * 2, Direction.UP);
         
         // 清空并初始化敌人坦克、子弹、墙体和道具
         this.enemyTanks.clear();
@@ -106,8 +188,10 @@ public class GameModel {
         // 重置道具生成计时器
         this.itemSpawnTimer = 0;
         
-        // 设置关卡管理器的当前关卡
-        levelManager.setCurrentLevelByNumber(level.get());
+        // 设置关卡管理器的当前关卡（无尽模式不使用关卡文件）
+        if (!endlessMode) {
+            levelManager.setCurrentLevelByNumber(level.get());
+        }
         
         // 加载关卡
         loadLevel(level.get());
@@ -122,16 +206,41 @@ public class GameModel {
      * @param levelNumber 关卡编号
      */
     public void loadLevel(int levelNumber) {
+        loadLevel(levelNumber, null);
+    }
+    
+    /**
+     * 加载关卡，优先使用已准备好的世界状态
+     * 
+     * @param levelNumber 关卡编号
+     * @param prepared 后台准备好的关卡，为null或与当前关卡不符时同步构建
+     */
+    private void loadLevel(int levelNumber, PreparedLevel prepared) {
+        // 在后台预加载本关可能用到的音效，避免首次播放时卡顿
+        AudioManager.getInstance().preloadSoundEffects(AudioManager.GAMEPLAY_SOUND_EFFECTS);
+        
         // 清空现有敌人、子弹和道具
         this.enemyTanks.clear();
         this.bullets.clear();
         this.items.clear();
         this.walls.clear();
+        this.damagedWalls.clear();
+        this.reshapedWalls.clear();
+        
+        // 从关卡管理器获取关卡配置，无尽模式使用生成的关卡
+        LevelConfig levelConfig = endlessMode ? endlessLevelConfig(levelNumber, prepared) : levelManager.getCurrentLevel();
+        this.currentLevelConfig = levelConfig;
+        
+        // 设置地图尺寸和坦克的世界边界
+        this.mapWidth = levelConfig != null ? levelConfig.getMapWidth() : LevelConfig.DEFAULT_MAP_WIDTH;
+        this.mapHeight = levelConfig != null ? levelConfig.getMapHeight() : LevelConfig.DEFAULT_MAP_HEIGHT;
+        this.playerTank.setWorldBounds(mapWidth, mapHeight);
         
-        // 从关卡管理器获取关卡配置
-        LevelConfig levelConfig = levelManager.getCurrentLevel();
         if (levelConfig == null) {
             // 如果没有找到关卡配置，使用默认配置
+            this.wallIndex = new WallIndex(walls);
+            this.terrainMap = new TerrainMap(null);
+            this.levelAnalysis = LevelAnalysis.analyze(null, wallIndex);
             generateDefaultLevel(levelNumber);
             return;
         }
@@ -143,14 +252,18 @@ public class GameModel {
         // 设置待生成坦克数
         this.spawnRemaining = this.remainingEnemies.get() - initialEnemies;
         
-        // 加载墙体
-        loadWalls(levelConfig);
+        // 加载墙体：直接换用准备好的墙体列表和空间索引
+        if (prepared == null || prepared.getConfig() != levelConfig) {
+            prepared = PreparedLevel.prepare(levelConfig);
+        }
+        this.walls = prepared.getWalls();
+        this.wallIndex = prepared.getWallIndex();
+        this.terrainMap = prepared.getTerrainMap();
+        this.levelAnalysis = prepared.getAnalysis();
         
         // 设置玩家出生点
-        if (levelConfig.getPlayerSpawn() != null) {
-            this.playerTank.setX(levelConfig.getPlayerSpawn().getX());
-            this.playerTank.setY(levelConfig.getPlayerSpawn().getY());
-        }
+        this.playerTank.setX(playerSpawnX());
+        this.playerTank.setY(playerSpawnY());
         
         // 生成敌人坦克
         for (int i = 0; i < initialEnemies; i++) {
@@ -160,8 +273,10 @@ public class GameModel {
                 LevelConfig.EnemySpawnConfig spawnConfig = levelConfig.getEnemySpawns().get(index);
                 spawnEnemyTank(spawnConfig.getX(), spawnConfig.getY());
             } else {
-                // 使用默认出生点
-                spawnEnemyTank();
+                // 使用关卡分析选出的出生点，失败时留待稍后生成
+                if (!spawnEnemyTank()) {
+                    spawnRemaining++;
+                }
             }
         }
         
@@ -172,31 +287,196 @@ public class GameModel {
     }
     
     /**
-     * 从关卡配置加载墙体
+     * 玩家出生点X坐标，关卡未配置时位于地图底部中央
+     */
+    private int playerSpawnX() {
+        if (currentLevelConfig != null && currentLevelConfig.getPlayerSpawn() != null) {
+            return currentLevelConfig.getPlayerSpawn().getX();
+        }
+        return mapWidth / 2;
+    }
+    
+    /**
+     * 玩家出生点Y坐标，关卡未配置时位于地图底部中央
+     */
+    private int playerSpawnY() {
+        if (currentLevelConfig != null && currentLevelConfig.getPlayerSpawn() != null) {
+            return currentLevelConfig.getPlayerSpawn().getY();
+        }
+        return mapHeight - GRID_SIZE * 2;
+    }
+    
+    /**
+     * 获取无尽模式关卡的配置
      * 
-     * @param levelConfig 关卡配置
+     * @param levelNumber 关卡编号
+     * @param prepared 后台生成的关卡，编号相符时直接使用
+     * @return 关卡配置
      */
-    private void loadWalls(LevelConfig levelConfig) {
-        // 清空现有墙体
-        walls.clear();
-        
-        // 如果没有墙体配置，直接返回（不创建任何墙体）
-        if (levelConfig.getWalls() == null || levelConfig.getWalls().isEmpty()) {
+    private LevelConfig endlessLevelConfig(int levelNumber, PreparedLevel prepared) {
+        if (prepared != null && prepared.getConfig().getLevelNumber() == levelNumber) {
+            return prepared.getConfig();
+        }
+        return generateEndlessLevel(endlessSeed, levelNumber);
+    }
+    
+    /**
+     * 生成无尽模式关卡，难度随关卡编号递增
+     * 
+     * @param seed 基础种子
+     * @param levelNumber 关卡编号
+     * @return 关卡配置
+     */
+    private static LevelConfig generateEndlessLevel(long seed, int levelNumber) {
+        return LevelGenerator.generate(LevelGenerator.levelSeed(seed, levelNumber), levelNumber, levelNumber);
+    }
+    
+    /**
+     * 关卡文件被修改后更新当前关卡的墙体（需在JavaFX线程调用）
+     * 只处理新旧配置之间有差异的墙体：删除的墙体被移除，新增的墙体被创建，
+     * 未变化的墙体保持原状（已被摧毁的不会恢复）；出生点等其他配置在下次加载关卡时生效
+     * 比较在格子级别进行；只有与变化的格子重叠或相邻的合并墙体会被拆开并重新合并，
+     * 墙体索引增量更新，绘制时只重新生成这些墙体所在的区块
+     * 
+     * @param newConfig 重新解析的关卡配置
+     */
+    public void applyLevelChange(LevelConfig newConfig) {
+        if (newConfig == null || currentLevelConfig == null
+                || newConfig.getLevelNumber() != level.get() || gameState == GameState.MENU) {
             return;
         }
         
-        // 根据配置创建墙体
-        for (LevelConfig.WallConfig wallConfig : levelConfig.getWalls()) {
-            Wall wall;
-            if ("steel".equals(wallConfig.getType())) {
-                wall = new SteelWall(wallConfig.getX(), wallConfig.getY());
+        // 通过索引读取墙体，不生成WallConfig列表，也不修改可能被缓存共享的配置
+        Set<String> oldKeys = new HashSet<>();
+        for (int i = 0; i < currentLevelConfig.getWallCount(); i++) {
+            oldKeys.add(wallKey(currentLevelConfig, i));
+        }
+        Set<String> newKeys = new HashSet<>();
+        for (int i = 0; i < newConfig.getWallCount(); i++) {
+            newKeys.add(wallKey(newConfig, i));
+        }
+        
+        // 找出与删除或新增的格子重叠或相邻的墙体
+        Set<Wall> affected = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (int i = 0; i < currentLevelConfig.getWallCount(); i++) {
+            if (!newKeys.contains(wallKey(currentLevelConfig, i))) {
+                collectTouchingWalls(createWall(currentLevelConfig, i), affected);
+            }
+        }
+        List<Wall> addedTiles = new ArrayList<>();
+        for (int i = 0; i < newConfig.getWallCount(); i++) {
+            if (!oldKeys.contains(wallKey(newConfig, i))) {
+                Wall wall = createWall(newConfig, i);
+                collectTouchingWalls(wall, affected);
+                addedTiles.add(wall);
+            }
+        }
+        
+        // 只拆开受影响的墙体，去掉已删除的格子，加入新增的格子后重新合并
+        List<Wall> tiles = new ArrayList<>();
+        int removed = 0;
+        for (Wall tile : WallMerger.explode(new ArrayList<>(affected))) {
+            if (newKeys.contains(wallKey(tile))) {
+                tiles.add(tile);
             } else {
-                // 默认为砖墙
-                wall = new BrickWall(wallConfig.getX(), wallConfig.getY());
+                removed++;
             }
-            wall.setWidth(wallConfig.getWidth() > 0 ? wallConfig.getWidth() : GRID_SIZE);
-            wall.setHeight(wallConfig.getHeight() > 0 ? wallConfig.getHeight() : GRID_SIZE);
-            walls.add(wall);
+        }
+        tiles.addAll(addedTiles);
+        int added = addedTiles.size();
+        
+        if (!affected.isEmpty() || added > 0) {
+            walls.removeIf(affected::contains);
+            for (Wall wall : affected) {
+                wallIndex.remove(wall);
+                reshapedWalls.add(wall);
+            }
+            for (Wall wall : WallMerger.merge(tiles)) {
+                walls.add(wall);
+                wallIndex.add(wall);
+                reshapedWalls.add(wall);
+            }
+        }
+        this.terrainMap = new TerrainMap(newConfig);
+        this.levelAnalysis = LevelAnalysis.analyze(newConfig, wallIndex);
+        
+        this.currentLevelConfig = newConfig;
+        System.out.println("关卡" + newConfig.getLevelNumber() + "已热重载：新增墙体" + added + "个，移除墙体" + removed + "个");
+    }
+    
+    /**
+     * 把与墙体重叠或共享边的现有墙体加入集合
+     */
+    private void collectTouchingWalls(Wall wall, Set<Wall> result) {
+        wallIndex.forEachInArea(wall.getX() - 1, wall.getY() - 1, wall.getWidth() + 2, wall.getHeight() + 2,
+                result::add);
+    }
+    
+    private static Wall createWall(LevelConfig config, int i) {
+        return PreparedLevel.createWall(config.getWallX(i), config.getWallY(i),
+                config.getWallWidth(i), config.getWallHeight(i), config.getWallType(i));
+    }
+    
+    /**
+     * 关卡配置中第i个墙体的比较键，类型和默认尺寸的处理与PreparedLevel.createWall一致
+     */
+    private static String wallKey(LevelConfig config, int i) {
+        int width = config.getWallWidth(i);
+        int height = config.getWallHeight(i);
+        return wallKey("steel".equals(config.getWallType(i)) ? "steel" : "brick", config.getWallX(i),
+                config.getWallY(i), width > 0 ? width : GRID_SIZE, height > 0 ? height : GRID_SIZE);
+    }
+    
+    /**
+     * 墙体对象的比较键
+     */
+    private static String wallKey(Wall wall) {
+        return wallKey(wall instanceof BrickWall ? "brick" : "steel", (int) wall.getX(), (int) wall.getY(),
+                (int) wall.getWidth(), (int) wall.getHeight());
+    }
+    
+    private static String wallKey(String type, int x, int y, int width, int height) {
+        return type + ":" + x + "," + y + "," + width + "," + height;
+    }
+    
+    /**
+     * 在后台线程准备下一关的世界状态
+     * 关卡完成界面显示期间调用，使进入下一关时无需再构建墙体和索引
+     */
+    private void prefetchNextLevel() {
+        if (endlessMode) {
+            // 无尽模式在后台生成下一关
+            long seed = endlessSeed;
+            int nextNumber = level.get() + 1;
+            prefetchedLevel = CompletableFuture.supplyAsync(
+                    () -> PreparedLevel.prepare(generateEndlessLevel(seed, nextNumber)), levelPrefetchExecutor);
+            return;
+        }
+        
+        // 下一关配置也在后台解析（可能需要读取关卡文件）
+        prefetchedLevel = CompletableFuture.supplyAsync(() -> {
+            LevelConfig nextConfig = levelManager.peekNextLevel();
+            return nextConfig != null ? PreparedLevel.prepare(nextConfig) : null;
+        }, levelPrefetchExecutor);
+    }
+    
+    /**
+     * 取出预取的关卡
+     * 
+     * @return 准备好的关卡，没有预取或预取失败时返回null
+     */
+    private PreparedLevel takePrefetchedLevel() {
+        CompletableFuture<PreparedLevel> future = prefetchedLevel;
+        prefetchedLevel = null;
+        if (future == null) {
+            return null;
+        }
+        try {
+            // 通常早已完成；若仍在进行则等待，不会比同步构建更慢
+            return future.join();
+        } catch (Exception e) {
+            System.err.println("预取关卡失败: " + e.getMessage());
+            return null;
         }
     }
     
@@ -208,15 +488,17 @@ public class GameModel {
     private void generateDefaultLevel(int level) {
         // 设置关卡敌人数量
         this.remainingEnemies.set(10 + (level - 1) * 2);
-
+        
         // 初始生成的敌人数量
         int initialEnemies = Math.min(4, this.remainingEnemies.get());
         // 初始化待生成坦克数量
         this.spawnRemaining = this.remainingEnemies.get() - initialEnemies;
-
+        
         // 生成敌人坦克
         for (int i = 0; i < initialEnemies; i++) {
-            spawnEnemyTank();
+            if (!spawnEnemyTank()) {
+                spawnRemaining++;
+            }
         }
     }
     
@@ -224,18 +506,21 @@ public class GameModel {
      * 进入下一关
      */
     public void nextLevel() {
-        // 使用关卡管理器切换到下一关
-        LevelConfig nextLevelConfig = levelManager.nextLevel();
+        // 先取出预取结果，确保预取的是切换前的下一关
+        PreparedLevel prepared = takePrefetchedLevel();
+        
+        // 使用关卡管理器切换到下一关；无尽模式总有下一关，由loadLevel生成
+        LevelConfig nextLevelConfig = endlessMode ? null : levelManager.nextLevel();
         
-        if (nextLevelConfig != null) {
+        if (endlessMode || nextLevelConfig != null) {
             // 增加关卡
             this.level.set(this.level.get() + 1);
             
             // 重置玩家坦克位置
-            this.playerTank.respawn(GAME_WIDTH / 2, GAME_HEIGHT - GRID_SIZE * 2, Direction.UP);
+            this.playerTank.respawn(playerSpawnX(), playerSpawnY(), Direction.UP);
             
-            // 加载新关卡
-            loadLevel(this.level.get());
+            // 加载新关卡，使用关卡完成界面期间预取的世界状态
+            loadLevel(this.level.get(), prepared);
             
             // 播放关卡开始音效
             AudioManager.getInstance().playSoundEffect("game_start");
@@ -246,63 +531,71 @@ public class GameModel {
             // 如果没有下一关，则游戏胜利
             this.gameState = GameState.VICTORY;
             AudioManager.getInstance().stopBackgroundMusic();
-            AudioManager.getInstance().playBackgroundMusic("victory_bgm.wav", true);
+            AudioManager.getInstance().playBackgroundMusic("audio/victory_bgm.wav", true);
         }
     }
     
     /**
-     * 生成敌人坦克
+     * 在关卡分析选出的敌人出生点中生成敌人坦克
+     * 从随机出生点开始依次检查，使用第一个没有被坦克占据的出生点
+     * 
+     * @return 是否生成成功，所有出生点都被占据时返回false，稍后再试
      */
-    public void spawnEnemyTank() {
-        // 敌人坦克生成点
-        int[] spawnPoints = {GRID_SIZE, GAME_WIDTH / 2, GAME_WIDTH - GRID_SIZE * 2};
-        
-        // 随机选择生成点
-        int x = spawnPoints[random.nextInt(spawnPoints.length)];
-        int y = GRID_SIZE;
-        
-        // 检查生成点是否有碰撞
-        boolean collision;
-        int attempts = 0;
-        final int MAX_ATTEMPTS = 10; // 最大尝试次数，防止无限循环
+    public boolean spawnEnemyTank() {
+        int count = levelAnalysis.getEnemySpawnCount();
+        if (count == 0) {
+            warnSpawnBlocked("警告：关卡没有可用的敌人出生点");
+            return false;
+        }
         
-        do {
-            collision = false;
-            for (Tank tank : enemyTanks) {
-                if (tank != null && Math.abs(tank.getX() - x) < GRID_SIZE * 2 && Math.abs(tank.getY() - y) < GRID_SIZE * 2) {
-                    collision = true;
-                    break;
-                }
+        int start = random.nextInt(count);
+        for (int i = 0; i < count; i++) {
+            int spawn = (start + i) % count;
+            int x = levelAnalysis.getEnemySpawnX(spawn);
+            int y = levelAnalysis.getEnemySpawnY(spawn);
+            if (!isOccupiedByTank(x, y, GRID_SIZE)) {
+                spawnBlockedWarned = false;
+                spawnEnemyTank(x, y);
+                return true;
             }
-            
-            if (collision) {
-                x = spawnPoints[random.nextInt(spawnPoints.length)];
-                attempts++;
-                
-                // 如果多次尝试失败，强制在一个位置生成
-                if (attempts >= MAX_ATTEMPTS) {
-                    x = 0; // 使用左上角作为最后的选择
-                    y = 0;
-                    collision = false; // 强制退出循环
-                    System.out.println("警告：敌人坦克生成点尝试次数过多，强制生成");
-                }
-            }
-        } while (collision);
-        
-        // 根据关卡难度创建不同类型的敌人坦克
-        Direction direction = Direction.values()[random.nextInt(Direction.values().length)];
-        EnemyTank enemyTank = new EnemyTank(x, y, direction);
-        
-        // 根据关卡提升敌人坦克属性
-        int currentLevel = level.get();
-        if (currentLevel >= 2) {
-            enemyTank.setSpeed(enemyTank.getSpeed() * (1.0 + currentLevel * 0.1)); // 每关速度提升10%
         }
-        if (currentLevel >= 3) {
-            enemyTank.setShootCooldown(enemyTank.getShootCooldown() * 0.8); // 第3关开始射速提升20%
+        warnSpawnBlocked("警告：所有敌人出生点都被坦克占据，稍后再生成");
+        return false;
+    }
+    
+    /**
+     * 输出出生失败警告，同一次连续失败只输出一次
+     */
+    private void warnSpawnBlocked(String message) {
+        if (!spawnBlockedWarned) {
+            System.err.println(message);
+            spawnBlockedWarned = true;
         }
-        
-        enemyTanks.add(enemyTank);
+    }
+    
+    /**
+     * 检查区域是否与任何坦克重叠
+     * 
+     * @param x 区域X坐标
+     * @param y 区域Y坐标
+     * @param size 区域边长
+     * @return 是否被坦克占据
+     */
+    private boolean isOccupiedByTank(double x, double y, double size) {
+        if (playerTank != null && playerTank.isAlive() && overlaps(playerTank, x, y, size)) {
+            return true;
+        }
+        for (EnemyTank tank : enemyTanks) {
+            if (tank != null && overlaps(tank, x, y, size)) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    private static boolean overlaps(GameObject obj, double x, double y, double size) {
+        return x < obj.getX() + obj.getWidth() && x + size > obj.getX()
+                && y < obj.getY() + obj.getHeight() && y + size > obj.getY();
     }
     
     /**
@@ -315,6 +608,7 @@ public class GameModel {
         // 根据关卡难度创建不同类型的敌人坦克
         Direction direction = Direction.values()[random.nextInt(Direction.values().length)];
         EnemyTank enemyTank = new EnemyTank(x, y, direction);
+        enemyTank.setWorldBounds(mapWidth, mapHeight);
         
         // 根据关卡提升敌人坦克属性
         int currentLevel = level.get();
@@ -329,58 +623,43 @@ public class GameModel {
     }
     
     /**
-     * 生成随机道具
+     * 在玩家可到达的随机空闲格子中生成道具
+     * 从随机格子开始依次检查，跳过被坦克或道具占据的格子
+     * 
+     * @return 是否生成成功
      */
-    public void spawnRandomItem() {
+    public boolean spawnRandomItem() {
         ItemType[] itemTypes = ItemType.values();
         ItemType randomType = itemTypes[random.nextInt(itemTypes.length)];
         
-        // 随机位置，避开墙体和坦克
-        int x, y;
-        boolean validPosition;
-        int attempts = 0;
-        final int MAX_ATTEMPTS = 20;
+        int count = levelAnalysis.getReachableCellCount();
+        if (count == 0) {
+            System.err.println("警告：关卡没有可放置道具的空闲格子");
+            return false;
+        }
         
-        do {
-            validPosition = true;
-            x = random.nextInt(GAME_WIDTH - GRID_SIZE * 2) + GRID_SIZE;
-            y = random.nextInt(GAME_HEIGHT - GRID_SIZE * 4) + GRID_SIZE;
-            
-            // 检查是否与墙体重叠
-            for (Wall wall : walls) {
-                if (Math.abs(wall.getX() - x) < GRID_SIZE && Math.abs(wall.getY() - y) < GRID_SIZE) {
-                    validPosition = false;
-                    break;
-                }
-            }
-            
-            // 检查是否与坦克重叠
-            if (validPosition) {
-                if (playerTank != null && 
-                    Math.abs(playerTank.getX() - x) < GRID_SIZE && Math.abs(playerTank.getY() - y) < GRID_SIZE) {
-                    validPosition = false;
-                }
-            }
-            
-            if (validPosition) {
-                for (EnemyTank tank : enemyTanks) {
-                    if (Math.abs(tank.getX() - x) < GRID_SIZE && Math.abs(tank.getY() - y) < GRID_SIZE) {
-                        validPosition = false;
-                        break;
-                    }
-                }
+        int start = random.nextInt(count);
+        for (int i = 0; i < count; i++) {
+            int cell = (start + i) % count;
+            // 道具居中放在格子中
+            int x = levelAnalysis.getReachableCellX(cell) + (GRID_SIZE - Item.SIZE) / 2;
+            int y = levelAnalysis.getReachableCellY(cell) + (GRID_SIZE - Item.SIZE) / 2;
+            if (!isOccupiedByTank(x, y, Item.SIZE) && !isOccupiedByItem(x, y)) {
+                items.add(new Item(x, y, randomType));
+                return true;
             }
-            
-            attempts++;
-            if (attempts >= MAX_ATTEMPTS) {
-                // 如果尝试多次仍找不到合适位置，则不生成道具
-                return;
+        }
+        System.err.println("警告：所有空闲格子都被占据，本次不生成道具");
+        return false;
+    }
+    
+    private boolean isOccupiedByItem(double x, double y) {
+        for (Item item : items) {
+            if (overlaps(item, x, y, Item.SIZE)) {
+                return true;
             }
-        } while (!validPosition);
-        
-        // 创建道具并添加到列表
-        Item item = new Item(x, y, randomType);
-        items.add(item);
+        }
+        return false;
     }
     
     /**
@@ -412,10 +691,12 @@ public class GameModel {
         }
         
         // 更新玩家坦克
+        playerTank.setTerrain(terrainMap.getTypeUnder(playerTank));
         playerTank.update(deltaTime);
         
         // 更新敌人坦克
         for (EnemyTank enemyTank : new ArrayList<>(enemyTanks)) {
+            enemyTank.setTerrain(terrainMap.getTypeUnder(enemyTank));
             enemyTank.update(deltaTime);
             
             // 敌人AI行为
@@ -435,8 +716,8 @@ public class GameModel {
             bullet.update(deltaTime);
             
             // 检查子弹是否超出边界
-            if (bullet.getX() < 0 || bullet.getX() > GAME_WIDTH || 
-                bullet.getY() < 0 || bullet.getY() > GAME_HEIGHT) {
+            if (bullet.getX() < 0 || bullet.getX() > mapWidth || 
+                bullet.getY() < 0 || bullet.getY() > mapHeight) {
                 bullets.remove(bullet);
                 continue;
             }
@@ -487,8 +768,7 @@ public class GameModel {
         checkGameConditions();
         
         // 如果敌人数量不足，生成新敌人
-        if (enemyTanks.size() < 4 && spawnRemaining > 0) {
-            spawnEnemyTank();
+        if (enemyTanks.size() < 4 && spawnRemaining > 0 && spawnEnemyTank()) {
             spawnRemaining--; // 减少待生成数量
         }
         
@@ -527,7 +807,7 @@ public class GameModel {
                     gameState = GameState.GAME_OVER;
                 } else {
                     // 重生玩家坦克
-                    playerTank.respawn(GAME_WIDTH / 2, GAME_HEIGHT - GRID_SIZE * 2, Direction.UP);
+                    playerTank.respawn(playerSpawnX(), playerSpawnY(), Direction.UP);
                 }
             }
             return;
@@ -569,40 +849,95 @@ public class GameModel {
      * @param bullet 子弹对象
      */
     private void checkBulletWallCollisions(Bullet bullet) {
-        for (Wall wall : new ArrayList<>(walls)) {
-            if (checkCollision(bullet, wall)) {
-                bullets.remove(bullet);
-                
-                // 播放子弹击中墙体的音效
-                AudioManager.getInstance().playSoundEffect("bullet_hit");
-                
-                // 如果是砖墙，则摧毁，增强子弹可以摧毁钢墙
-                if (wall instanceof BrickWall || (bullet.isPowered() && bullet.isFromPlayer())) {
+        Wall wall = wallIndex.findCollision(bullet);
+        if (wall != null) {
+            bullets.remove(bullet);
+            
+            // 播放子弹击中墙体的音效
+            AudioManager.getInstance().playSoundEffect("bullet_hit");
+            
+            double hitX = bullet.getX() + bullet.getWidth() / 2.0;
+            double hitY = bullet.getY() + bullet.getHeight() / 2.0;
+            boolean poweredHit = bullet.isPowered() && bullet.isFromPlayer();
+            
+            // 普通子弹击中砖墙时只削去部分小块，增强子弹整格摧毁（包括钢墙）
+            if (wall instanceof BrickWall && !poweredHit && (wall.isMerged() || ((BrickWall) wall).isChippable())) {
+                BrickWall tile = (BrickWall) wall;
+                if (wall.isMerged()) {
+                    // 从合并墙体中拆出被击中的格子，作为独立的砖墙放回
+                    tile = (BrickWall) WallMerger.tileAt(wall, hitX, hitY);
+                    replaceWithRemainder(wall, hitX, hitY);
+                    walls.add(tile);
+                    wallIndex.add(tile);
+                }
+                if (tile.chip(bullet.getDirection(), hitX, hitY)) {
+                    walls.remove(tile);
+                    wallIndex.remove(tile);
+                }
+                damagedWalls.add(tile);
+            } else if (wall instanceof BrickWall || poweredHit) {
+                Wall tile = wall;
+                if (wall.isMerged()) {
+                    // 合并墙体只摧毁被击中的格子
+                    tile = WallMerger.tileAt(wall, hitX, hitY);
+                    replaceWithRemainder(wall, hitX, hitY);
+                } else {
                     walls.remove(wall);
+                    wallIndex.remove(wall);
                 }
-                
-                return;
+                tile.setAlive(false);
+                damagedWalls.add(tile);
             }
         }
     }
     
+    /**
+     * 移除合并墙体，把去掉被击中格子后剩余的部分放回
+     */
+    private void replaceWithRemainder(Wall wall, double hitX, double hitY) {
+        walls.remove(wall);
+        wallIndex.remove(wall);
+        for (Wall piece : WallMerger.removeTile(wall, hitX, hitY)) {
+            walls.add(piece);
+            wallIndex.add(piece);
+        }
+    }
+    
+    /**
+     * 依次处理上次调用以来被击中的墙体格子，然后清空记录
+     * 用于只重绘受损的格子：格子已被摧毁时isAlive()为false，砖墙的剩余部分由小块掩码给出
+     * 
+     * @param action 对每个受损格子执行的操作
+     */
+    public void drainDamagedWalls(Consumer<Wall> action) {
+        for (Wall wall : damagedWalls) {
+            action.accept(wall);
+        }
+        damagedWalls.clear();
+    }
+    
+    /**
+     * 依次处理上次调用以来因热重载被移除或新建的墙体，然后清空记录
+     * 用于只重新生成这些墙体所在的区块
+     * 
+     * @param action 对每个墙体执行的操作
+     */
+    public void drainReshapedWalls(Consumer<Wall> action) {
+        for (Wall wall : reshapedWalls) {
+            action.accept(wall);
+        }
+        reshapedWalls.clear();
+    }
+    
     // [其他方法保持原样...]
-
+    
     /**
-     * 检查坦克与墙体碰撞
+     * 检查坦克与墙体碰撞，阻挡坦克的地形按墙体处理
      */
     private void checkTankWallCollisions() {
         // 检查玩家坦克与墙体碰撞
         if (playerTank != null && playerTank.isAlive()) {
-            boolean collision = false;
-            for (Wall wall : new ArrayList<>(walls)) {
-                if (wall != null && checkCollision(playerTank, wall)) {
-                    collision = true;
-                    break;
-                }
-            }
-            
-            if (collision) {
+            if (wallIndex.findCollision(playerTank) != null || terrainMap.blocksTank(playerTank)) {
                 playerTank.handleCollision();
             }
             
@@ -613,15 +948,7 @@ public class GameModel {
         // 检查敌人坦克与墙体碰撞
         for (EnemyTank enemyTank : new ArrayList<>(enemyTanks)) {
             if (enemyTank != null && enemyTank.isAlive()) {
-                boolean collision = false;
-                for (Wall wall : new ArrayList<>(walls)) {
-                    if (wall != null && checkCollision(enemyTank, wall)) {
-                        collision = true;
-                        break;
-                    }
-                }
-                
-                if (collision) {
+                if (wallIndex.findCollision(enemyTank) != null || terrainMap.blocksTank(enemyTank)) {
                     enemyTank.handleCollision();
                 }
                 
@@ -649,8 +976,8 @@ public class GameModel {
         if (x < 0) {
             x = 0;
             modified = true;
-        } else if (x > GAME_WIDTH - obj.getWidth()) {
-            x = GAME_WIDTH - obj.getWidth();
+        } else if (x > mapWidth - obj.getWidth()) {
+            x = mapWidth - obj.getWidth();
             modified = true;
         }
         
@@ -658,8 +985,8 @@ public class GameModel {
         if (y < 0) {
             y = 0;
             modified = true;
-        } else if (y > GAME_HEIGHT - obj.getHeight()) {
-            y = GAME_HEIGHT - obj.getHeight();
+        } else if (y > mapHeight - obj.getHeight()) {
+            y = mapHeight - obj.getHeight();
             modified = true;
         }
         
@@ -711,13 +1038,15 @@ public class GameModel {
             // 播放胜利音效
             AudioManager.getInstance().playSoundEffect("victory");
             
-            if (level.get() < 5) { // 增加到5个关卡
+            if (endlessMode || level.get() < 5) { // 增加到5个关卡，无尽模式没有最后一关
                 // 进入关卡完成状态，而不是直接进入下一关
                 gameState = GameState.LEVEL_COMPLETE;
+                // 玩家查看关卡完成界面时在后台准备下一关
+                prefetchNextLevel();
             } else {
                 // 游戏全部通关，播放胜利音乐
                 AudioManager.getInstance().stopBackgroundMusic();
-                AudioManager.getInstance().playBackgroundMusic("victory_bgm.wav", true);
+                AudioManager.getInstance().playBackgroundMusic("audio/victory_bgm.wav", true);
                 gameState = GameState.VICTORY;
             }
         }
@@ -807,7 +1136,12 @@ public class GameModel {
      * 重置游戏
      */
     public void resetGame() {
-        initGame();
+        if (endlessMode) {
+            // 使用相同种子重新开始无尽模式
+            initEndlessGame(endlessSeed);
+        } else {
+            initGame();
+        }
     }
     
     /**
@@ -817,6 +1151,27 @@ public class GameModel {
      * @return 是否保存成功
      */
     public boolean saveGame(String saveName) {
+        // 使用存档管理器保存游戏
+        return saveManager.saveGame(createSave(saveName));
+    }
+    
+    /**
+     * 在后台保存游戏：在游戏线程上生成快照，编码和磁盘写入在后台写入线程进行
+     * 
+     * @param saveName 存档名称，如果为null则自动生成
+     * @param callback 完成回调，在JavaFX线程上调用，参数为是否保存成功，可以为null
+     */
+    public void saveGameAsync(String saveName, Consumer<Boolean> callback) {
+        saveManager.saveGameAsync(createSave(saveName), callback);
+    }
+    
+    /**
+     * 根据当前游戏状态创建存档，世界状态快照是独立的字节数组，之后的游戏更新不会影响它
+     * 
+     * @param saveName 存档名称
+     * @return 游戏存档
+     */
+    private GameSave createSave(String saveName) {
         // 创建游戏存档对象
         GameSave gameSave = new GameSave();
         
@@ -833,8 +1188,156 @@ public class GameModel {
         gameSave.setHasShield(playerTank.isShielded());
         gameSave.setHasSpeedBoost(playerTank.isSpeedBoosted());
         
-        // 使用存档管理器保存游戏
-        return saveManager.saveGame(gameSave);
+        // 保存完整的世界状态，加载后从保存时的位置继续
+        try {
+            gameSave.setWorldState(captureWorld());
+        } catch (IOException e) {
+            System.err.println("无法保存世界状态，存档将从关卡开头恢复: " + e.getMessage());
+        }
+        return gameSave;
+    }
+    
+    /**
+     * 把当前世界状态编码为快照：关卡和计数器、随机数状态、所有坦克、子弹、道具和墙体
+     * 
+     * @return 快照数据
+     * @throws IOException 编码错误
+     */
+    private byte[] captureWorld() throws IOException {
+        int objectCount = 1 + enemyTanks.size() + bullets.size() + items.size() + walls.size();
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(64 + objectCount * 96);
+        DataOutputStream out = new DataOutputStream(buffer);
+        out.writeShort(WORLD_VERSION);
+        out.writeBoolean(endlessMode);
+        out.writeLong(endlessSeed);
+        out.writeInt(level.get());
+        out.writeInt(score.get());
+        out.writeInt(remainingEnemies.get());
+        out.writeInt(spawnRemaining);
+        out.writeDouble(itemSpawnTimer);
+        out.writeLong(random.getState());
+        
+        playerTank.writeSnapshot(out);
+        writeObjects(out, enemyTanks);
+        writeObjects(out, bullets);
+        writeObjects(out, items);
+        out.writeInt(walls.size());
+        for (Wall wall : walls) {
+            out.writeByte(wall instanceof SteelWall ? WALL_STEEL : WALL_BRICK);
+            wall.writeSnapshot(out);
+        }
+        out.flush();
+        return buffer.toByteArray();
+    }
+    
+    /**
+     * 从快照恢复世界状态
+     * 先完整解析快照并取得关卡配置，全部成功后才替换当前状态（包括关卡管理器的当前关卡）；
+     * 地形和关卡分析根据关卡配置重新建立
+     * 
+     * @param data 快照数据
+     * @throws IOException 快照损坏、版本不支持或存档的关卡已不存在
+     */
+    private void restoreWorld(byte[] data) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(data));
+        int version = in.readUnsignedShort();
+        if (version != WORLD_VERSION) {
+            throw new IOException("不支持的世界状态版本: " + version);
+        }
+        boolean savedEndless = in.readBoolean();
+        long savedSeed = in.readLong();
+        int savedLevel = in.readInt();
+        int savedScore = in.readInt();
+        int savedRemaining = in.readInt();
+        int savedSpawnRemaining = in.readInt();
+        double savedItemTimer = in.readDouble();
+        long randomState = in.readLong();
+        
+        PlayerTank savedPlayer = new PlayerTank(0, 0, Direction.UP);
+        savedPlayer.readSnapshot(in);
+        List<EnemyTank> savedEnemies = readObjects(in, () -> new EnemyTank(0, 0, Direction.UP));
+        List<Bullet> savedBullets = readObjects(in, () -> new Bullet(0, 0, Direction.UP, false));
+        List<Item> savedItems = readObjects(in, () -> new Item(0, 0, ItemType.SHIELD));
+        int wallCount = readCount(in);
+        List<Wall> savedWalls = new ArrayList<>(wallCount);
+        for (int i = 0; i < wallCount; i++) {
+            byte type = in.readByte();
+            Wall wall = type == WALL_STEEL ? new SteelWall(0, 0) : new BrickWall(0, 0);
+            wall.readSnapshot(in);
+            savedWalls.add(wall);
+        }
+        
+        // 关卡配置只用于地形、出生点和关卡分析，墙体使用快照中的状态
+        LevelConfig config;
+        if (savedEndless) {
+            config = generateEndlessLevel(savedSeed, savedLevel);
+        } else {
+            config = levelManager.getLevelByNumber(savedLevel);
+            if (config == null) {
+                throw new IOException("存档的关卡" + savedLevel + "不存在或无法加载");
+            }
+        }
+        AudioManager.getInstance().preloadSoundEffects(AudioManager.GAMEPLAY_SOUND_EFFECTS);
+        
+        if (!savedEndless) {
+            levelManager.setCurrentLevelByNumber(savedLevel);
+        }
+        this.endlessMode = savedEndless;
+        this.endlessSeed = savedSeed;
+        this.level.set(savedLevel);
+        this.score.set(savedScore);
+        this.remainingEnemies.set(savedRemaining);
+        this.spawnRemaining = savedSpawnRemaining;
+        this.itemSpawnTimer = savedItemTimer;
+        this.random.setState(randomState);
+        this.spawnBlockedWarned = false;
+        this.prefetchedLevel = null;
+        
+        this.playerTank = savedPlayer;
+        this.enemyTanks.clear();
+        this.enemyTanks.addAll(savedEnemies);
+        this.bullets.clear();
+        this.bullets.addAll(savedBullets);
+        this.items.clear();
+        this.items.addAll(savedItems);
+        this.damagedWalls.clear();
+        this.reshapedWalls.clear();
+        this.walls = savedWalls;
+        this.wallIndex = new WallIndex(walls);
+        
+        this.currentLevelConfig = config;
+        this.mapWidth = config.getMapWidth();
+        this.mapHeight = config.getMapHeight();
+        this.terrainMap = new TerrainMap(config);
+        this.levelAnalysis = LevelAnalysis.analyze(config, wallIndex);
+        
+        this.gameState = GameState.RUNNING;
+    }
+    
+    private static void writeObjects(DataOutput out, List<? extends GameObject> objects) throws IOException {
+        out.writeInt(objects.size());
+        for (GameObject obj : objects) {
+            obj.writeSnapshot(out);
+        }
+    }
+    
+    private static <T extends GameObject> List<T> readObjects(DataInput in, Supplier<T> factory) throws IOException {
+        int count = readCount(in);
+        List<T> objects = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            T obj = factory.get();
+            obj.readSnapshot(in);
+            objects.add(obj);
+        }
+        return objects;
+    }
+    
+    private static int readCount(DataInput in) throws IOException {
+        int count = in.readInt();
+        if (count < 0 || count > 1_000_000) {
+            throw new IOException("世界状态中的对象数量无效: " + count);
+        }
+        return count;
     }
     
     /**
@@ -851,12 +1354,28 @@ public class GameModel {
             return false;
         }
         
-        // 恢复游戏核心数据
+        // 有世界状态时从保存时的位置继续
+        if (gameSave.hasWorldState()) {
+            try {
+                restoreWorld(gameSave.getWorldState());
+                return true;
+            } catch (IOException e) {
+                System.err.println("存档世界状态无法恢复，改为从关卡开头开始: " + e.getMessage());
+            }
+        }
+        
+        // 旧版存档只记录关卡编号，按关卡文件模式恢复；关卡已不存在时加载失败
+        if (levelManager.getLevelByNumber(gameSave.getLevelNumber()) == null) {
+            System.err.println("加载游戏失败: 存档的关卡" + gameSave.getLevelNumber() + "不存在");
+            return false;
+        }
+        this.endlessMode = false;
         this.level.set(gameSave.getLevelNumber());
         this.score.set(gameSave.getScore());
         
         // 初始化并设置玩家坦克
-        this.playerTank = new PlayerTank(GAME_WIDTH / 2, GAME_HEIGHT - GRID_SIZE * 2, Direction.UP);
+        this.playerTank = new PlayerTank(LevelConfig.DEFAULT_MAP_WIDTH / 2,
+                LevelConfig.DEFAULT_MAP_HEIGHT - GRID_SIZE * 2, Direction.UP);
         this.playerTank.setLives(gameSave.getPlayerLives());
         
         // 恢复玩家状态
@@ -924,6 +1443,10 @@ public class GameModel {
         return selectedLevel;
     }
     
+    public boolean isEndlessMode() {
+        return endlessMode;
+    }
+    
     public int getSelectedLevel() {
         return selectedLevel.get();
     }
@@ -982,12 +1505,20 @@ public class GameModel {
         this.remainingEnemies.set(remainingEnemies);
     }
     
-    public static int getGameWidth() {
-        return GAME_WIDTH;
+    public int getMapWidth() {
+        return mapWidth;
+    }
+    
+    public int getMapHeight() {
+        return mapHeight;
+    }
+    
+    public WallIndex getWallIndex() {
+        return wallIndex;
     }
     
-    public static int getGameHeight() {
-        return GAME_HEIGHT;
+    public TerrainMap getTerrainMap() {
+        return terrainMap;
     }
     
     public static int getGridSize() {
@@ -0,0 +1,67 @@
+package com.tankbattle.model;
+
+import java.util.Random;
+
+/**
+ * 可保存状态的随机数生成器
+ * 与java.util.Random使用相同的48位线性同余算法，但内部状态可以读取和恢复，
+ * 存档恢复后的随机序列与保存时完全一致。只在游戏线程中使用，不做同步
+ * 
+ * @author Taiyu Jin
+ */
+public class GameRandom extends Random {
+    private static final long serialVersionUID = 1L;
+    
+    private static final long MULTIPLIER = 0x5DEECE66DL;
+    private static final long ADDEND = 0xBL;
+    private static final long MASK = (1L << 48) - 1;
+    
+    // 当前的48位状态（不能有初始化表达式，父类构造函数会先调用setSeed）
+    private long state;
+    
+    /**
+     * 使用随机种子创建
+     */
+    public GameRandom() {
+        this(System.nanoTime() ^ new Random().nextLong());
+    }
+    
+    /**
+     * 使用指定种子创建，与new Random(seed)产生相同的序列
+     * 
+     * @param seed 种子
+     */
+    public GameRandom(long seed) {
+        super(seed);
+    }
+    
+    @Override
+    public synchronized void setSeed(long seed) {
+        super.setSeed(seed);
+        this.state = (seed ^ MULTIPLIER) & MASK;
+    }
+    
+    @Override
+    protected int next(int bits) {
+        state = (state * MULTIPLIER + ADDEND) & MASK;
+        return (int) (state >>> (48 - bits));
+    }
+    
+    /**
+     * 获取内部状态，用于存档
+     * 
+     * @return 48位状态
+     */
+    public long getState() {
+        return state;
+    }
+    
+    /**
+     * 恢复内部状态
+     * 
+     * @param state getState()返回的状态
+     */
+    public void setState(long state) {
+        this.state = state & MASK;
+    }
+}
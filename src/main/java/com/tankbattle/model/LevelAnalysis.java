@@ -0,0 +1,387 @@
+package com.tankbattle.model;
+
+import java.util.Arrays;
+
+import com.tankbattle.model.level.LevelConfig;
+
+/**
+ * 关卡静态分析结果
+ * 加载关卡时对40像素格子网格做一次洪水填充，计算空闲格子、连通区域、
+ * 咽喉格子（堵住后会使区域断开的格子）和安全出生格子，结果保存在紧凑数组中；
+ * 生成敌人和放置道具时直接从预先计算的列表中选取，不再反复随机尝试
+ * 分析基于加载时的墙体，之后被摧毁的墙体不会使结果失效，只是略显保守
+ * 
+ * @author Taiyu Jin
+ */
+public class LevelAnalysis {
+    // 格子大小
+    public static final int CELL_SIZE = 40;
+    
+    // 格子标志位
+    private static final byte FREE = 1;
+    private static final byte REACHABLE = 2;
+    private static final byte CHOKEPOINT = 4;
+    private static final byte SAFE_SPAWN = 8;
+    
+    // 安全出生格子与玩家出生点的最小距离（格子数，曼哈顿距离）
+    private static final int MIN_SPAWN_DISTANCE = 5;
+    
+    private final int cols;
+    private final int rows;
+    
+    // 每个格子的标志位
+    private final byte[] flags;
+    // 每个格子所属的连通区域，墙体格子为-1
+    private final int[] regions;
+    private final int regionCount;
+    private final int chokepointCount;
+    private final int safeSpawnCount;
+    
+    // 玩家可到达的空闲格子，用于放置道具
+    private final int[] reachableCells;
+    // 敌人出生点像素坐标，交错存放x和y
+    private final int[] enemySpawns;
+    
+    private LevelAnalysis(int cols, int rows, byte[] flags, int[] regions, int regionCount,
+                          int[] reachableCells, int[] enemySpawns) {
+        this.cols = cols;
+        this.rows = rows;
+        this.flags = flags;
+        this.regions = regions;
+        this.regionCount = regionCount;
+        this.reachableCells = reachableCells;
+        this.enemySpawns = enemySpawns;
+        
+        int chokepoints = 0;
+        int safeSpawns = 0;
+        for (byte flag : flags) {
+            if ((flag & CHOKEPOINT) != 0) {
+                chokepoints++;
+            }
+            if ((flag & SAFE_SPAWN) != 0) {
+                safeSpawns++;
+            }
+        }
+        this.chokepointCount = chokepoints;
+        this.safeSpawnCount = safeSpawns;
+    }
+    
+    /**
+     * 分析关卡
+     * 
+     * @param config 关卡配置，可以为null（使用默认地图尺寸和出生点）
+     * @param wallIndex 墙体空间索引
+     * @return 分析结果
+     */
+    public static LevelAnalysis analyze(LevelConfig config, WallIndex wallIndex) {
+        int mapWidth = config != null ? config.getMapWidth() : LevelConfig.DEFAULT_MAP_WIDTH;
+        int mapHeight = config != null ? config.getMapHeight() : LevelConfig.DEFAULT_MAP_HEIGHT;
+        int cols = (mapWidth + CELL_SIZE - 1) / CELL_SIZE;
+        int rows = (mapHeight + CELL_SIZE - 1) / CELL_SIZE;
+        int cellCount = cols * rows;
+        
+        // 标记空闲格子，阻挡坦克的地形（水面）与墙体一样不算空闲
+        byte[] flags = new byte[cellCount];
+        for (int index = 0; index < cellCount; index++) {
+            int col = index % cols;
+            int row = index / cols;
+            if (config != null && config.getTerrainAt(col, row).blocksTanks()) {
+                continue;
+            }
+            if (!wallIndex.intersects(col * CELL_SIZE, row * CELL_SIZE, CELL_SIZE, CELL_SIZE)) {
+                flags[index] = FREE;
+            }
+        }
+        
+        // 洪水填充标记连通区域
+        int[] regions = new int[cellCount];
+        Arrays.fill(regions, -1);
+        int[] queue = new int[cellCount];
+        int[] regionSizes = new int[cellCount];
+        int regionCount = 0;
+        for (int start = 0; start < cellCount; start++) {
+            if (flags[start] == 0 || regions[start] >= 0) {
+                continue;
+            }
+            int head = 0;
+            int tail = 0;
+            regions[start] = regionCount;
+            queue[tail++] = start;
+            while (head < tail) {
+                int index = queue[head++];
+                int col = index % cols;
+                int row = index / cols;
+                for (int next : new int[] {
+                        col > 0 ? index - 1 : -1, col < cols - 1 ? index + 1 : -1,
+                        row > 0 ? index - cols : -1, row < rows - 1 ? index + cols : -1}) {
+                    if (next >= 0 && flags[next] != 0 && regions[next] < 0) {
+                        regions[next] = regionCount;
+                        queue[tail++] = next;
+                    }
+                }
+            }
+            regionSizes[regionCount++] = tail;
+        }
+        
+        // 玩家出生点所在区域；出生点被墙体占据时取最大的区域
+        int playerX = mapWidth / 2;
+        int playerY = mapHeight - CELL_SIZE * 2;
+        if (config != null && config.getPlayerSpawn() != null) {
+            playerX = config.getPlayerSpawn().getX();
+            playerY = config.getPlayerSpawn().getY();
+        }
+        int playerCell = cellIndex(cols, rows, playerX + CELL_SIZE / 2, playerY + CELL_SIZE / 2);
+        int playerRegion = regions[playerCell];
+        if (playerRegion < 0) {
+            for (int region = 0; region < regionCount; region++) {
+                if (playerRegion < 0 || regionSizes[region] > regionSizes[playerRegion]) {
+                    playerRegion = region;
+                }
+            }
+        }
+        
+        markChokepoints(flags, cols, rows);
+        
+        // 可到达格子和安全出生格子
+        int reachableCount = 0;
+        for (int index = 0; index < cellCount; index++) {
+            if (playerRegion < 0 || regions[index] != playerRegion) {
+                continue;
+            }
+            flags[index] |= REACHABLE;
+            int distance = Math.abs(index % cols - playerCell % cols) + Math.abs(index / cols - playerCell / cols);
+            if ((flags[index] & CHOKEPOINT) == 0 && distance >= MIN_SPAWN_DISTANCE) {
+                flags[index] |= SAFE_SPAWN;
+            }
+            if (index != playerCell) {
+                queue[reachableCount++] = index;
+            }
+        }
+        int[] reachableCells = Arrays.copyOf(queue, reachableCount);
+        
+        int[] enemySpawns = selectEnemySpawns(config, wallIndex, flags, cols, rows);
+        return new LevelAnalysis(cols, rows, flags, regions, regionCount, reachableCells, enemySpawns);
+    }
+    
+    /**
+     * 用Tarjan算法（迭代实现）标记空闲格子图中的割点
+     */
+    private static void markChokepoints(byte[] flags, int cols, int rows) {
+        int cellCount = cols * rows;
+        int[] discovery = new int[cellCount];
+        int[] low = new int[cellCount];
+        int[] parent = new int[cellCount];
+        int[] childCount = new int[cellCount];
+        byte[] nextDirection = new byte[cellCount];
+        int[] stack = new int[cellCount];
+        Arrays.fill(discovery, -1);
+        
+        int time = 0;
+        for (int root = 0; root < cellCount; root++) {
+            if (flags[root] == 0 || discovery[root] >= 0) {
+                continue;
+            }
+            int top = 0;
+            stack[top++] = root;
+            parent[root] = -1;
+            discovery[root] = low[root] = time++;
+            
+            while (top > 0) {
+                int index = stack[top - 1];
+                int next = neighbour(index, nextDirection[index]++, cols, rows);
+                if (nextDirection[index] <= 4) {
+                    if (next < 0 || flags[next] == 0 || next == parent[index]) {
+                        continue;
+                    }
+                    if (discovery[next] < 0) {
+                        parent[next] = index;
+                        childCount[index]++;
+                        discovery[next] = low[next] = time++;
+                        stack[top++] = next;
+                    } else {
+                        low[index] = Math.min(low[index], discovery[next]);
+                    }
+                    continue;
+                }
+                
+                // 所有邻居处理完毕，回溯到父格子
+                top--;
+                int up = parent[index];
+                if (up >= 0) {
+                    low[up] = Math.min(low[up], low[index]);
+                    if (parent[up] >= 0 && low[index] >= discovery[up]) {
+                        flags[up] |= CHOKEPOINT;
+                    }
+                }
+            }
+            if (childCount[root] > 1) {
+                flags[root] |= CHOKEPOINT;
+            }
+        }
+    }
+    
+    /**
+     * 格子在指定方向上的邻居，越界或方向无效时返回-1
+     */
+    private static int neighbour(int index, int direction, int cols, int rows) {
+        int col = index % cols;
+        int row = index / cols;
+        switch (direction) {
+            case 0:
+                return col > 0 ? index - 1 : -1;
+            case 1:
+                return col < cols - 1 ? index + 1 : -1;
+            case 2:
+                return row > 0 ? index - cols : -1;
+            case 3:
+                return row < rows - 1 ? index + cols : -1;
+            default:
+                return -1;
+        }
+    }
+    
+    /**
+     * 选择敌人出生点：优先使用配置（或默认）中未被墙体占据且玩家可到达的出生点，
+     * 都不可用时退回到上方三分之一区域中的安全出生格子，再退回到任意安全出生格子
+     */
+    private static int[] selectEnemySpawns(LevelConfig config, WallIndex wallIndex, byte[] flags, int cols, int rows) {
+        // 未配置敌人出生点时使用地图顶部的左、中、右三个出生点（与旧版本一致）
+        int mapWidth = cols * CELL_SIZE;
+        int[][] candidates = {
+            {CELL_SIZE, CELL_SIZE}, {mapWidth / 2, CELL_SIZE}, {mapWidth - CELL_SIZE * 2, CELL_SIZE}
+        };
+        if (config != null && config.getEnemySpawns() != null && !config.getEnemySpawns().isEmpty()) {
+            candidates = new int[config.getEnemySpawns().size()][];
+            for (int i = 0; i < candidates.length; i++) {
+                LevelConfig.EnemySpawnConfig spawn = config.getEnemySpawns().get(i);
+                candidates[i] = new int[] {spawn.getX(), spawn.getY()};
+            }
+        }
+        
+        int[] spawns = new int[candidates.length * 2];
+        int count = 0;
+        for (int[] candidate : candidates) {
+            int cell = cellIndex(cols, rows, candidate[0] + CELL_SIZE / 2, candidate[1] + CELL_SIZE / 2);
+            if ((flags[cell] & REACHABLE) != 0
+                    && !wallIndex.intersects(candidate[0], candidate[1], CELL_SIZE, CELL_SIZE)) {
+                spawns[count++] = candidate[0];
+                spawns[count++] = candidate[1];
+            }
+        }
+        if (count > 0) {
+            return Arrays.copyOf(spawns, count);
+        }
+        
+        System.err.println("警告：关卡" + (config != null ? config.getLevelNumber() : 0)
+                + "的敌人出生点均不可用，改用自动选择的安全格子");
+        for (int maxRow : new int[] {Math.max(1, rows / 3), rows}) {
+            spawns = new int[cols * rows * 2];
+            count = 0;
+            for (int index = 0; index < maxRow * cols; index++) {
+                if ((flags[index] & SAFE_SPAWN) != 0) {
+                    spawns[count++] = (index % cols) * CELL_SIZE;
+                    spawns[count++] = (index / cols) * CELL_SIZE;
+                }
+            }
+            if (count > 0) {
+                return Arrays.copyOf(spawns, count);
+            }
+        }
+        return new int[0];
+    }
+    
+    private static int cellIndex(int cols, int rows, int x, int y) {
+        int col = Math.max(0, Math.min(cols - 1, Math.floorDiv(x, CELL_SIZE)));
+        int row = Math.max(0, Math.min(rows - 1, Math.floorDiv(y, CELL_SIZE)));
+        return row * cols + col;
+    }
+    
+    private boolean hasFlag(double x, double y, byte flag) {
+        if (x < 0 || y < 0 || x >= cols * CELL_SIZE || y >= rows * CELL_SIZE) {
+            return false;
+        }
+        return (flags[cellIndex(cols, rows, (int) x, (int) y)] & flag) != 0;
+    }
+    
+    /**
+     * 坐标所在格子是否没有墙体
+     */
+    public boolean isFree(double x, double y) {
+        return hasFlag(x, y, FREE);
+    }
+    
+    /**
+     * 坐标所在格子是否可以从玩家出生点到达
+     */
+    public boolean isReachable(double x, double y) {
+        return hasFlag(x, y, REACHABLE);
+    }
+    
+    /**
+     * 坐标所在格子是否为咽喉格子
+     */
+    public boolean isChokepoint(double x, double y) {
+        return hasFlag(x, y, CHOKEPOINT);
+    }
+    
+    /**
+     * 坐标所在格子的连通区域编号，墙体格子返回-1
+     */
+    public int getRegion(double x, double y) {
+        if (x < 0 || y < 0 || x >= cols * CELL_SIZE || y >= rows * CELL_SIZE) {
+            return -1;
+        }
+        return regions[cellIndex(cols, rows, (int) x, (int) y)];
+    }
+    
+    public int getRegionCount() {
+        return regionCount;
+    }
+    
+    public int getChokepointCount() {
+        return chokepointCount;
+    }
+    
+    public int getSafeSpawnCount() {
+        return safeSpawnCount;
+    }
+    
+    /**
+     * 玩家可到达的空闲格子数（不含玩家出生格子）
+     */
+    public int getReachableCellCount() {
+        return reachableCells.length;
+    }
+    
+    /**
+     * 第i个可到达格子左上角的X坐标
+     */
+    public int getReachableCellX(int i) {
+        return (reachableCells[i] % cols) * CELL_SIZE;
+    }
+    
+    /**
+     * 第i个可到达格子左上角的Y坐标
+     */
+    public int getReachableCellY(int i) {
+        return (reachableCells[i] / cols) * CELL_SIZE;
+    }
+    
+    public int getEnemySpawnCount() {
+        return enemySpawns.length / 2;
+    }
+    
+    public int getEnemySpawnX(int i) {
+        return enemySpawns[i * 2];
+    }
+    
+    public int getEnemySpawnY(int i) {
+        return enemySpawns[i * 2 + 1];
+    }
+    
+    @Override
+    public String toString() {
+        return "区域" + regionCount + "个，可到达格子" + reachableCells.length + "个，咽喉格子" + chokepointCount
+                + "个，安全出生格子" + safeSpawnCount + "个，敌人出生点" + getEnemySpawnCount() + "个";
+    }
+}
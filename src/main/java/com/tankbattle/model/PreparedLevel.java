@@ -0,0 +1,113 @@
+package com.tankbattle.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.tankbattle.model.entity.BrickWall;
+import com.tankbattle.model.entity.SteelWall;
+import com.tankbattle.model.entity.Wall;
+import com.tankbattle.model.level.LevelConfig;
+
+/**
+ * 已准备好的关卡世界状态：合并后的墙体对象、墙体空间索引、地形层和关卡分析结果
+ * 构建过程不依赖JavaFX，可以在后台线程完成，切换关卡时直接交给GameModel使用
+ * 
+ * @author Taiyu Jin
+ */
+public class PreparedLevel {
+    // 默认墙体尺寸
+    private static final int GRID_SIZE = 40;
+    
+    private final LevelConfig config;
+    private final List<Wall> walls;
+    private final WallIndex wallIndex;
+    private final TerrainMap terrainMap;
+    private final LevelAnalysis analysis;
+    
+    private PreparedLevel(LevelConfig config, List<Wall> walls) {
+        this.config = config;
+        this.walls = walls;
+        this.wallIndex = new WallIndex(walls);
+        this.terrainMap = new TerrainMap(config);
+        this.analysis = LevelAnalysis.analyze(config, wallIndex);
+    }
+    
+    /**
+     * 根据关卡配置构建墙体和空间索引
+     * 
+     * @param config 关卡配置
+     * @return 准备好的关卡
+     */
+    public static PreparedLevel prepare(LevelConfig config) {
+        List<Wall> walls = new ArrayList<>();
+        
+        // 直接读取紧凑墙体数据，不生成墙体配置对象
+        for (int i = 0; i < config.getWallCount(); i++) {
+            walls.add(createWall(config.getWallX(i), config.getWallY(i),
+                    config.getWallWidth(i), config.getWallHeight(i), config.getWallType(i)));
+        }
+        
+        // 合并相邻的同类型格子，减少碰撞检测和绘制的对象数
+        List<Wall> merged = WallMerger.merge(walls);
+        if (merged.size() < walls.size()) {
+            System.out.println("关卡" + config.getLevelNumber() + "墙体合并: " + walls.size() + " -> " + merged.size());
+        }
+        PreparedLevel prepared = new PreparedLevel(config, merged);
+        System.out.println("关卡" + config.getLevelNumber() + "分析: " + prepared.analysis);
+        return prepared;
+    }
+    
+    /**
+     * 根据墙体配置创建墙体
+     * 
+     * @param wallConfig 墙体配置
+     * @return 墙体对象
+     */
+    public static Wall createWall(LevelConfig.WallConfig wallConfig) {
+        return createWall(wallConfig.getX(), wallConfig.getY(), wallConfig.getWidth(), wallConfig.getHeight(),
+                wallConfig.getType());
+    }
+    
+    /**
+     * 根据墙体参数创建墙体
+     * 
+     * @param x X坐标
+     * @param y Y坐标
+     * @param width 宽度，不大于0时使用默认尺寸
+     * @param height 高度，不大于0时使用默认尺寸
+     * @param type 墙体类型
+     * @return 墙体对象
+     */
+    public static Wall createWall(int x, int y, int width, int height, String type) {
+        Wall wall;
+        if ("steel".equals(type)) {
+            wall = new SteelWall(x, y);
+        } else {
+            // 默认为砖墙
+            wall = new BrickWall(x, y);
+        }
+        wall.setWidth(width > 0 ? width : GRID_SIZE);
+        wall.setHeight(height > 0 ? height : GRID_SIZE);
+        return wall;
+    }
+    
+    public LevelConfig getConfig() {
+        return config;
+    }
+    
+    public List<Wall> getWalls() {
+        return walls;
+    }
+    
+    public WallIndex getWallIndex() {
+        return wallIndex;
+    }
+    
+    public TerrainMap getTerrainMap() {
+        return terrainMap;
+    }
+    
+    public LevelAnalysis getAnalysis() {
+        return analysis;
+    }
+}
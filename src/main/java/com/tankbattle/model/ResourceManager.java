@@ -2,12 +2,18 @@ package com.tankbattle.model;
 
 import java.io.IOException;
 import java.io.InputStream;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import javafx.application.Platform;
 import javafx.scene.image.Image;
 import javafx.scene.paint.Color;
-import javafx.scene.shape.Rectangle;
 import javafx.scene.canvas.Canvas;
 import javafx.scene.canvas.GraphicsContext;
 
@@ -22,18 +28,45 @@ import java.io.ByteArrayOutputStream;
 
 /**
  * SVG资源加载器类，负责加载和管理SVG图像资源
+ * 可在多个线程中同时使用：SVG转码在后台加载线程中进行，
+ * 只有必须在JavaFX线程执行的步骤（如Canvas.snapshot）才切换到JavaFX线程
  * 
  * @author Taiyu Jin
  */
 public class ResourceManager {
-    // SVG图像缓存
-    private Map<String, Image> imageCache;
+    // 图像请求缓存，同一名称的图像只会加载一次
+    private final ConcurrentMap<String, ImageRequest> imageCache = new ConcurrentHashMap<>();
+    
+    // 后台加载线程池
+    private final ExecutorService loaderExecutor;
     
     // 资源加载错误跟踪
-    private boolean hasLoadingError = false;
+    private volatile boolean hasLoadingError = false;
+    
+    /**
+     * 单例持有类，由类加载机制保证线程安全的延迟初始化
+     */
+    private static class Holder {
+        private static final ResourceManager INSTANCE = new ResourceManager();
+    }
     
-    // 单例实例
-    private static ResourceManager instance;
+    /**
+     * 一次图像加载请求
+     */
+    private static class ImageRequest {
+        final int width;
+        final int height;
+        // 后台解码结果，找不到资源或解码失败时为null
+        final CompletableFuture<Image> decoded;
+        // 最终图像，解码失败时为在JavaFX线程上创建的替代图像
+        final CompletableFuture<Image> result = new CompletableFuture<>();
+        
+        ImageRequest(int width, int height, CompletableFuture<Image> decoded) {
+            this.width = width;
+            this.height = height;
+            this.decoded = decoded;
+        }
+    }
     
     /**
      * 获取ResourceManager单例实例
@@ -41,17 +74,21 @@ public class ResourceManager {
      * @return ResourceManager实例
      */
     public static ResourceManager getInstance() {
-        if (instance == null) {
-            instance = new ResourceManager();
-        }
-        return instance;
+        return Holder.INSTANCE;
     }
     
     /**
      * 私有构造函数
      */
     private ResourceManager() {
-        imageCache = new HashMap<>();
+        AtomicInteger threadCount = new AtomicInteger();
+        int threads = Math.max(2, Math.min(4, Runtime.getRuntime().availableProcessors()));
+        loaderExecutor = Executors.newFixedThreadPool(threads, r -> {
+            Thread thread = new Thread(r, "resource-loader-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        
         try {
             preloadResources();
         } catch (Exception e) {
@@ -62,89 +99,113 @@ public class ResourceManager {
     
     /**
      * 预加载常用资源
+     * 所有图像在后台并行转码，全部完成后才返回
      */
     private void preloadResources() {
+        List<String> names = new ArrayList<>();
+        
         // 预加载玩家坦克图像
-        loadImage("player_tank_up", "images/player_tank_up.svg", 40, 40);
-        loadImage("player_tank_right", "images/player_tank_right.svg", 40, 40);
-        loadImage("player_tank_down", "images/player_tank_down.svg", 40, 40);
-        loadImage("player_tank_left", "images/player_tank_left.svg", 40, 40);
+        names.add(request("player_tank_up", "images/player_tank_up.svg", 40, 40));
+        names.add(request("player_tank_right", "images/player_tank_right.svg", 40, 40));
+        names.add(request("player_tank_down", "images/player_tank_down.svg", 40, 40));
+        names.add(request("player_tank_left", "images/player_tank_left.svg", 40, 40));
         
         // 预加载敌人坦克图像
-        loadImage("enemy_tank_up", "images/enemy_tank_up.svg", 40, 40);
-        loadImage("enemy_tank_right", "images/enemy_tank_right.svg", 40, 40);
-        loadImage("enemy_tank_down", "images/enemy_tank_down.svg", 40, 40);
-        loadImage("enemy_tank_left", "images/enemy_tank_left.svg", 40, 40);
+        names.add(request("enemy_tank_up", "images/enemy_tank_up.svg", 40, 40));
+        names.add(request("enemy_tank_right", "images/enemy_tank_right.svg", 40, 40));
+        names.add(request("enemy_tank_down", "images/enemy_tank_down.svg", 40, 40));
+        names.add(request("enemy_tank_left", "images/enemy_tank_left.svg", 40, 40));
         
         // 预加载子弹图像
-        loadImage("bullet", "images/bullet.svg", 10, 10);
+        names.add(request("bullet", "images/bullet.svg", 10, 10));
         
         // 预加载墙体图像
-        loadImage("brick_wall", "images/brick_wall.svg", 40, 40);
-        loadImage("steel_wall", "images/steel_wall.svg", 40, 40);
+        names.add(request("brick_wall", "images/brick_wall.svg", 40, 40));
+        names.add(request("steel_wall", "images/steel_wall.svg", 40, 40));
         
         // 预加载特效图像
-        loadImage("explosion", "images/explosion.svg", 40, 40);
+        names.add(request("explosion", "images/explosion.svg", 40, 40));
         
         // 预加载道具图像
-        loadImage("item_shield", "images/item_shield.svg", 30, 30);
-        loadImage("item_speed", "images/item_speed.svg", 30, 30);
-        loadImage("item_power", "images/item_power.svg", 30, 30);
-        loadImage("item_life", "images/item_life.svg", 30, 30);
-        loadImage("item_bomb", "images/item_bomb.svg", 30, 30);
-        loadImage("item_default", "images/item_default.svg", 30, 30);
+        names.add(request("item_shield", "images/item_shield.svg", 30, 30));
+        names.add(request("item_speed", "images/item_speed.svg", 30, 30));
+        names.add(request("item_power", "images/item_power.svg", 30, 30));
+        names.add(request("item_life", "images/item_life.svg", 30, 30));
+        names.add(request("item_bomb", "images/item_bomb.svg", 30, 30));
+        names.add(request("item_default", "images/item_default.svg", 30, 30));
         
-        // 如果发现有图像加载失败，则为所有缺失的图像创建默认图像
-        ensureAllImagesExist();
+        // 等待全部完成，缺失的图像会创建默认图像
+        for (String name : names) {
+            awaitImage(name, imageCache.get(name));
+        }
     }
     
     /**
-     * 确保所有需要的图像都存在，如果缺失则创建默认图像
+     * 发起图像加载请求，同一名称只会发起一次
+     * 
+     * @param name 图像名称
+     * @param path 图像路径
+     * @param width 目标宽度
+     * @param height 目标高度
+     * @return 图像名称
      */
-    private void ensureAllImagesExist() {
-        // 玩家坦克
-        ensureImageExists("player_tank_up", 40, 40, Color.GREEN);
-        ensureImageExists("player_tank_right", 40, 40, Color.GREEN);
-        ensureImageExists("player_tank_down", 40, 40, Color.GREEN);
-        ensureImageExists("player_tank_left", 40, 40, Color.GREEN);
-        
-        // 敌人坦克
-        ensureImageExists("enemy_tank_up", 40, 40, Color.RED);
-        ensureImageExists("enemy_tank_right", 40, 40, Color.RED);
-        ensureImageExists("enemy_tank_down", 40, 40, Color.RED);
-        ensureImageExists("enemy_tank_left", 40, 40, Color.RED);
-        
-        // 子弹
-        ensureImageExists("bullet", 10, 10, Color.YELLOW);
-        
-        // 墙体
-        ensureImageExists("brick_wall", 40, 40, Color.BROWN);
-        ensureImageExists("steel_wall", 40, 40, Color.GRAY);
-        
-        // 特效
-        ensureImageExists("explosion", 40, 40, Color.ORANGE);
-        
-        // 道具
-        ensureImageExists("item_shield", 30, 30, Color.CYAN);
-        ensureImageExists("item_speed", 30, 30, Color.GREEN);
-        ensureImageExists("item_power", 30, 30, Color.RED);
-        ensureImageExists("item_life", 30, 30, Color.PURPLE);
-        ensureImageExists("item_bomb", 30, 30, Color.ORANGE);
-        ensureImageExists("item_default", 30, 30, Color.YELLOW);
+    private String request(String name, String path, int width, int height) {
+        imageCache.computeIfAbsent(name, key -> {
+            CompletableFuture<Image> decoded = CompletableFuture.supplyAsync(
+                    () -> transcodeSvg(path, width, height), loaderExecutor);
+            ImageRequest request = new ImageRequest(width, height, decoded);
+            
+            // 解码失败时在JavaFX线程上创建替代图像
+            decoded.whenComplete((image, error) -> {
+                if (image != null) {
+                    request.result.complete(image);
+                } else {
+                    runOnFxThread(() -> request.result.complete(createDefaultImage(key, width, height)));
+                }
+            });
+            return request;
+        });
+        return name;
+    }
+    
+    /**
+     * 在JavaFX线程上执行任务，当前已在JavaFX线程时直接执行
+     * 
+     * @param task 任务
+     */
+    private static void runOnFxThread(Runnable task) {
+        if (Platform.isFxApplicationThread()) {
+            task.run();
+        } else {
+            Platform.runLater(task);
+        }
     }
     
     /**
-     * 确保指定名称的图像存在，如果不存在则创建简单的彩色矩形图像
+     * 等待请求完成并返回图像
+     * 在JavaFX线程上只等待后台解码，替代图像直接在当前线程创建，避免与runLater互相等待
      * 
      * @param name 图像名称
-     * @param width 宽度
-     * @param height 高度
-     * @param color 颜色
+     * @param request 加载请求
+     * @return 图像
      */
-    private void ensureImageExists(String name, int width, int height, Color color) {
-        if (!imageCache.containsKey(name) || imageCache.get(name) == null) {
-            createSimpleImage(name, width, height, color);
+    private Image awaitImage(String name, ImageRequest request) {
+        Image image = request.result.getNow(null);
+        if (image != null) {
+            return image;
+        }
+        
+        if (!Platform.isFxApplicationThread()) {
+            return request.result.join();
+        }
+        
+        image = request.decoded.exceptionally(e -> null).join();
+        if (image == null) {
+            image = createDefaultImage(name, request.width, request.height);
         }
+        // 与后台回调竞争时以先完成的结果为准
+        request.result.complete(image);
+        return request.result.join();
     }
     
     /**
@@ -154,8 +215,9 @@ public class ResourceManager {
      * @param width 宽度
      * @param height 高度
      * @param color 颜色
+     * @return 图像
      */
-    private void createSimpleImage(String name, int width, int height, Color color) {
+    private Image createSimpleImage(String name, int width, int height, Color color) {
         try {
             Canvas canvas = new Canvas(width, height);
             GraphicsContext gc = canvas.getGraphicsContext2D();
@@ -213,15 +275,16 @@ public class ResourceManager {
                 gc.fillText(text, (width - textWidth) / 2, (height + textHeight) / 2);
             }
             
-            // 保存为JavaFX图像
-            imageCache.put(name, canvas.snapshot(null, null));
+            // 保存为JavaFX图像（Canvas.snapshot只能在JavaFX线程调用）
+            Image image = canvas.snapshot(null, null);
             
             System.out.println("已创建简单替代图像: " + name);
+            return image;
         } catch (Exception e) {
             System.err.println("创建简单图像失败: " + name + ", " + e.getMessage());
             
             // 最后的备选方案：创建1x1像素的纯色图像
-            imageCache.put(name, createFallbackImage(color));
+            return createFallbackImage(color);
         }
     }
     
@@ -249,59 +312,81 @@ public class ResourceManager {
      * @param height 目标高度
      */
     public void loadImage(String name, String path, int width, int height) {
-        try {
-            // 从模块资源中加载SVG资源
-            InputStream inputStream = null;
-            
-            // 首先尝试使用模块化方式加载
-            inputStream = ResourceManager.class.getResourceAsStream("/" + path);
-            
-            // 如果失败，尝试常规类加载器方式
-            if (inputStream == null) {
-                inputStream = getClass().getClassLoader().getResourceAsStream(path);
-            }
-            
-            // 如果仍然失败，尝试使用模块名作为前缀
-            if (inputStream == null) {
-                inputStream = getClass().getResourceAsStream("/com/tankbattle/" + path);
-            }
-            
-            if (inputStream == null) {
-                System.out.println("未找到资源: " + path);
-                // 如果找不到SVG资源，创建一个简单的默认图像
-                createDefaultImage(name, width, height);
-                return;
+        request(name, path, width, height);
+        awaitImage(name, imageCache.get(name));
+    }
+    
+    /**
+     * 异步加载SVG图像资源
+     * 
+     * @param name 图像名称
+     * @param path 图像路径
+     * @param width 目标宽度
+     * @param height 目标高度
+     * @return 加载完成时得到图像的Future
+     */
+    public CompletableFuture<Image> loadImageAsync(String name, String path, int width, int height) {
+        request(name, path, width, height);
+        return imageCache.get(name).result;
+    }
+    
+    /**
+     * 在当前线程将SVG转码为JavaFX图像，不涉及JavaFX线程
+     * 
+     * @param path 图像路径
+     * @param width 目标宽度
+     * @param height 目标高度
+     * @return 图像对象，找不到资源或转码失败时返回null
+     */
+    private Image transcodeSvg(String path, int width, int height) {
+        // 从模块资源中加载SVG资源
+        InputStream inputStream = null;
+        
+        // 优先从已安装的内容包中读取
+        ContentPack pack = ContentPack.getInstalled();
+        if (pack != null && pack.contains(path)) {
+            try {
+                inputStream = pack.open(path);
+            } catch (IOException e) {
+                System.out.println("读取内容包资源失败: " + path + ", 错误: " + e.getMessage());
             }
-            
+        }
+        
+        // 然后尝试使用模块化方式加载
+        if (inputStream == null) {
+            inputStream = ResourceManager.class.getResourceAsStream("/" + path);
+        }
+        
+        // 如果失败，尝试常规类加载器方式
+        if (inputStream == null) {
+            inputStream = getClass().getClassLoader().getResourceAsStream(path);
+        }
+        
+        // 如果仍然失败，尝试使用模块名作为前缀
+        if (inputStream == null) {
+            inputStream = getClass().getResourceAsStream("/com/tankbattle/" + path);
+        }
+        
+        if (inputStream == null) {
+            System.out.println("未找到资源: " + path);
+            return null;
+        }
+        
+        try (InputStream in = inputStream;
+             ByteArrayOutputStream outputStream = new ByteArrayOutputStream()) {
             // 使用Batik将SVG转换为JavaFX图像
             PNGTranscoder transcoder = new PNGTranscoder();
             transcoder.addTranscodingHint(ImageTranscoder.KEY_WIDTH, (float) width);
             transcoder.addTranscodingHint(ImageTranscoder.KEY_HEIGHT, (float) height);
             
-            // 设置转码器输入
-            TranscoderInput input = new TranscoderInput(inputStream);
-            
-            // 设置转码器输出
-            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-            TranscoderOutput output = new TranscoderOutput(outputStream);
-            
             // 执行转换
-            transcoder.transcode(input, output);
+            transcoder.transcode(new TranscoderInput(in), new TranscoderOutput(outputStream));
             
             // 创建JavaFX图像
-            Image image = new Image(new ByteArrayInputStream(outputStream.toByteArray()));
-            
-            // 缓存图像
-            imageCache.put(name, image);
-            
-            // 关闭流
-            inputStream.close();
-            outputStream.close();
+            return new Image(new ByteArrayInputStream(outputStream.toByteArray()));
         } catch (IOException | TranscoderException e) {
             System.out.println("加载SVG资源失败: " + path + ", 错误: " + e.getMessage());
-            
-            // 创建默认图像作为备选
-            createDefaultImage(name, width, height);
+            return null;
         }
     }
     
@@ -311,26 +396,27 @@ public class ResourceManager {
      * @param name 图像名称
      * @param width 宽度
      * @param height 高度
+     * @return 图像
      */
-    private void createDefaultImage(String name, int width, int height) {
+    private Image createDefaultImage(String name, int width, int height) {
         // 根据对象类型选择默认颜色
         if (name.contains("player_tank")) {
-            createSimpleImage(name, width, height, Color.GREEN);
+            return createSimpleImage(name, width, height, Color.GREEN);
         } else if (name.contains("enemy_tank")) {
-            createSimpleImage(name, width, height, Color.RED);
+            return createSimpleImage(name, width, height, Color.RED);
         } else if (name.contains("bullet")) {
-            createSimpleImage(name, width, height, Color.YELLOW);
+            return createSimpleImage(name, width, height, Color.YELLOW);
         } else if (name.contains("brick_wall")) {
-            createSimpleImage(name, width, height, Color.BROWN);
+            return createSimpleImage(name, width, height, Color.BROWN);
         } else if (name.contains("steel_wall")) {
-            createSimpleImage(name, width, height, Color.GRAY);
+            return createSimpleImage(name, width, height, Color.GRAY);
         } else if (name.contains("explosion")) {
-            createSimpleImage(name, width, height, Color.ORANGE);
+            return createSimpleImage(name, width, height, Color.ORANGE);
         } else if (name.contains("item_")) {
-            createSimpleImage(name, width, height, Color.CYAN);
+            return createSimpleImage(name, width, height, Color.CYAN);
         } else {
             // 其他对象的默认图像（蓝色方块）
-            createSimpleImage(name, width, height, Color.BLUE);
+            return createSimpleImage(name, width, height, Color.BLUE);
         }
     }
     
@@ -341,14 +427,31 @@ public class ResourceManager {
      * @return 图像对象
      */
     public Image getImage(String name) {
-        Image image = imageCache.get(name);
-        if (image == null) {
+        ImageRequest request = imageCache.get(name);
+        if (request == null) {
             // 如果找不到图像，返回一个紫色方块作为错误指示
             System.err.println("严重错误：尝试获取未加载的图像: " + name);
-            createSimpleImage(name, 40, 40, Color.PURPLE);
-            image = imageCache.get(name);
+            request = imageCache.computeIfAbsent(name, key -> {
+                ImageRequest missing = new ImageRequest(40, 40, CompletableFuture.completedFuture(null));
+                runOnFxThread(() -> missing.result.complete(createSimpleImage(key, 40, 40, Color.PURPLE)));
+                return missing;
+            });
+        }
+        return awaitImage(name, request);
+    }
+    
+    /**
+     * 异步获取图像资源
+     * 
+     * @param name 图像名称
+     * @return 加载完成时得到图像的Future
+     */
+    public CompletableFuture<Image> getImageAsync(String name) {
+        ImageRequest request = imageCache.get(name);
+        if (request != null) {
+            return request.result;
         }
-        return image;
+        return CompletableFuture.supplyAsync(() -> getImage(name), loaderExecutor);
     }
     
     /**
@@ -361,4 +464,4 @@ public class ResourceManager {
     public Image getTankImage(String prefix, String direction) {
         return getImage(prefix + "_" + direction.toLowerCase());
     }
-}
\ No newline at end of file
+}
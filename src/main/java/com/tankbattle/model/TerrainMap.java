@@ -0,0 +1,141 @@
+package com.tankbattle.model;
+
+import com.tankbattle.model.entity.GameObject;
+import com.tankbattle.model.enums.TerrainType;
+import com.tankbattle.model.level.LevelConfig;
+
+/**
+ * 运行时地形层
+ * 直接使用关卡配置中每个格子一个字节的地形数组，移动和碰撞检测按坐标计算格子下标读取，
+ * 不为地形创建任何游戏对象
+ * 
+ * @author Taiyu Jin
+ */
+public class TerrainMap {
+    // 格子大小
+    public static final int TILE_SIZE = LevelConfig.TERRAIN_TILE_SIZE;
+    
+    private final int cols;
+    private final int rows;
+    // 地形编码，null表示整张地图都是普通地面
+    private final byte[] cells;
+    // 每种地形的格子数
+    private final int[] typeCounts = new int[TerrainType.values().length];
+    
+    /**
+     * 根据关卡配置创建地形层
+     * 
+     * @param config 关卡配置，可以为null（默认尺寸、没有地形）
+     */
+    public TerrainMap(LevelConfig config) {
+        if (config != null) {
+            this.cols = config.getTerrainColumns();
+            this.rows = config.getTerrainRows();
+            this.cells = config.getTerrain();
+        } else {
+            this.cols = (LevelConfig.DEFAULT_MAP_WIDTH + TILE_SIZE - 1) / TILE_SIZE;
+            this.rows = (LevelConfig.DEFAULT_MAP_HEIGHT + TILE_SIZE - 1) / TILE_SIZE;
+            this.cells = null;
+        }
+        
+        if (cells != null) {
+            for (byte code : cells) {
+                typeCounts[TerrainType.fromCode(code).ordinal()]++;
+            }
+        } else {
+            typeCounts[TerrainType.NONE.ordinal()] = cols * rows;
+        }
+    }
+    
+    /**
+     * 获取格子的地形类型
+     * 
+     * @param col 列
+     * @param row 行
+     * @return 地形类型，超出地图时返回NONE
+     */
+    public TerrainType getType(int col, int row) {
+        if (cells == null || col < 0 || row < 0 || col >= cols || row >= rows) {
+            return TerrainType.NONE;
+        }
+        return TerrainType.fromCode(cells[row * cols + col]);
+    }
+    
+    /**
+     * 获取坐标所在格子的地形类型
+     * 
+     * @param x X坐标
+     * @param y Y坐标
+     * @return 地形类型
+     */
+    public TerrainType getTypeAt(double x, double y) {
+        return getType(cellOf(x), cellOf(y));
+    }
+    
+    /**
+     * 获取游戏对象中心所在格子的地形类型
+     * 
+     * @param obj 游戏对象
+     * @return 地形类型
+     */
+    public TerrainType getTypeUnder(GameObject obj) {
+        return getTypeAt(obj.getX() + obj.getWidth() / 2.0, obj.getY() + obj.getHeight() / 2.0);
+    }
+    
+    /**
+     * 检查游戏对象覆盖的格子中是否有阻挡坦克的地形
+     * 
+     * @param obj 游戏对象
+     * @return 是否被阻挡
+     */
+    public boolean blocksTank(GameObject obj) {
+        if (cells == null || typeCounts[TerrainType.WATER.ordinal()] == 0) {
+            return false;
+        }
+        // 与墙体碰撞一致使用严格相交，只贴着边缘的格子不算覆盖
+        int minCol = cellOf(obj.getX());
+        int maxCol = cellOf(Math.nextDown(obj.getX() + obj.getWidth()));
+        int minRow = cellOf(obj.getY());
+        int maxRow = cellOf(Math.nextDown(obj.getY() + obj.getHeight()));
+        for (int row = minRow; row <= maxRow; row++) {
+            for (int col = minCol; col <= maxCol; col++) {
+                if (getType(col, row).blocksTanks()) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * 地图中是否有指定类型的地形
+     * 
+     * @param type 地形类型
+     * @return 是否存在
+     */
+    public boolean contains(TerrainType type) {
+        return typeCounts[type.ordinal()] > 0;
+    }
+    
+    /**
+     * 获取指定类型地形的格子数
+     * 
+     * @param type 地形类型
+     * @return 格子数
+     */
+    public int count(TerrainType type) {
+        return typeCounts[type.ordinal()];
+    }
+    
+    public int getColumns() {
+        return cols;
+    }
+    
+    public int getRows() {
+        return rows;
+    }
+    
+    private static int cellOf(double coordinate) {
+        return (int) Math.floor(coordinate / TILE_SIZE);
+    }
+}
@@ -0,0 +1,191 @@
+package com.tankbattle.model;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+
+import com.tankbattle.model.entity.GameObject;
+import com.tankbattle.model.entity.Wall;
+
+/**
+ * 墙体空间索引，按固定大小的网格划分墙体
+ * 碰撞检测只需检查对象覆盖的格子中的墙体，而不必遍历所有墙体
+ * 
+ * @author Taiyu Jin
+ */
+public class WallIndex {
+    // 网格格子大小
+    private static final int CELL_SIZE = 40;
+    
+    // 每个格子中的墙体，键由格子行列合成
+    private final Map<Long, List<Wall>> cells = new HashMap<>();
+    
+    /**
+     * 根据墙体列表建立索引
+     * 
+     * @param walls 墙体列表
+     */
+    public WallIndex(List<Wall> walls) {
+        for (Wall wall : walls) {
+            add(wall);
+        }
+    }
+    
+    /**
+     * 添加墙体
+     * 
+     * @param wall 墙体
+     */
+    public void add(Wall wall) {
+        forEachCell(wall.getX(), wall.getY(), wall.getWidth(), wall.getHeight(),
+                key -> cells.computeIfAbsent(key, k -> new ArrayList<>(2)).add(wall));
+    }
+    
+    /**
+     * 移除墙体
+     * 
+     * @param wall 墙体
+     */
+    public void remove(Wall wall) {
+        forEachCell(wall.getX(), wall.getY(), wall.getWidth(), wall.getHeight(), key -> {
+            List<Wall> list = cells.get(key);
+            if (list != null) {
+                list.remove(wall);
+                if (list.isEmpty()) {
+                    cells.remove(key);
+                }
+            }
+        });
+    }
+    
+    /**
+     * 查找与游戏对象相交的第一个墙体
+     * 
+     * @param obj 游戏对象
+     * @return 相交的墙体，没有时返回null
+     */
+    public Wall findCollision(GameObject obj) {
+        if (obj == null || !obj.isAlive()) {
+            return null;
+        }
+        double x = obj.getX();
+        double y = obj.getY();
+        double width = obj.getWidth();
+        double height = obj.getHeight();
+        
+        int minCol = cellOf(x);
+        int maxCol = cellOf(x + width);
+        int minRow = cellOf(y);
+        int maxRow = cellOf(y + height);
+        for (int row = minRow; row <= maxRow; row++) {
+            for (int col = minCol; col <= maxCol; col++) {
+                List<Wall> list = cells.get(key(col, row));
+                if (list == null) {
+                    continue;
+                }
+                for (Wall wall : list) {
+                    if (wall.isAlive()
+                            && x < wall.getX() + wall.getWidth() && x + width > wall.getX()
+                            && y < wall.getY() + wall.getHeight() && y + height > wall.getY()
+                            && wall.overlapsSolid(x, y, width, height)) {
+                        return wall;
+                    }
+                }
+            }
+        }
+        return null;
+    }
+    
+    /**
+     * 检查区域内是否有墙体
+     * 
+     * @param x 区域X坐标
+     * @param y 区域Y坐标
+     * @param width 区域宽度
+     * @param height 区域高度
+     * @return 是否与墙体相交
+     */
+    public boolean intersects(double x, double y, double width, double height) {
+        int minCol = cellOf(x);
+        int maxCol = cellOf(x + width);
+        int minRow = cellOf(y);
+        int maxRow = cellOf(y + height);
+        for (int row = minRow; row <= maxRow; row++) {
+            for (int col = minCol; col <= maxCol; col++) {
+                List<Wall> list = cells.get(key(col, row));
+                if (list == null) {
+                    continue;
+                }
+                for (Wall wall : list) {
+                    if (x < wall.getX() + wall.getWidth() && x + width > wall.getX()
+                            && y < wall.getY() + wall.getHeight() && y + height > wall.getY()
+                            && wall.overlapsSolid(x, y, width, height)) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * 对与区域相交的每个存活墙体执行一次操作，用于只绘制视口内的墙体
+     * 跨越多个格子的墙体只在它与区域重叠的第一个格子中处理，不需要额外的去重集合
+     * 
+     * @param x 区域X坐标
+     * @param y 区域Y坐标
+     * @param width 区域宽度
+     * @param height 区域高度
+     * @param action 对墙体执行的操作
+     */
+    public void forEachInArea(double x, double y, double width, double height, Consumer<Wall> action) {
+        int minCol = cellOf(x);
+        int maxCol = cellOf(x + width);
+        int minRow = cellOf(y);
+        int maxRow = cellOf(y + height);
+        for (int row = minRow; row <= maxRow; row++) {
+            for (int col = minCol; col <= maxCol; col++) {
+                List<Wall> list = cells.get(key(col, row));
+                if (list == null) {
+                    continue;
+                }
+                for (Wall wall : list) {
+                    if (wall.isAlive()
+                            && Math.max(cellOf(wall.getX()), minCol) == col
+                            && Math.max(cellOf(wall.getY()), minRow) == row
+                            && x < wall.getX() + wall.getWidth() && x + width > wall.getX()
+                            && y < wall.getY() + wall.getHeight() && y + height > wall.getY()) {
+                        action.accept(wall);
+                    }
+                }
+            }
+        }
+    }
+    
+    /**
+     * 对矩形覆盖的每个格子执行操作
+     */
+    private void forEachCell(double x, double y, double width, double height,
+                             LongConsumer action) {
+        int minCol = cellOf(x);
+        int maxCol = cellOf(x + width - 1);
+        int minRow = cellOf(y);
+        int maxRow = cellOf(y + height - 1);
+        for (int row = minRow; row <= maxRow; row++) {
+            for (int col = minCol; col <= maxCol; col++) {
+                action.accept(key(col, row));
+            }
+        }
+    }
+    
+    private static int cellOf(double coordinate) {
+        return (int) Math.floor(coordinate / CELL_SIZE);
+    }
+    
+    private static long key(int col, int row) {
+        return ((long) col << 32) | (row & 0xFFFFFFFFL);
+    }
+}
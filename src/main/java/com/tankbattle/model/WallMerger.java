@@ -0,0 +1,215 @@
+package com.tankbattle.model;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.tankbattle.model.entity.BrickWall;
+import com.tankbattle.model.entity.SteelWall;
+import com.tankbattle.model.entity.Wall;
+
+/**
+ * 墙体几何优化器
+ * 加载关卡时把相邻的同类型格子墙体贪心合并为尽量大的矩形，减少碰撞检测和绘制的对象数；
+ * 合并后的墙体被击中时只拆出被击中的格子，其余部分拆分为最多四个矩形；
+ * 被削去部分小块的砖墙不参与合并
+ *
+ * @author Taiyu Jin
+ */
+public class WallMerger {
+    // 格子大小
+    public static final int TILE_SIZE = 40;
+
+    private WallMerger() {
+    }
+
+    /**
+     * 合并相邻的同类型格子墙体
+     * 尺寸不是单个格子的墙体保持不变
+     *
+     * @param walls 墙体列表
+     * @return 合并后的墙体列表
+     */
+    public static List<Wall> merge(List<Wall> walls) {
+        List<Wall> result = new ArrayList<>();
+
+        // 按类型和网格对齐偏移分组，只有同组的格子才能合并
+        Map<String, List<Wall>> groups = new LinkedHashMap<>();
+        for (Wall wall : walls) {
+            if (!isTile(wall)) {
+                result.add(wall);
+                continue;
+            }
+            String key = (wall instanceof SteelWall ? "steel" : "brick") + ":"
+                    + Math.floorMod((int) wall.getX(), TILE_SIZE) + "," + Math.floorMod((int) wall.getY(), TILE_SIZE);
+            groups.computeIfAbsent(key, k -> new ArrayList<>()).add(wall);
+        }
+
+        for (List<Wall> group : groups.values()) {
+            mergeGroup(group, result);
+        }
+        return result;
+    }
+
+    /**
+     * 把合并后的墙体还原为单个格子
+     *
+     * @param walls 墙体列表
+     * @return 格子墙体列表
+     */
+    public static List<Wall> explode(List<Wall> walls) {
+        List<Wall> tiles = new ArrayList<>();
+        for (Wall wall : walls) {
+            if (!wall.isMerged()) {
+                tiles.add(wall);
+                continue;
+            }
+            for (int y = 0; y < wall.getHeight(); y += TILE_SIZE) {
+                for (int x = 0; x < wall.getWidth(); x += TILE_SIZE) {
+                    tiles.add(createTile(wall, wall.getX() + x, wall.getY() + y, 1, 1));
+                }
+            }
+        }
+        return tiles;
+    }
+
+    /**
+     * 从合并墙体中移除一个格子，返回剩余部分
+     * 被击中的格子由击中点确定；剩余部分拆为上、下两条整行和左、右两段
+     *
+     * @param wall 合并墙体
+     * @param hitX 击中点X坐标
+     * @param hitY 击中点Y坐标
+     * @return 剩余的墙体（可能为空）
+     */
+    public static List<Wall> removeTile(Wall wall, double hitX, double hitY) {
+        List<Wall> pieces = new ArrayList<>();
+        int cols = wall.getWidth() / TILE_SIZE;
+        int rows = wall.getHeight() / TILE_SIZE;
+        int col = clamp((int) Math.floor((hitX - wall.getX()) / TILE_SIZE), 0, cols - 1);
+        int row = clamp((int) Math.floor((hitY - wall.getY()) / TILE_SIZE), 0, rows - 1);
+
+        double x = wall.getX();
+        double y = wall.getY();
+        if (row > 0) {
+            pieces.add(createTile(wall, x, y, cols, row));
+        }
+        if (row < rows - 1) {
+            pieces.add(createTile(wall, x, y + (row + 1) * TILE_SIZE, cols, rows - row - 1));
+        }
+        if (col > 0) {
+            pieces.add(createTile(wall, x, y + row * TILE_SIZE, col, 1));
+        }
+        if (col < cols - 1) {
+            pieces.add(createTile(wall, x + (col + 1) * TILE_SIZE, y + row * TILE_SIZE, cols - col - 1, 1));
+        }
+        return pieces;
+    }
+
+    /**
+     * 创建合并墙体中被击中的那个格子
+     *
+     * @param wall 合并墙体
+     * @param hitX 击中点X坐标
+     * @param hitY 击中点Y坐标
+     * @return 与原墙体同类型的单个格子墙体
+     */
+    public static Wall tileAt(Wall wall, double hitX, double hitY) {
+        int col = clamp((int) Math.floor((hitX - wall.getX()) / TILE_SIZE), 0, wall.getWidth() / TILE_SIZE - 1);
+        int row = clamp((int) Math.floor((hitY - wall.getY()) / TILE_SIZE), 0, wall.getHeight() / TILE_SIZE - 1);
+        return createTile(wall, wall.getX() + col * TILE_SIZE, wall.getY() + row * TILE_SIZE, 1, 1);
+    }
+
+    /**
+     * 贪心合并一组对齐的同类型格子：按行扫描，先向右扩展到最宽，再向下扩展到最高
+     */
+    private static void mergeGroup(List<Wall> group, List<Wall> result) {
+        int minX = Integer.MAX_VALUE;
+        int minY = Integer.MAX_VALUE;
+        int maxX = Integer.MIN_VALUE;
+        int maxY = Integer.MIN_VALUE;
+        for (Wall wall : group) {
+            minX = Math.min(minX, (int) wall.getX());
+            minY = Math.min(minY, (int) wall.getY());
+            maxX = Math.max(maxX, (int) wall.getX());
+            maxY = Math.max(maxY, (int) wall.getY());
+        }
+        int cols = (maxX - minX) / TILE_SIZE + 1;
+        int rows = (maxY - minY) / TILE_SIZE + 1;
+
+        Wall[] grid = new Wall[cols * rows];
+        for (Wall wall : group) {
+            int index = ((int) wall.getY() - minY) / TILE_SIZE * cols + ((int) wall.getX() - minX) / TILE_SIZE;
+            if (grid[index] != null) {
+                // 重叠的格子不参与合并
+                result.add(wall);
+            } else {
+                grid[index] = wall;
+            }
+        }
+
+        boolean[] used = new boolean[cols * rows];
+        for (int row = 0; row < rows; row++) {
+            for (int col = 0; col < cols; col++) {
+                int start = row * cols + col;
+                if (grid[start] == null || used[start]) {
+                    continue;
+                }
+
+                int width = 1;
+                while (col + width < cols && grid[start + width] != null && !used[start + width]) {
+                    width++;
+                }
+                int height = 1;
+                while (row + height < rows && isRowFree(grid, used, cols, row + height, col, width)) {
+                    height++;
+                }
+                for (int r = row; r < row + height; r++) {
+                    for (int c = col; c < col + width; c++) {
+                        used[r * cols + c] = true;
+                    }
+                }
+
+                Wall first = grid[start];
+                result.add(width == 1 && height == 1
+                        ? first
+                        : createTile(first, first.getX(), first.getY(), width, height));
+            }
+        }
+    }
+
+    private static boolean isRowFree(Wall[] grid, boolean[] used, int cols, int row, int col, int width) {
+        for (int c = col; c < col + width; c++) {
+            int index = row * cols + c;
+            if (grid[index] == null || used[index]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 创建与原墙体同类型、由若干格子组成的墙体
+     */
+    private static Wall createTile(Wall type, double x, double y, int cols, int rows) {
+        Wall wall = type instanceof SteelWall ? new SteelWall(x, y) : new BrickWall(x, y);
+        wall.setWidth(cols * TILE_SIZE);
+        wall.setHeight(rows * TILE_SIZE);
+        wall.setMerged(cols > 1 || rows > 1);
+        return wall;
+    }
+
+    private static boolean isTile(Wall wall) {
+        // 已被削去部分的砖墙保持独立，以保留小块掩码
+        if (wall instanceof BrickWall && ((BrickWall) wall).isDamaged()) {
+            return false;
+        }
+        return wall.getWidth() == TILE_SIZE && wall.getHeight() == TILE_SIZE
+                && wall.getX() == Math.floor(wall.getX()) && wall.getY() == Math.floor(wall.getY());
+    }
+
+    private static int clamp(int value, int min, int max) {
+        return Math.max(min, Math.min(max, value));
+    }
+}
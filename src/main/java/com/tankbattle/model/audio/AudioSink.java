@@ -0,0 +1,34 @@
+package com.tankbattle.model.audio;
+
+import javax.sound.sampled.AudioFormat;
+
+/**
+ * 混音输出目标
+ * 软件混音器把混合好的PCM数据写入该接口，可以是声卡输出线路，也可以是内存
+ *
+ * @author Taiyu Jin
+ */
+public interface AudioSink {
+
+    /**
+     * 打开输出目标
+     *
+     * @param format 输出格式
+     * @param bufferBytes 期望的缓冲区大小（字节）
+     * @throws Exception 无法打开时抛出
+     */
+    void open(AudioFormat format, int bufferBytes) throws Exception;
+
+    /**
+     * 写入一段PCM数据，输出线路在缓冲区满时会阻塞
+     *
+     * @param data PCM数据
+     * @param length 有效字节数
+     */
+    void write(byte[] data, int length);
+
+    /**
+     * 关闭输出目标
+     */
+    void close();
+}
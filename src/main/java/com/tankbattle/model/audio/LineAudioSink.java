@@ -0,0 +1,38 @@
+package com.tankbattle.model.audio;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.SourceDataLine;
+
+/**
+ * 输出到声卡的混音目标，使用一条固定缓冲区大小的SourceDataLine
+ *
+ * @author Taiyu Jin
+ */
+public class LineAudioSink implements AudioSink {
+    private SourceDataLine line;
+
+    @Override
+    public void open(AudioFormat format, int bufferBytes) throws Exception {
+        line = AudioSystem.getSourceDataLine(format);
+        line.open(format, bufferBytes);
+        line.start();
+    }
+
+    @Override
+    public void write(byte[] data, int length) {
+        if (line != null) {
+            line.write(data, 0, length);
+        }
+    }
+
+    @Override
+    public void close() {
+        if (line != null) {
+            line.stop();
+            line.flush();
+            line.close();
+            line = null;
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.tankbattle.model.audio;
+
+import java.io.ByteArrayOutputStream;
+
+import javax.sound.sampled.AudioFormat;
+
+/**
+ * 输出到内存的混音目标，用于无声卡环境下渲染和检查混音结果
+ *
+ * @author Taiyu Jin
+ */
+public class MemoryAudioSink implements AudioSink {
+    private final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+    private AudioFormat format;
+
+    @Override
+    public void open(AudioFormat format, int bufferBytes) {
+        this.format = format;
+    }
+
+    @Override
+    public synchronized void write(byte[] data, int length) {
+        buffer.write(data, 0, length);
+    }
+
+    @Override
+    public void close() {
+        // 保留已写入的数据供读取
+    }
+
+    /**
+     * 获取输出格式
+     *
+     * @return 打开时使用的格式
+     */
+    public AudioFormat getFormat() {
+        return format;
+    }
+
+    /**
+     * 获取已写入的PCM数据
+     *
+     * @return PCM数据副本
+     */
+    public synchronized byte[] toByteArray() {
+        return buffer.toByteArray();
+    }
+}
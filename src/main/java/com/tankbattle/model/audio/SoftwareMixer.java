@@ -0,0 +1,359 @@
+package com.tankbattle.model.audio;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URL;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.UnsupportedAudioFileException;
+
+/**
+ * 软件混音器
+ * 音效在加载时一次性解码并重采样为统一格式的PCM数组，所有声部共享同一份数据；
+ * 混音线程把活动声部按各自增益叠加后写入单条输出线路，缓冲区大小固定，
+ * 因此延迟和内存占用都是可预期的
+ *
+ * @author Taiyu Jin
+ */
+public class SoftwareMixer {
+    // 选择软件混音器的系统属性及取值
+    public static final String MIXER_PROPERTY = "tankbattle.audio.mixer";
+    public static final String MIXER_SOFTWARE = "software";
+
+    // 输出格式：44.1kHz、16位、立体声
+    public static final float SAMPLE_RATE = 44100f;
+    public static final int CHANNELS = 2;
+    private static final int BYTES_PER_FRAME = CHANNELS * 2;
+
+    // 每次混音的帧数（约5.8毫秒）
+    public static final int CHUNK_FRAMES = 256;
+
+    // 输出线路缓冲的混音块数，决定最大延迟
+    private static final int LINE_BUFFER_CHUNKS = 4;
+
+    // 同时混音的最大声部数
+    public static final int MAX_VOICES = 16;
+
+    private final AudioFormat format = new AudioFormat(SAMPLE_RATE, 16, CHANNELS, true, false);
+
+    // 已解码的音效（交错立体声采样）
+    private final Map<String, short[]> sounds = new ConcurrentHashMap<>();
+
+    // 声部槽位，访问时需持有voices的锁
+    private final Voice[] voices = new Voice[MAX_VOICES];
+
+    // 混音累加缓冲与输出字节缓冲（仅混音线程使用）
+    private final int[] mixBuffer = new int[CHUNK_FRAMES * CHANNELS];
+    private final byte[] outBuffer = new byte[CHUNK_FRAMES * BYTES_PER_FRAME];
+
+    private final AudioSink sink;
+    private Thread mixThread;
+    private volatile boolean running;
+
+    /**
+     * 一个正在混音的声部
+     */
+    private static class Voice {
+        final String name;
+        final short[] data;
+        final float gain;
+        final long startNanos;
+        int position;
+
+        Voice(String name, short[] data, float gain) {
+            this.name = name;
+            this.data = data;
+            this.gain = gain;
+            this.startNanos = System.nanoTime();
+        }
+    }
+
+    /**
+     * 构造函数
+     *
+     * @param sink 混音输出目标
+     */
+    public SoftwareMixer(AudioSink sink) {
+        this.sink = sink;
+    }
+
+    /**
+     * 检查系统属性是否选择了软件混音器
+     *
+     * @return 是否启用软件混音器
+     */
+    public static boolean isEnabled() {
+        return MIXER_SOFTWARE.equalsIgnoreCase(System.getProperty(MIXER_PROPERTY));
+    }
+
+    /**
+     * 获取输出格式
+     *
+     * @return 输出格式
+     */
+    public AudioFormat getFormat() {
+        return format;
+    }
+
+    /**
+     * 打开输出目标并启动混音线程
+     *
+     * @return 是否成功启动
+     */
+    public boolean start() {
+        try {
+            sink.open(format, CHUNK_FRAMES * BYTES_PER_FRAME * LINE_BUFFER_CHUNKS);
+        } catch (Exception e) {
+            System.err.println("软件混音器输出打开失败: " + e.getMessage());
+            return false;
+        }
+        running = true;
+        mixThread = new Thread(this::mixLoop, "audio-mixer");
+        mixThread.setDaemon(true);
+        mixThread.setPriority(Thread.MAX_PRIORITY);
+        mixThread.start();
+        return true;
+    }
+
+    /**
+     * 打开输出目标但不启动混音线程，由调用者通过render驱动混音
+     *
+     * @return 是否成功打开
+     */
+    public boolean openForRendering() {
+        try {
+            sink.open(format, CHUNK_FRAMES * BYTES_PER_FRAME * LINE_BUFFER_CHUNKS);
+            return true;
+        } catch (Exception e) {
+            System.err.println("软件混音器输出打开失败: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * 停止混音线程并关闭输出目标
+     */
+    public void stop() {
+        running = false;
+        if (mixThread != null) {
+            try {
+                mixThread.join(200);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            mixThread = null;
+        }
+        sink.close();
+    }
+
+    /**
+     * 解码音效并转换为输出格式
+     *
+     * @param name 音效名称
+     * @param url 音效资源地址
+     * @return 音效时长（纳秒）
+     * @throws IOException 读取失败时抛出
+     * @throws UnsupportedAudioFileException 格式不支持时抛出
+     */
+    public long loadSound(String name, URL url) throws IOException, UnsupportedAudioFileException {
+        short[] samples = decode(url);
+        sounds.put(name, samples);
+        return (long) (samples.length / CHANNELS / SAMPLE_RATE * 1_000_000_000L);
+    }
+
+    /**
+     * 检查音效是否已解码
+     *
+     * @param name 音效名称
+     * @return 是否已解码
+     */
+    public boolean isLoaded(String name) {
+        return sounds.containsKey(name);
+    }
+
+    /**
+     * 开始播放音效；没有空闲声部时替换增益最小、开始最早的声部
+     *
+     * @param name 音效名称
+     * @param gain 增益（0.0-1.0）
+     * @return 是否开始播放
+     */
+    public boolean play(String name, double gain) {
+        short[] data = sounds.get(name);
+        if (data == null) {
+            return false;
+        }
+        Voice voice = new Voice(name, data, (float) Math.max(0, Math.min(1, gain)));
+        synchronized (voices) {
+            int slot = -1;
+            for (int i = 0; i < voices.length; i++) {
+                if (voices[i] == null) {
+                    slot = i;
+                    break;
+                }
+                if (slot < 0 || voices[i].gain < voices[slot].gain
+                        || (voices[i].gain == voices[slot].gain && voices[i].startNanos < voices[slot].startNanos)) {
+                    slot = i;
+                }
+            }
+            voices[slot] = voice;
+        }
+        return true;
+    }
+
+    /**
+     * 停止指定音效的所有声部
+     *
+     * @param name 音效名称
+     */
+    public void stop(String name) {
+        synchronized (voices) {
+            for (int i = 0; i < voices.length; i++) {
+                if (voices[i] != null && voices[i].name.equals(name)) {
+                    voices[i] = null;
+                }
+            }
+        }
+    }
+
+    /**
+     * 停止所有声部
+     */
+    public void stopAll() {
+        synchronized (voices) {
+            for (int i = 0; i < voices.length; i++) {
+                voices[i] = null;
+            }
+        }
+    }
+
+    /**
+     * 同步渲染指定帧数并写入输出目标，用于无声卡环境
+     *
+     * @param frames 帧数
+     */
+    public void render(int frames) {
+        while (frames > 0) {
+            int count = Math.min(frames, CHUNK_FRAMES);
+            mixChunk(count);
+            sink.write(outBuffer, count * BYTES_PER_FRAME);
+            frames -= count;
+        }
+    }
+
+    /**
+     * 混音线程主循环，输出线路缓冲区满时write阻塞，从而控制混音节奏
+     */
+    private void mixLoop() {
+        while (running) {
+            try {
+                mixChunk(CHUNK_FRAMES);
+                sink.write(outBuffer, outBuffer.length);
+            } catch (Throwable t) {
+                System.err.println("软件混音失败: " + t.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 把所有活动声部叠加到输出缓冲区，结束的声部释放槽位
+     *
+     * @param frames 帧数
+     */
+    private void mixChunk(int frames) {
+        int samples = frames * CHANNELS;
+        Arrays.fill(mixBuffer, 0, samples, 0);
+
+        synchronized (voices) {
+            for (int v = 0; v < voices.length; v++) {
+                Voice voice = voices[v];
+                if (voice == null) {
+                    continue;
+                }
+                short[] data = voice.data;
+                int pos = voice.position;
+                int count = Math.min(samples, data.length - pos);
+                float gain = voice.gain;
+                for (int i = 0; i < count; i++) {
+                    mixBuffer[i] += (int) (data[pos + i] * gain);
+                }
+                voice.position = pos + count;
+                if (voice.position >= data.length) {
+                    voices[v] = null;
+                }
+            }
+        }
+
+        for (int i = 0, b = 0; i < samples; i++, b += 2) {
+            int sample = mixBuffer[i];
+            if (sample > Short.MAX_VALUE) {
+                sample = Short.MAX_VALUE;
+            } else if (sample < Short.MIN_VALUE) {
+                sample = Short.MIN_VALUE;
+            }
+            outBuffer[b] = (byte) sample;
+            outBuffer[b + 1] = (byte) (sample >> 8);
+        }
+    }
+
+    /**
+     * 解码WAV文件为输出格式的交错立体声采样，采样率不同时线性插值重采样
+     *
+     * @param url 音效资源地址
+     * @return 采样数组
+     */
+    private short[] decode(URL url) throws IOException, UnsupportedAudioFileException {
+        try (AudioInputStream source = AudioSystem.getAudioInputStream(url)) {
+            AudioFormat sourceFormat = source.getFormat();
+            int sourceChannels = sourceFormat.getChannels();
+            AudioFormat pcmFormat = new AudioFormat(sourceFormat.getSampleRate(), 16,
+                    sourceChannels, true, false);
+            byte[] bytes;
+            try (AudioInputStream pcm = AudioSystem.getAudioInputStream(pcmFormat, source)) {
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                byte[] buffer = new byte[8192];
+                int read;
+                while ((read = pcm.read(buffer)) > 0) {
+                    out.write(buffer, 0, read);
+                }
+                bytes = out.toByteArray();
+            }
+
+            // 转为输出声道数的交错采样
+            int sourceFrames = bytes.length / (sourceChannels * 2);
+            short[] stereo = new short[sourceFrames * CHANNELS];
+            for (int f = 0; f < sourceFrames; f++) {
+                for (int c = 0; c < CHANNELS; c++) {
+                    int sc = Math.min(c, sourceChannels - 1);
+                    int b = (f * sourceChannels + sc) * 2;
+                    stereo[f * CHANNELS + c] = (short) ((bytes[b] & 0xFF) | (bytes[b + 1] << 8));
+                }
+            }
+
+            float ratio = sourceFormat.getSampleRate() / SAMPLE_RATE;
+            if (ratio == 1f || sourceFrames == 0) {
+                return stereo;
+            }
+
+            int targetFrames = (int) (sourceFrames / ratio);
+            short[] resampled = new short[targetFrames * CHANNELS];
+            for (int f = 0; f < targetFrames; f++) {
+                float srcPos = f * ratio;
+                int i0 = (int) srcPos;
+                int i1 = Math.min(i0 + 1, sourceFrames - 1);
+                float t = srcPos - i0;
+                for (int c = 0; c < CHANNELS; c++) {
+                    int s0 = stereo[i0 * CHANNELS + c];
+                    int s1 = stereo[i1 * CHANNELS + c];
+                    resampled[f * CHANNELS + c] = (short) (s0 + (s1 - s0) * t);
+                }
+            }
+            return resampled;
+        }
+    }
+}
@@ -1,11 +1,33 @@
 package com.tankbattle.model.entity;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+import com.tankbattle.model.enums.Direction;
+
 /**
  * 砖墙类，继承自Wall，可被摧毁
+ * 单个格子的砖墙分为4x4个小块，用16位掩码记录剩余的小块（第row*4+col位为1表示该小块还在），
+ * 子弹每次从进入的一侧削去两层小块，碰撞检测只检查剩余的小块
  * 
  * @author Taiyu Jin
  */
 public class BrickWall extends Wall {
+    // 每边的小块数和小块大小
+    public static final int SUB_BLOCKS = 4;
+    public static final int SUB_BLOCK_SIZE = 10;
+    
+    // 所有小块都在时的掩码
+    public static final int FULL_MASK = 0xFFFF;
+    
+    // 每次击中削去的小块层数和宽度
+    private static final int CHIP_DEPTH = 2;
+    private static final int CHIP_WIDTH = 2;
+    
+    // 剩余小块掩码
+    private int mask = FULL_MASK;
+    
     /**
      * 构造函数
      * 
@@ -15,4 +37,130 @@ public class BrickWall extends Wall {
     public BrickWall(double x, double y) {
         super(x, y, true); // 砖墙可被摧毁
     }
-}
\ No newline at end of file
+    
+    /**
+     * 检查矩形是否与剩余的小块相交（调用前已确认与墙体矩形相交）
+     * 
+     * @param objX 矩形X坐标
+     * @param objY 矩形Y坐标
+     * @param objWidth 矩形宽度
+     * @param objHeight 矩形高度
+     * @return 是否与剩余小块相交
+     */
+    @Override
+    public boolean overlapsSolid(double objX, double objY, double objWidth, double objHeight) {
+        if (mask == FULL_MASK) {
+            return true;
+        }
+        int minCol = subBlockOf(objX - x);
+        int maxCol = subBlockOf(Math.nextDown(objX + objWidth - x));
+        int minRow = subBlockOf(objY - y);
+        int maxRow = subBlockOf(Math.nextDown(objY + objHeight - y));
+        return (mask & areaMask(minCol, maxCol, minRow, maxRow)) != 0;
+    }
+    
+    /**
+     * 被子弹击中时削去小块
+     * 以击中点为中心取两列（或两行）宽的范围，从子弹进入的一侧找到第一层还有小块的位置，
+     * 削去这一层和它后面的一层
+     * 
+     * @param bulletDirection 子弹飞行方向
+     * @param hitX 击中点X坐标
+     * @param hitY 击中点Y坐标
+     * @return 砖墙是否已被完全摧毁
+     */
+    public boolean chip(Direction bulletDirection, double hitX, double hitY) {
+        boolean vertical = bulletDirection == Direction.UP || bulletDirection == Direction.DOWN;
+        // 击中范围在垂直于飞行方向上的起始小块
+        double across = vertical ? hitX - x : hitY - y;
+        int start = Math.max(0, Math.min(SUB_BLOCKS - CHIP_WIDTH,
+                (int) Math.round(across / SUB_BLOCK_SIZE) - CHIP_WIDTH / 2));
+        int end = start + CHIP_WIDTH - 1;
+        
+        // 子弹向上或向左飞行时从下方或右方进入
+        boolean fromFar = bulletDirection == Direction.UP || bulletDirection == Direction.LEFT;
+        int step = fromFar ? -1 : 1;
+        int layer = fromFar ? SUB_BLOCKS - 1 : 0;
+        for (; layer >= 0 && layer < SUB_BLOCKS; layer += step) {
+            if ((mask & layerMask(vertical, layer, start, end)) != 0) {
+                break;
+            }
+        }
+        for (int i = 0; i < CHIP_DEPTH && layer >= 0 && layer < SUB_BLOCKS; i++, layer += step) {
+            mask &= ~layerMask(vertical, layer, start, end);
+        }
+        
+        if (mask == 0) {
+            setAlive(false);
+        }
+        return mask == 0;
+    }
+    
+    /**
+     * 飞行方向上第layer层中从start到end的小块掩码
+     */
+    private static int layerMask(boolean vertical, int layer, int start, int end) {
+        return vertical ? areaMask(start, end, layer, layer) : areaMask(layer, layer, start, end);
+    }
+    
+    /**
+     * 列minCol到maxCol、行minRow到maxRow范围内所有小块的掩码，超出格子的部分被截掉
+     */
+    private static int areaMask(int minCol, int maxCol, int minRow, int maxRow) {
+        minCol = Math.max(minCol, 0);
+        maxCol = Math.min(maxCol, SUB_BLOCKS - 1);
+        minRow = Math.max(minRow, 0);
+        maxRow = Math.min(maxRow, SUB_BLOCKS - 1);
+        if (minCol > maxCol || minRow > maxRow) {
+            return 0;
+        }
+        int rowBits = ((1 << (maxCol - minCol + 1)) - 1) << minCol;
+        int result = 0;
+        for (int row = minRow; row <= maxRow; row++) {
+            result |= rowBits << (row * SUB_BLOCKS);
+        }
+        return result;
+    }
+    
+    private static int subBlockOf(double offset) {
+        return (int) Math.floor(offset / SUB_BLOCK_SIZE);
+    }
+    
+    @Override
+    public void writeSnapshot(DataOutput out) throws IOException {
+        super.writeSnapshot(out);
+        out.writeShort(mask);
+    }
+    
+    @Override
+    public void readSnapshot(DataInput in) throws IOException {
+        super.readSnapshot(in);
+        mask = in.readUnsignedShort();
+    }
+    
+    /**
+     * 是否可以按小块削减（只有单个格子大小的砖墙可以）
+     * 
+     * @return 是否可以削减
+     */
+    public boolean isChippable() {
+        return !merged && width == SUB_BLOCKS * SUB_BLOCK_SIZE && height == SUB_BLOCKS * SUB_BLOCK_SIZE;
+    }
+    
+    /**
+     * 是否已被削去部分小块
+     * 
+     * @return 是否已受损
+     */
+    public boolean isDamaged() {
+        return mask != FULL_MASK;
+    }
+    
+    public int getMask() {
+        return mask;
+    }
+    
+    public void setMask(int mask) {
+        this.mask = mask & FULL_MASK;
+    }
+}
@@ -1,5 +1,9 @@
 package com.tankbattle.model.entity;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
 import com.tankbattle.model.enums.Direction;
 
 /**
@@ -68,6 +72,22 @@ public class Bullet extends GameObject {
         }
     }
     
+    @Override
+    public void writeSnapshot(DataOutput out) throws IOException {
+        super.writeSnapshot(out);
+        out.writeBoolean(fromPlayer);
+        out.writeInt(damage);
+        out.writeBoolean(powered);
+    }
+    
+    @Override
+    public void readSnapshot(DataInput in) throws IOException {
+        super.readSnapshot(in);
+        fromPlayer = in.readBoolean();
+        damage = in.readInt();
+        powered = in.readBoolean();
+    }
+    
     // Getter 和 Setter 方法
     
     public boolean isFromPlayer() {
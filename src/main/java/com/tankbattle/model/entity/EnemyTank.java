@@ -1,7 +1,11 @@
 package com.tankbattle.model.entity;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+import com.tankbattle.model.GameRandom;
 import com.tankbattle.model.enums.Direction;
-import java.util.Random;
 
 /**
  * 敌人坦克类，继承自Tank
@@ -14,7 +18,7 @@ public class EnemyTank extends Tank {
     private double currentDirectionTime; // 当前方向持续时间
     private double decisionTime; // AI决策时间间隔
     private double currentDecisionTime; // 当前决策时间
-    private Random random;
+    private GameRandom random;
     
     /**
      * 构造函数
@@ -30,7 +34,7 @@ public class EnemyTank extends Tank {
         this.shootCooldown = 1.0; // 敌人射击冷却时间较长
         
         // 初始化AI决策参数
-        this.random = new Random();
+        this.random = new GameRandom();
         this.directionChangeTime = 2.0 + random.nextDouble() * 3.0; // 2-5秒随机改变方向
         this.currentDirectionTime = 0;
         this.decisionTime = 0.5 + random.nextDouble() * 1.5; // 0.5-2秒做一次决策
@@ -115,6 +119,26 @@ public class EnemyTank extends Tank {
         }
     }
     
+    @Override
+    public void writeSnapshot(DataOutput out) throws IOException {
+        super.writeSnapshot(out);
+        out.writeDouble(directionChangeTime);
+        out.writeDouble(currentDirectionTime);
+        out.writeDouble(decisionTime);
+        out.writeDouble(currentDecisionTime);
+        out.writeLong(random.getState());
+    }
+    
+    @Override
+    public void readSnapshot(DataInput in) throws IOException {
+        super.readSnapshot(in);
+        directionChangeTime = in.readDouble();
+        currentDirectionTime = in.readDouble();
+        decisionTime = in.readDouble();
+        currentDecisionTime = in.readDouble();
+        random.setState(in.readLong());
+    }
+    
     /**
      * 获取射击冷却时间
      * 
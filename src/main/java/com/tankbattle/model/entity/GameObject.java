@@ -1,5 +1,9 @@
 package com.tankbattle.model.entity;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
 import com.tankbattle.model.enums.Direction;
 
 /**
@@ -69,6 +73,55 @@ public abstract class GameObject {
         y -= direction.getDy() * backupDistance;
     }
     
+    /**
+     * 把对象状态写入存档快照
+     * 子类先调用父类方法，再写入自己的字段；字段顺序即存档格式，修改时需同时提升存档版本
+     * 
+     * @param out 输出
+     * @throws IOException 写入错误
+     */
+    public void writeSnapshot(DataOutput out) throws IOException {
+        out.writeDouble(x);
+        out.writeDouble(y);
+        out.writeInt(width);
+        out.writeInt(height);
+        out.writeByte(direction.ordinal());
+        out.writeDouble(speed);
+        out.writeBoolean(alive);
+    }
+    
+    /**
+     * 从存档快照恢复对象状态，字段顺序与writeSnapshot一致
+     * 
+     * @param in 输入
+     * @throws IOException 读取错误或数据无效
+     */
+    public void readSnapshot(DataInput in) throws IOException {
+        x = in.readDouble();
+        y = in.readDouble();
+        width = in.readInt();
+        height = in.readInt();
+        direction = readEnum(in, Direction.values());
+        speed = in.readDouble();
+        alive = in.readBoolean();
+    }
+    
+    /**
+     * 读取以序号保存的枚举值
+     * 
+     * @param in 输入
+     * @param values 枚举的所有值
+     * @return 枚举值
+     * @throws IOException 序号超出范围
+     */
+    protected static <E extends Enum<E>> E readEnum(DataInput in, E[] values) throws IOException {
+        int ordinal = in.readUnsignedByte();
+        if (ordinal >= values.length) {
+            throw new IOException("无效的" + values[0].getDeclaringClass().getSimpleName() + "序号: " + ordinal);
+        }
+        return values[ordinal];
+    }
+    
     // Getter 和 Setter 方法
     
     public double getX() {
@@ -1,5 +1,9 @@
 package com.tankbattle.model.entity;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
 import com.tankbattle.model.enums.Direction;
 import com.tankbattle.model.enums.ItemType;
 
@@ -10,6 +14,9 @@ import com.tankbattle.model.enums.ItemType;
  */
 public class Item extends GameObject {
     
+    // 道具默认尺寸
+    public static final int SIZE = 30;
+    
     // 道具类型
     protected ItemType type;
     
@@ -32,8 +39,8 @@ public class Item extends GameObject {
     public Item(double x, double y, ItemType type) {
         super(x, y, Direction.UP); // 道具没有方向，使用默认值
         this.type = type;
-        this.width = 30; // 道具默认宽度
-        this.height = 30; // 道具默认高度
+        this.width = SIZE; // 道具默认宽度
+        this.height = SIZE; // 道具默认高度
         this.remainingDisplayTime = MAX_DISPLAY_TIME;
         
         // 根据道具类型设置持续时间
@@ -100,6 +107,22 @@ public class Item extends GameObject {
         return true;
     }
     
+    @Override
+    public void writeSnapshot(DataOutput out) throws IOException {
+        super.writeSnapshot(out);
+        out.writeByte(type.ordinal());
+        out.writeDouble(duration);
+        out.writeDouble(remainingDisplayTime);
+    }
+    
+    @Override
+    public void readSnapshot(DataInput in) throws IOException {
+        super.readSnapshot(in);
+        type = readEnum(in, ItemType.values());
+        duration = in.readDouble();
+        remainingDisplayTime = in.readDouble();
+    }
+    
     // Getter和Setter方法
     
     public ItemType getType() {
@@ -1,5 +1,9 @@
 package com.tankbattle.model.entity;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
 import com.tankbattle.model.enums.Direction;
 
 /**
@@ -183,6 +187,36 @@ public class PlayerTank extends Tank {
         this.lives++;
     }
     
+    @Override
+    public void writeSnapshot(DataOutput out) throws IOException {
+        super.writeSnapshot(out);
+        out.writeInt(lives);
+        out.writeBoolean(invincible);
+        out.writeDouble(invincibleTime);
+        out.writeBoolean(hasShield);
+        out.writeDouble(shieldTime);
+        out.writeBoolean(hasSpeedBoost);
+        out.writeDouble(speedBoostTime);
+        out.writeDouble(normalSpeed);
+        out.writeBoolean(hasPowerUp);
+        out.writeDouble(powerUpTime);
+    }
+    
+    @Override
+    public void readSnapshot(DataInput in) throws IOException {
+        super.readSnapshot(in);
+        lives = in.readInt();
+        invincible = in.readBoolean();
+        invincibleTime = in.readDouble();
+        hasShield = in.readBoolean();
+        shieldTime = in.readDouble();
+        hasSpeedBoost = in.readBoolean();
+        speedBoostTime = in.readDouble();
+        normalSpeed = in.readDouble();
+        hasPowerUp = in.readBoolean();
+        powerUpTime = in.readDouble();
+    }
+    
     // Getter 和 Setter 方法
     
     public int getLives() {
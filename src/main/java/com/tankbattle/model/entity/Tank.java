@@ -1,6 +1,11 @@
 package com.tankbattle.model.entity;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
 import com.tankbattle.model.enums.Direction;
+import com.tankbattle.model.enums.TerrainType;
 
 /**
  * 坦克基类，继承自GameObject
@@ -23,9 +28,19 @@ public abstract class Tank extends GameObject {
     protected double acceleration; // 加速度
     protected double deceleration; // 减速度
     
-    // 游戏区域宽高（用于边界检查）
-    private static final int GAME_WIDTH = 800;
-    private static final int GAME_HEIGHT = 600;
+    // 冰面上的减速度比例，松开按键后会滑行更远
+    private static final double ICE_DECELERATION_FACTOR = 0.25;
+    
+    // 坦克所在格子的地形，由GameModel在每帧更新前设置
+    protected TerrainType terrain = TerrainType.NONE;
+    
+    // 默认世界宽高（用于边界检查）
+    private static final int DEFAULT_WORLD_WIDTH = 800;
+    private static final int DEFAULT_WORLD_HEIGHT = 600;
+    
+    // 当前地图的世界宽高，由GameModel在加载关卡时设置
+    protected int worldWidth = DEFAULT_WORLD_WIDTH;
+    protected int worldHeight = DEFAULT_WORLD_HEIGHT;
     
     /**
      * 构造函数
@@ -61,8 +76,10 @@ public abstract class Tank extends GameObject {
                 // 如果正在移动，逐渐加速到最大速度
                 currentSpeed = Math.min(currentSpeed + acceleration * deltaTime, speed);
             } else {
-                // 如果不在移动，逐渐减速到0
-                currentSpeed = Math.max(currentSpeed - deceleration * deltaTime, 0);
+                // 如果不在移动，逐渐减速到0，冰面上减速更慢
+                double currentDeceleration = terrain == TerrainType.ICE
+                        ? deceleration * ICE_DECELERATION_FACTOR : deceleration;
+                currentSpeed = Math.max(currentSpeed - currentDeceleration * deltaTime, 0);
             }
             
             // 只要还有速度，就继续移动（即使已经停止按键）
@@ -94,8 +111,8 @@ public abstract class Tank extends GameObject {
             newX = 0;
             // 撞墙时减速
             currentSpeed *= 0.8;
-        } else if (newX > GAME_WIDTH - width) {
-            newX = GAME_WIDTH - width;
+        } else if (newX > worldWidth - width) {
+            newX = worldWidth - width;
             // 撞墙时减速
             currentSpeed *= 0.8;
         }
@@ -104,8 +121,8 @@ public abstract class Tank extends GameObject {
             newY = 0;
             // 撞墙时减速
             currentSpeed *= 0.8;
-        } else if (newY > GAME_HEIGHT - height) {
-            newY = GAME_HEIGHT - height;
+        } else if (newY > worldHeight - height) {
+            newY = worldHeight - height;
             // 撞墙时减速
             currentSpeed *= 0.8;
         }
@@ -115,6 +132,30 @@ public abstract class Tank extends GameObject {
         y = newY;
     }
     
+    /**
+     * 设置世界边界
+     * 
+     * @param worldWidth 世界宽度
+     * @param worldHeight 世界高度
+     */
+    public void setWorldBounds(int worldWidth, int worldHeight) {
+        this.worldWidth = worldWidth;
+        this.worldHeight = worldHeight;
+    }
+    
+    /**
+     * 设置坦克所在格子的地形
+     * 
+     * @param terrain 地形类型
+     */
+    public void setTerrain(TerrainType terrain) {
+        this.terrain = terrain;
+    }
+    
+    public TerrainType getTerrain() {
+        return terrain;
+    }
+    
     /**
      * 碰撞处理
      * 重写父类的方法，添加更合理的碰撞响应
@@ -143,14 +184,14 @@ public abstract class Tank extends GameObject {
         // 确保坦克不会移出游戏区域
         if (x < 0) {
             x = 0;
-        } else if (x > GAME_WIDTH - width) {
-            x = GAME_WIDTH - width;
+        } else if (x > worldWidth - width) {
+            x = worldWidth - width;
         }
         
         if (y < 0) {
             y = 0;
-        } else if (y > GAME_HEIGHT - height) {
-            y = GAME_HEIGHT - height;
+        } else if (y > worldHeight - height) {
+            y = worldHeight - height;
         }
     }
     
@@ -209,6 +250,36 @@ public abstract class Tank extends GameObject {
         }
     }
     
+    @Override
+    public void writeSnapshot(DataOutput out) throws IOException {
+        super.writeSnapshot(out);
+        out.writeInt(health);
+        out.writeBoolean(moving);
+        out.writeDouble(shootCooldown);
+        out.writeDouble(currentCooldown);
+        out.writeDouble(currentSpeed);
+        out.writeDouble(acceleration);
+        out.writeDouble(deceleration);
+        out.writeByte(terrain.ordinal());
+        out.writeInt(worldWidth);
+        out.writeInt(worldHeight);
+    }
+    
+    @Override
+    public void readSnapshot(DataInput in) throws IOException {
+        super.readSnapshot(in);
+        health = in.readInt();
+        moving = in.readBoolean();
+        shootCooldown = in.readDouble();
+        currentCooldown = in.readDouble();
+        currentSpeed = in.readDouble();
+        acceleration = in.readDouble();
+        deceleration = in.readDouble();
+        terrain = readEnum(in, TerrainType.values());
+        worldWidth = in.readInt();
+        worldHeight = in.readInt();
+    }
+    
     // Getter 和 Setter 方法
     
     public boolean isMoving() {
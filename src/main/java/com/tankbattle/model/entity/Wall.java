@@ -1,5 +1,9 @@
 package com.tankbattle.model.entity;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
 import com.tankbattle.model.enums.Direction;
 
 /**
@@ -11,6 +15,9 @@ public abstract class Wall extends GameObject {
     // 墙体是否可摧毁
     protected boolean destructible;
     
+    // 是否由多个相邻格子合并而成，被击中时只摧毁击中的格子
+    protected boolean merged;
+    
     /**
      * 构造函数
      * 
@@ -41,6 +48,34 @@ public abstract class Wall extends GameObject {
         // 墙体不需要处理碰撞，它不会移动
     }
     
+    /**
+     * 检查矩形是否与墙体的实心部分相交（调用前已确认与墙体矩形相交）
+     * 完整的墙体整个矩形都是实心的，被削去部分的砖墙只检查剩余部分
+     * 
+     * @param objX 矩形X坐标
+     * @param objY 矩形Y坐标
+     * @param objWidth 矩形宽度
+     * @param objHeight 矩形高度
+     * @return 是否与实心部分相交
+     */
+    public boolean overlapsSolid(double objX, double objY, double objWidth, double objHeight) {
+        return true;
+    }
+    
+    @Override
+    public void writeSnapshot(DataOutput out) throws IOException {
+        super.writeSnapshot(out);
+        out.writeBoolean(destructible);
+        out.writeBoolean(merged);
+    }
+    
+    @Override
+    public void readSnapshot(DataInput in) throws IOException {
+        super.readSnapshot(in);
+        destructible = in.readBoolean();
+        merged = in.readBoolean();
+    }
+    
     // Getter 和 Setter 方法
     
     public boolean isDestructible() {
@@ -50,4 +85,12 @@ public abstract class Wall extends GameObject {
     public void setDestructible(boolean destructible) {
         this.destructible = destructible;
     }
+    
+    public boolean isMerged() {
+        return merged;
+    }
+    
+    public void setMerged(boolean merged) {
+        this.merged = merged;
+    }
 }
\ No newline at end of file
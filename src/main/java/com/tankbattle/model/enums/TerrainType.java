@@ -0,0 +1,92 @@
+package com.tankbattle.model.enums;
+
+/**
+ * 地形类型枚举，关卡地形层的每个格子保存一个地形编码
+ * 
+ * @author Taiyu Jin
+ */
+public enum TerrainType {
+    /**
+     * 普通地面
+     */
+    NONE((byte) 0, '.'),
+    
+    /**
+     * 水面，阻挡坦克但不阻挡子弹
+     */
+    WATER((byte) 1, '~'),
+    
+    /**
+     * 冰面，坦克在上面减速更慢
+     */
+    ICE((byte) 2, '-'),
+    
+    /**
+     * 树林，绘制在坦克上方
+     */
+    FOREST((byte) 3, '#');
+    
+    // 按编码查找地形类型
+    private static final TerrainType[] BY_CODE = values();
+    
+    private final byte code;
+    private final char symbol;
+    
+    TerrainType(byte code, char symbol) {
+        this.code = code;
+        this.symbol = symbol;
+    }
+    
+    /**
+     * 获取地形在格子数组中的编码
+     * 
+     * @return 地形编码
+     */
+    public byte getCode() {
+        return code;
+    }
+    
+    /**
+     * 获取地形在关卡JSON行字符串中的字符
+     * 
+     * @return 地形字符
+     */
+    public char getSymbol() {
+        return symbol;
+    }
+    
+    /**
+     * 地形是否阻挡坦克
+     * 
+     * @return 是否阻挡坦克
+     */
+    public boolean blocksTanks() {
+        return this == WATER;
+    }
+    
+    /**
+     * 根据编码获取地形类型，未知编码视为普通地面
+     * 
+     * @param code 地形编码
+     * @return 地形类型
+     */
+    public static TerrainType fromCode(byte code) {
+        return code > 0 && code < BY_CODE.length ? BY_CODE[code] : NONE;
+    }
+    
+    /**
+     * 根据关卡JSON中的字符获取地形类型
+     * 
+     * @param symbol 地形字符
+     * @return 地形类型
+     * @throws IllegalArgumentException 未知的地形字符
+     */
+    public static TerrainType fromSymbol(char symbol) {
+        for (TerrainType type : BY_CODE) {
+            if (type.symbol == symbol) {
+                return type;
+            }
+        }
+        throw new IllegalArgumentException("未知的地形字符: '" + symbol + "'");
+    }
+}
@@ -0,0 +1,422 @@
+package com.tankbattle.model.level;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * 二进制关卡格式编解码器（.tblv）
+ *
+ * 文件结构（大端序）：
+ * <pre>
+ * 文件头    魔数"TBLV"、版本号、关卡编号、名称、敌人数量、地图宽高（版本2起）
+ * 网格      格子大小、原点、列数、行数，格子内容按行优先做游程编码
+ * 矩形表    无法放入网格的墙体（尺寸或位置不对齐）
+ * 地形层    是否有地形，地形编码按行优先做游程编码，大小由地图尺寸决定（版本3起）
+ * 出生点    玩家出生点、敌人出生点列表
+ * 附加属性  JSON文本
+ * 校验和    以上所有字节的CRC32
+ * </pre>
+ *
+ * @author Taiyu Jin
+ */
+public class BinaryLevelCodec {
+
+    // 二进制关卡文件扩展名
+    public static final String FILE_EXTENSION = ".tblv";
+
+    private static final int MAGIC = 0x54424C56; // "TBLV"
+    private static final int VERSION = 3;
+    // 仍可读取的最低版本（版本1没有地图尺寸，版本2没有地形层）
+    private static final int MIN_VERSION = 1;
+
+    // 网格格子大小，与游戏的网格一致
+    private static final int TILE_SIZE = 40;
+
+    // 格子类型编码
+    private static final byte TILE_EMPTY = 0;
+    private static final byte TILE_BRICK = 1;
+    private static final byte TILE_STEEL = 2;
+
+    // 单个游程的最大长度
+    private static final int MAX_RUN = 0xFFFF;
+
+    private BinaryLevelCodec() {
+    }
+
+    /**
+     * 将关卡配置编码为二进制数据
+     *
+     * @param level 关卡配置
+     * @return 二进制数据（包含校验和）
+     * @throws IOException 编码错误
+     */
+    public static byte[] encode(LevelConfig level) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+
+        out.writeInt(MAGIC);
+        out.writeShort(VERSION);
+        out.writeInt(level.getLevelNumber());
+        out.writeUTF(level.getLevelName() != null ? level.getLevelName() : "");
+        out.writeInt(level.getEnemyTankCount());
+        out.writeInt(level.hasMapSize() ? level.getMapWidth() : 0);
+        out.writeInt(level.hasMapSize() ? level.getMapHeight() : 0);
+
+        writeWalls(out, level.getWalls() != null ? level.getWalls() : new ArrayList<>());
+
+        out.writeBoolean(level.hasTerrain());
+        if (level.hasTerrain()) {
+            writeRuns(out, level.getTerrain());
+        }
+
+        LevelConfig.PlayerSpawnConfig playerSpawn = level.getPlayerSpawn();
+        out.writeBoolean(playerSpawn != null);
+        if (playerSpawn != null) {
+            out.writeInt(playerSpawn.getX());
+            out.writeInt(playerSpawn.getY());
+        }
+
+        List<LevelConfig.EnemySpawnConfig> enemySpawns =
+                level.getEnemySpawns() != null ? level.getEnemySpawns() : new ArrayList<>();
+        out.writeInt(enemySpawns.size());
+        for (LevelConfig.EnemySpawnConfig spawn : enemySpawns) {
+            out.writeInt(spawn.getX());
+            out.writeInt(spawn.getY());
+        }
+
+        String properties = level.getAdditionalPropertiesJson();
+        out.writeUTF(properties != null ? properties : "");
+        out.flush();
+
+        CRC32 crc = new CRC32();
+        crc.update(bytes.toByteArray());
+        out.writeInt((int) crc.getValue());
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    /**
+     * 从二进制数据解码关卡配置
+     *
+     * @param data 二进制数据
+     * @return 关卡配置
+     * @throws IOException 格式错误或校验失败
+     */
+    public static LevelConfig decode(byte[] data) throws IOException {
+        if (data.length < 8) {
+            throw new IOException("关卡文件过短");
+        }
+
+        CRC32 crc = new CRC32();
+        crc.update(data, 0, data.length - 4);
+        int expected = ((data[data.length - 4] & 0xFF) << 24) | ((data[data.length - 3] & 0xFF) << 16)
+                | ((data[data.length - 2] & 0xFF) << 8) | (data[data.length - 1] & 0xFF);
+        if ((int) crc.getValue() != expected) {
+            throw new IOException("关卡文件校验和不匹配");
+        }
+
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(data, 0, data.length - 4));
+        if (in.readInt() != MAGIC) {
+            throw new IOException("不是有效的二进制关卡文件");
+        }
+        int version = readVersion(in);
+        LevelConfig level = readHeaderFields(in, version);
+        readWalls(in, level);
+
+        if (version >= 3 && in.readBoolean()) {
+            level.setTerrain(readTerrain(in, level));
+        }
+
+        if (in.readBoolean()) {
+            level.setPlayerSpawn(new LevelConfig.PlayerSpawnConfig(in.readInt(), in.readInt()));
+        }
+
+        int enemySpawnCount = in.readInt();
+        List<LevelConfig.EnemySpawnConfig> enemySpawns = new ArrayList<>(enemySpawnCount);
+        for (int i = 0; i < enemySpawnCount; i++) {
+            enemySpawns.add(new LevelConfig.EnemySpawnConfig(in.readInt(), in.readInt()));
+        }
+        level.setEnemySpawns(enemySpawns);
+
+        // 附加属性在访问时才解析
+        String properties = in.readUTF();
+        if (!properties.isEmpty()) {
+            level.setAdditionalPropertiesJson(properties);
+        }
+        return level;
+    }
+
+    /**
+     * 将关卡配置写入二进制文件
+     *
+     * @param level 关卡配置
+     * @param file 目标文件
+     * @throws IOException 写入错误
+     */
+    public static void write(LevelConfig level, File file) throws IOException {
+        try (BufferedOutputStream out = new BufferedOutputStream(Files.newOutputStream(file.toPath()))) {
+            out.write(encode(level));
+        }
+    }
+
+    /**
+     * 从二进制文件读取关卡配置
+     *
+     * @param file 关卡文件
+     * @return 关卡配置
+     * @throws IOException 读取错误、格式错误或校验失败
+     */
+    public static LevelConfig read(File file) throws IOException {
+        try (BufferedInputStream in = new BufferedInputStream(Files.newInputStream(file.toPath()))) {
+            return decode(in.readAllBytes());
+        }
+    }
+
+    /**
+     * 只读取二进制关卡文件头（编号、名称、敌人数量、地图尺寸），不读取墙体和校验和
+     *
+     * @param file 关卡文件
+     * @return 只包含文件头字段的关卡配置
+     * @throws IOException 读取错误或格式错误
+     */
+    public static LevelConfig readHeader(File file) throws IOException {
+        try (InputStream in = Files.newInputStream(file.toPath())) {
+            return readHeader(in);
+        }
+    }
+
+    /**
+     * 从输入流只读取二进制关卡文件头，读到文件头末尾即停止，不关闭输入流
+     *
+     * @param input 关卡数据输入流
+     * @return 只包含文件头字段的关卡配置
+     * @throws IOException 读取错误或格式错误
+     */
+    public static LevelConfig readHeader(InputStream input) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(input));
+        if (in.readInt() != MAGIC) {
+            throw new IOException("不是有效的二进制关卡文件");
+        }
+        return readHeaderFields(in, readVersion(in));
+    }
+
+    /**
+     * 读取并检查魔数之后的版本号
+     */
+    private static int readVersion(DataInputStream in) throws IOException {
+        int version = in.readUnsignedShort();
+        if (version < MIN_VERSION || version > VERSION) {
+            throw new IOException("不支持的关卡文件版本: " + version);
+        }
+        return version;
+    }
+
+    /**
+     * 读取版本号之后的文件头字段
+     */
+    private static LevelConfig readHeaderFields(DataInputStream in, int version) throws IOException {
+        LevelConfig level = new LevelConfig();
+        level.setLevelNumber(in.readInt());
+        level.setLevelName(in.readUTF());
+        level.setEnemyTankCount(in.readInt());
+        if (version >= 2) {
+            level.setMapWidth(in.readInt());
+            level.setMapHeight(in.readInt());
+        }
+        return level;
+    }
+
+    /**
+     * 写入墙体：对齐网格的墙体写入游程编码的网格，其余写入矩形表
+     */
+    private static void writeWalls(DataOutputStream out, List<LevelConfig.WallConfig> walls) throws IOException {
+        // 以最多墙体对齐的位置作为网格原点
+        int originX = mostCommonOffset(walls, true);
+        int originY = mostCommonOffset(walls, false);
+
+        int maxX = originX;
+        int maxY = originY;
+        for (LevelConfig.WallConfig wall : walls) {
+            if (isGridWall(wall, originX, originY)) {
+                maxX = Math.max(maxX, wall.getX() + TILE_SIZE);
+                maxY = Math.max(maxY, wall.getY() + TILE_SIZE);
+            }
+        }
+        int cols = (maxX - originX) / TILE_SIZE;
+        int rows = (maxY - originY) / TILE_SIZE;
+
+        byte[] tiles = new byte[cols * rows];
+        List<LevelConfig.WallConfig> rects = new ArrayList<>();
+        for (LevelConfig.WallConfig wall : walls) {
+            if (isGridWall(wall, originX, originY)) {
+                int index = (wall.getY() - originY) / TILE_SIZE * cols + (wall.getX() - originX) / TILE_SIZE;
+                if (tiles[index] == TILE_EMPTY) {
+                    tiles[index] = tileCode(wall.getType());
+                    continue;
+                }
+            }
+            // 不对齐、类型未知或与已有格子重叠的墙体保留为矩形
+            rects.add(wall);
+        }
+
+        out.writeShort(TILE_SIZE);
+        out.writeInt(originX);
+        out.writeInt(originY);
+        out.writeShort(cols);
+        out.writeShort(rows);
+        writeRuns(out, tiles);
+
+        out.writeInt(rects.size());
+        for (LevelConfig.WallConfig wall : rects) {
+            out.writeInt(wall.getX());
+            out.writeInt(wall.getY());
+            out.writeInt(wall.getWidth());
+            out.writeInt(wall.getHeight());
+            out.writeUTF(wall.getType() != null ? wall.getType() : "");
+        }
+    }
+
+    /**
+     * 游程编码写出格子数组：游程数，然后每个游程为类型 + 长度
+     */
+    private static void writeRuns(DataOutputStream out, byte[] cells) throws IOException {
+        List<int[]> runs = new ArrayList<>();
+        int i = 0;
+        while (i < cells.length) {
+            byte type = cells[i];
+            int length = 1;
+            while (i + length < cells.length && cells[i + length] == type && length < MAX_RUN) {
+                length++;
+            }
+            runs.add(new int[] {type, length});
+            i += length;
+        }
+        out.writeInt(runs.size());
+        for (int[] run : runs) {
+            out.writeByte(run[0]);
+            out.writeShort(run[1]);
+        }
+    }
+
+    /**
+     * 读取游程编码的地形层，格子数由地图尺寸决定
+     */
+    private static byte[] readTerrain(DataInputStream in, LevelConfig level) throws IOException {
+        byte[] terrain = new byte[level.getTerrainColumns() * level.getTerrainRows()];
+        int runCount = in.readInt();
+        int index = 0;
+        for (int r = 0; r < runCount; r++) {
+            byte type = in.readByte();
+            int length = in.readUnsignedShort();
+            if (index + length > terrain.length) {
+                throw new IOException("关卡地形数据越界");
+            }
+            Arrays.fill(terrain, index, index + length, type);
+            index += length;
+        }
+        return terrain;
+    }
+
+    /**
+     * 读取墙体，直接写入关卡配置的紧凑墙体数据
+     */
+    private static void readWalls(DataInputStream in, LevelConfig level) throws IOException {
+        int tileSize = in.readUnsignedShort();
+        int originX = in.readInt();
+        int originY = in.readInt();
+        int cols = in.readUnsignedShort();
+        int rows = in.readUnsignedShort();
+
+        int runCount = in.readInt();
+        int index = 0;
+        for (int r = 0; r < runCount; r++) {
+            byte type = in.readByte();
+            int length = in.readUnsignedShort();
+            if (index + length > cols * rows) {
+                throw new IOException("关卡网格数据越界");
+            }
+            if (type != TILE_EMPTY) {
+                String typeName = tileType(type);
+                for (int k = index; k < index + length; k++) {
+                    level.addCompactWall(originX + (k % cols) * tileSize,
+                            originY + (k / cols) * tileSize, tileSize, tileSize, typeName);
+                }
+            }
+            index += length;
+        }
+
+        int rectCount = in.readInt();
+        for (int r = 0; r < rectCount; r++) {
+            int x = in.readInt();
+            int y = in.readInt();
+            int width = in.readInt();
+            int height = in.readInt();
+            String type = in.readUTF();
+            level.addCompactWall(x, y, width, height, type.isEmpty() ? null : type);
+        }
+    }
+
+    /**
+     * 统计墙体坐标对格子大小取模后最常见的偏移
+     */
+    private static int mostCommonOffset(List<LevelConfig.WallConfig> walls, boolean horizontal) {
+        int[] counts = new int[TILE_SIZE];
+        for (LevelConfig.WallConfig wall : walls) {
+            int value = horizontal ? wall.getX() : wall.getY();
+            counts[Math.floorMod(value, TILE_SIZE)]++;
+        }
+        int best = 0;
+        for (int i = 1; i < TILE_SIZE; i++) {
+            if (counts[i] > counts[best]) {
+                best = i;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * 检查墙体能否放入网格
+     */
+    private static boolean isGridWall(LevelConfig.WallConfig wall, int originX, int originY) {
+        return wall.getWidth() == TILE_SIZE && wall.getHeight() == TILE_SIZE
+                && wall.getX() >= originX && wall.getY() >= originY
+                && (wall.getX() - originX) % TILE_SIZE == 0
+                && (wall.getY() - originY) % TILE_SIZE == 0
+                && (wall.getX() - originX) / TILE_SIZE < MAX_RUN
+                && (wall.getY() - originY) / TILE_SIZE < MAX_RUN
+                && tileCode(wall.getType()) != TILE_EMPTY;
+    }
+
+    private static byte tileCode(String type) {
+        if ("brick".equals(type)) {
+            return TILE_BRICK;
+        }
+        if ("steel".equals(type)) {
+            return TILE_STEEL;
+        }
+        return TILE_EMPTY;
+    }
+
+    private static String tileType(byte code) throws IOException {
+        switch (code) {
+            case TILE_BRICK:
+                return "brick";
+            case TILE_STEEL:
+                return "steel";
+            default:
+                throw new IOException("未知的格子类型: " + code);
+        }
+    }
+}
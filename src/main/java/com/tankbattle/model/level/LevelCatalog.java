@@ -0,0 +1,482 @@
+package com.tankbattle.model.level;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import com.tankbattle.model.ContentPack;
+
+/**
+ * 关卡目录索引
+ * 只记录每个关卡文件的编号、名称、路径、大小、修改时间和内容哈希，
+ * 索引持久化在关卡目录中，启动时只重新读取发生变化的文件头，
+ * 完整的关卡配置在需要时才由LevelManager解析。
+ * 从内容包建立的索引直接使用zip中央目录中的大小、时间和CRC32，不写索引文件
+ *
+ * @author Taiyu Jin
+ */
+public class LevelCatalog {
+
+    // 索引文件名（不使用.json扩展名，避免被当作关卡文件）
+    public static final String INDEX_FILE_NAME = "catalog.idx";
+
+    private static final int INDEX_VERSION = 1;
+
+    private final File directory;
+    // 内容包，从目录建立索引时为null
+    private final ContentPack pack;
+    private final List<Entry> entries = new ArrayList<>();
+
+    /**
+     * 关卡目录中的一个条目
+     */
+    public static class Entry {
+        private final int levelNumber;
+        private final String levelName;
+        private final String fileName;
+        private final long size;
+        private final long lastModified;
+        private final long hash;
+
+        Entry(int levelNumber, String levelName, String fileName, long size, long lastModified, long hash) {
+            this.levelNumber = levelNumber;
+            this.levelName = levelName;
+            this.fileName = fileName;
+            this.size = size;
+            this.lastModified = lastModified;
+            this.hash = hash;
+        }
+
+        public int getLevelNumber() {
+            return levelNumber;
+        }
+
+        public String getLevelName() {
+            return levelName;
+        }
+
+        public String getFileName() {
+            return fileName;
+        }
+
+        public long getSize() {
+            return size;
+        }
+
+        public long getLastModified() {
+            return lastModified;
+        }
+
+        public long getHash() {
+            return hash;
+        }
+    }
+
+    /**
+     * 构造函数
+     *
+     * @param directory 关卡目录
+     */
+    public LevelCatalog(File directory) {
+        this.directory = directory;
+        this.pack = null;
+    }
+
+    /**
+     * 根据内容包中的关卡条目建立索引
+     *
+     * @param pack 内容包
+     */
+    public LevelCatalog(ContentPack pack) {
+        this.directory = null;
+        this.pack = pack;
+    }
+
+    /**
+     * 读取持久化索引并根据目录内容增量刷新
+     * 大小和修改时间都未变化的文件直接沿用索引记录；
+     * 发生变化的文件先比较内容哈希，哈希不同时才重新读取文件头
+     *
+     * @return 刷新后条目是否有变化
+     */
+    public synchronized boolean refresh() {
+        if (pack != null) {
+            return refreshFromPack();
+        }
+
+        Map<String, Entry> previous = new HashMap<>();
+        for (Entry entry : readIndex()) {
+            previous.put(entry.fileName, entry);
+        }
+
+        List<Entry> refreshed = new ArrayList<>();
+        boolean changed = false;
+        for (File file : LevelLoader.listLevelFiles(directory)) {
+            Entry old = previous.remove(file.getName());
+            Entry entry = refreshEntry(file, old);
+            if (entry != null) {
+                refreshed.add(entry);
+            }
+            changed |= entry != old;
+        }
+        changed |= !previous.isEmpty();
+
+        refreshed.sort((a, b) -> Integer.compare(a.levelNumber, b.levelNumber));
+        entries.clear();
+        entries.addAll(refreshed);
+
+        if (changed) {
+            writeIndex();
+        }
+        return changed;
+    }
+
+    /**
+     * 只刷新一个关卡文件对应的条目，用于文件变化通知
+     * 同名的JSON和二进制文件视为同一个关卡
+     *
+     * @param fileName 发生变化的文件名
+     * @return 刷新后的条目，文件已删除或读取失败时返回null
+     */
+    public synchronized Entry refreshFile(String fileName) {
+        if (pack != null) {
+            // 内容包是只读的，挂载后不会变化
+            return null;
+        }
+
+        int dot = fileName.lastIndexOf('.');
+        String baseName = dot > 0 ? fileName.substring(0, dot) : fileName;
+
+        Entry old = null;
+        for (int i = 0; i < entries.size(); i++) {
+            String entryName = entries.get(i).fileName;
+            if (entryName.substring(0, entryName.lastIndexOf('.')).equals(baseName)) {
+                old = entries.remove(i);
+                break;
+            }
+        }
+
+        File file = LevelLoader.preferredLevelFile(directory, baseName);
+        Entry entry = null;
+        if (file != null) {
+            entry = refreshEntry(file, old != null && old.fileName.equals(file.getName()) ? old : null);
+        }
+        if (entry != null) {
+            entries.add(entry);
+            entries.sort((a, b) -> Integer.compare(a.levelNumber, b.levelNumber));
+        }
+        if (entry != old) {
+            writeIndex();
+        }
+        return entry;
+    }
+
+    /**
+     * 获取按关卡编号排序的条目
+     *
+     * @return 条目列表副本
+     */
+    public synchronized List<Entry> getEntries() {
+        return new ArrayList<>(entries);
+    }
+
+    /**
+     * 获取条目对应的关卡文件
+     *
+     * @param entry 条目
+     * @return 关卡文件
+     */
+    public File getFile(Entry entry) {
+        return new File(directory, entry.fileName);
+    }
+
+    /**
+     * 获取内容包，从目录建立索引时返回null
+     *
+     * @return 内容包
+     */
+    public ContentPack getPack() {
+        return pack;
+    }
+
+    /**
+     * 加载条目对应的完整关卡配置，二进制关卡损坏时回退到同名JSON关卡
+     *
+     * @param entry 条目
+     * @return 关卡配置，加载失败时返回null
+     */
+    public LevelConfig loadLevel(Entry entry) {
+        if (pack != null) {
+            return LevelLoader.loadLevelOrFallback(pack, ContentPack.LEVELS_DIRECTORY + "/" + entry.fileName);
+        }
+        return LevelLoader.loadLevelOrFallback(getFile(entry));
+    }
+
+    /**
+     * 根据内容包的条目索引建立关卡索引，只解压读取每个关卡的文件头
+     *
+     * @return 条目是否有变化
+     */
+    private boolean refreshFromPack() {
+        Map<String, Entry> previous = new HashMap<>();
+        for (Entry entry : entries) {
+            previous.put(entry.fileName, entry);
+        }
+
+        List<Entry> refreshed = new ArrayList<>();
+        boolean changed = false;
+        for (ContentPack.Entry packEntry : LevelLoader.listLevelEntries(pack)) {
+            String path = packEntry.getPath();
+            String fileName = path.substring(path.lastIndexOf('/') + 1);
+            Entry old = previous.remove(fileName);
+            Entry entry = old;
+            if (old == null || old.hash != packEntry.getCrc()) {
+                try (InputStream in = pack.open(path)) {
+                    LevelConfig header = readHeader(fileName, in);
+                    entry = new Entry(header.getLevelNumber(), header.getLevelName(), fileName,
+                            packEntry.getSize(), packEntry.getLastModified(), packEntry.getCrc());
+                } catch (Exception e) {
+                    System.err.println("读取关卡文件头失败: " + path + ", 错误: " + e.getMessage());
+                    entry = null;
+                }
+            }
+            if (entry != null) {
+                refreshed.add(entry);
+            }
+            changed |= entry != old;
+        }
+        changed |= !previous.isEmpty();
+
+        refreshed.sort((a, b) -> Integer.compare(a.levelNumber, b.levelNumber));
+        entries.clear();
+        entries.addAll(refreshed);
+        return changed;
+    }
+
+    /**
+     * 刷新单个文件的条目
+     *
+     * @param file 关卡文件
+     * @param old 索引中的旧条目，可能为null
+     * @return 新条目（未变化时返回旧条目），读取失败时返回null
+     */
+    private Entry refreshEntry(File file, Entry old) {
+        long size = file.length();
+        long lastModified = file.lastModified();
+        if (old != null && old.size == size && old.lastModified == lastModified) {
+            return old;
+        }
+
+        try {
+            long hash = hashFile(file);
+            if (old != null && old.hash == hash) {
+                // 内容未变（例如只是被touch），只更新文件属性
+                return new Entry(old.levelNumber, old.levelName, old.fileName, size, lastModified, hash);
+            }
+            LevelConfig header = readHeader(file);
+            return new Entry(header.getLevelNumber(), header.getLevelName(), file.getName(),
+                    size, lastModified, hash);
+        } catch (Exception e) {
+            System.err.println("读取关卡文件头失败: " + file.getName() + ", 错误: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 只读取关卡文件头中的编号和名称
+     *
+     * @param file 关卡文件
+     * @return 只包含文件头字段的关卡配置
+     * @throws IOException 读取错误
+     */
+    static LevelConfig readHeader(File file) throws IOException {
+        try (InputStream in = Files.newInputStream(file.toPath())) {
+            return readHeader(file.getName(), in);
+        }
+    }
+
+    /**
+     * 从输入流只读取关卡文件头中的编号和名称，根据文件名的扩展名选择格式
+     *
+     * @param fileName 关卡文件名
+     * @param in 关卡数据输入流，由调用者关闭
+     * @return 只包含文件头字段的关卡配置
+     * @throws IOException 读取错误
+     */
+    static LevelConfig readHeader(String fileName, InputStream in) throws IOException {
+        if (fileName.toLowerCase().endsWith(BinaryLevelCodec.FILE_EXTENSION)) {
+            return BinaryLevelCodec.readHeader(in);
+        }
+
+        LevelConfig header = new LevelConfig();
+        boolean hasNumber = false;
+        boolean hasName = false;
+        try {
+            JsonReader reader = new JsonReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+            reader.beginObject();
+            // 读到编号和名称后立即停止，不解析墙体等其余字段
+            while (reader.hasNext() && !(hasNumber && hasName)) {
+                String name = reader.nextName();
+                if ("levelNumber".equals(name) && reader.peek() == JsonToken.NUMBER) {
+                    header.setLevelNumber(reader.nextInt());
+                    hasNumber = true;
+                } else if ("levelName".equals(name) && reader.peek() == JsonToken.STRING) {
+                    header.setLevelName(reader.nextString());
+                    hasName = true;
+                } else {
+                    reader.skipValue();
+                }
+            }
+        } catch (IllegalStateException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+        return header;
+    }
+
+    /**
+     * 计算文件内容的CRC32
+     */
+    private static long hashFile(File file) throws IOException {
+        CRC32 crc = new CRC32();
+        byte[] buffer = new byte[8192];
+        try (InputStream in = Files.newInputStream(file.toPath())) {
+            int read;
+            while ((read = in.read(buffer)) > 0) {
+                crc.update(buffer, 0, read);
+            }
+        }
+        return crc.getValue();
+    }
+
+    /**
+     * 读取持久化索引，不存在或损坏时返回空列表
+     */
+    private List<Entry> readIndex() {
+        List<Entry> result = new ArrayList<>();
+        File indexFile = new File(directory, INDEX_FILE_NAME);
+        if (!indexFile.exists()) {
+            return result;
+        }
+
+        try (BufferedReader in = Files.newBufferedReader(indexFile.toPath(), StandardCharsets.UTF_8);
+             JsonReader reader = new JsonReader(in)) {
+            reader.beginObject();
+            while (reader.hasNext()) {
+                String name = reader.nextName();
+                if ("version".equals(name)) {
+                    if (reader.nextInt() != INDEX_VERSION) {
+                        return new ArrayList<>();
+                    }
+                } else if ("levels".equals(name)) {
+                    reader.beginArray();
+                    while (reader.hasNext()) {
+                        result.add(readEntry(reader));
+                    }
+                    reader.endArray();
+                } else {
+                    reader.skipValue();
+                }
+            }
+            reader.endObject();
+        } catch (Exception e) {
+            System.err.println("关卡索引损坏，将重新建立: " + e.getMessage());
+            return new ArrayList<>();
+        }
+        return result;
+    }
+
+    private static Entry readEntry(JsonReader reader) throws IOException {
+        int levelNumber = 0;
+        String levelName = null;
+        String fileName = null;
+        long size = -1;
+        long lastModified = -1;
+        long hash = -1;
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "number":
+                    levelNumber = reader.nextInt();
+                    break;
+                case "name":
+                    if (reader.peek() == JsonToken.NULL) {
+                        reader.nextNull();
+                    } else {
+                        levelName = reader.nextString();
+                    }
+                    break;
+                case "file":
+                    fileName = reader.nextString();
+                    break;
+                case "size":
+                    size = reader.nextLong();
+                    break;
+                case "mtime":
+                    lastModified = reader.nextLong();
+                    break;
+                case "crc":
+                    hash = reader.nextLong();
+                    break;
+                default:
+                    reader.skipValue();
+                    break;
+            }
+        }
+        reader.endObject();
+
+        if (fileName == null) {
+            throw new IOException("关卡索引条目缺少文件名");
+        }
+        return new Entry(levelNumber, levelName, fileName, size, lastModified, hash);
+    }
+
+    /**
+     * 写入持久化索引：先写临时文件再替换，避免中途失败留下损坏的索引
+     */
+    private void writeIndex() {
+        if (!directory.isDirectory()) {
+            return;
+        }
+        File indexFile = new File(directory, INDEX_FILE_NAME);
+        File tempFile = new File(directory, INDEX_FILE_NAME + ".tmp");
+        try {
+            try (BufferedWriter out = Files.newBufferedWriter(tempFile.toPath(), StandardCharsets.UTF_8);
+                 JsonWriter writer = new JsonWriter(out)) {
+                writer.beginObject();
+                writer.name("version").value(INDEX_VERSION);
+                writer.name("levels").beginArray();
+                for (Entry entry : entries) {
+                    writer.beginObject();
+                    writer.name("number").value(entry.levelNumber);
+                    writer.name("name").value(entry.levelName);
+                    writer.name("file").value(entry.fileName);
+                    writer.name("size").value(entry.size);
+                    writer.name("mtime").value(entry.lastModified);
+                    writer.name("crc").value(entry.hash);
+                    writer.endObject();
+                }
+                writer.endArray();
+                writer.endObject();
+            }
+            Files.move(tempFile.toPath(), indexFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            System.err.println("保存关卡索引失败: " + e.getMessage());
+            tempFile.delete();
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package com.tankbattle.model.level;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * 关卡编译器，将JSON关卡编译为二进制关卡文件（.tblv）
+ *
+ * 用法: java -cp TankBattle.jar com.tankbattle.model.level.LevelCompiler [关卡目录]
+ *
+ * 编译后的文件与JSON文件放在同一目录，LevelLoader会优先加载二进制文件。
+ * 加载性能的对比测试见测试源码中的LevelLoadBenchmark。
+ *
+ * @author Taiyu Jin
+ */
+public class LevelCompiler {
+
+    private LevelCompiler() {
+    }
+
+    /**
+     * 命令行入口
+     *
+     * @param args 命令行参数
+     */
+    public static void main(String[] args) {
+        String directory = args.length > 0 ? args[0] : "levels";
+        if (compileDirectory(new File(directory)).isEmpty()) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * 编译目录中的所有JSON关卡
+     *
+     * @param dir 关卡目录
+     * @return 成功编译的JSON文件列表
+     */
+    public static List<File> compileDirectory(File dir) {
+        List<File> compiled = new ArrayList<>();
+        File[] files = dir.listFiles((d, name) -> name.toLowerCase().endsWith(".json"));
+        if (files == null || files.length == 0) {
+            System.err.println("关卡目录中没有JSON文件: " + dir.getPath());
+            return compiled;
+        }
+
+        for (File json : files) {
+            try {
+                File binary = compile(json);
+                System.out.println("已编译: " + json.getName() + " (" + json.length() + " 字节) -> "
+                        + binary.getName() + " (" + binary.length() + " 字节)");
+                compiled.add(json);
+            } catch (Exception e) {
+                System.err.println("编译关卡失败: " + json.getName() + ", 错误: " + e.getMessage());
+            }
+        }
+        return compiled;
+    }
+
+    /**
+     * 编译单个JSON关卡，并校验二进制文件能还原出相同的关卡
+     *
+     * @param json JSON关卡文件
+     * @return 生成的二进制文件
+     * @throws IOException 读取、写入或校验失败
+     */
+    public static File compile(File json) throws IOException {
+        LevelConfig level = LevelLoader.loadLevelFromJson(json.getAbsolutePath());
+        String name = json.getName();
+        File binary = new File(json.getParentFile(), name.substring(0, name.lastIndexOf('.'))
+                + BinaryLevelCodec.FILE_EXTENSION);
+        BinaryLevelCodec.write(level, binary);
+
+        verifyRoundTrip(level, BinaryLevelCodec.read(binary));
+        return binary;
+    }
+
+    /**
+     * 校验解码得到的关卡与源关卡完全一致
+     * 二进制格式会把对齐网格的墙体按格子重新排列，所以墙体按位置排序后逐个比较
+     *
+     * @param expected 源关卡
+     * @param actual 解码得到的关卡
+     * @throws IOException 存在不一致的字段，消息中给出第一个不一致的字段
+     */
+    static void verifyRoundTrip(LevelConfig expected, LevelConfig actual) throws IOException {
+        check("levelNumber", expected.getLevelNumber(), actual.getLevelNumber());
+        check("levelName", text(expected.getLevelName()), text(actual.getLevelName()));
+        check("enemyTankCount", expected.getEnemyTankCount(), actual.getEnemyTankCount());
+        check("hasMapSize", expected.hasMapSize(), actual.hasMapSize());
+        check("mapWidth", expected.getMapWidth(), actual.getMapWidth());
+        check("mapHeight", expected.getMapHeight(), actual.getMapHeight());
+
+        check("playerSpawn", spawn(expected.getPlayerSpawn()), spawn(actual.getPlayerSpawn()));
+        List<LevelConfig.EnemySpawnConfig> expectedSpawns = expected.getEnemySpawns();
+        List<LevelConfig.EnemySpawnConfig> actualSpawns = actual.getEnemySpawns();
+        check("enemySpawns.size", expectedSpawns.size(), actualSpawns.size());
+        for (int i = 0; i < expectedSpawns.size(); i++) {
+            LevelConfig.EnemySpawnConfig e = expectedSpawns.get(i);
+            LevelConfig.EnemySpawnConfig a = actualSpawns.get(i);
+            check("enemySpawns[" + i + "]", e.getX() + "," + e.getY(), a.getX() + "," + a.getY());
+        }
+
+        check("hasTerrain", expected.hasTerrain(), actual.hasTerrain());
+        if (expected.hasTerrain()) {
+            byte[] e = expected.getTerrain();
+            byte[] a = actual.getTerrain();
+            check("terrain.length", e.length, a.length);
+            int i = Arrays.mismatch(e, a);
+            if (i >= 0) {
+                int cols = expected.getTerrainColumns();
+                check("terrain[" + (i % cols) + "," + (i / cols) + "]", e[i], a[i]);
+            }
+        }
+
+        check("wallCount", expected.getWallCount(), actual.getWallCount());
+        Integer[] e = sortedWalls(expected);
+        Integer[] a = sortedWalls(actual);
+        for (int i = 0; i < e.length; i++) {
+            check("walls[" + i + "]", wall(expected, e[i]), wall(actual, a[i]));
+        }
+
+        check("additionalProperties", text(expected.getAdditionalPropertiesJson()),
+                text(actual.getAdditionalPropertiesJson()));
+    }
+
+    private static void check(String field, Object expected, Object actual) throws IOException {
+        if (!Objects.equals(expected, actual)) {
+            throw new IOException("二进制关卡校验失败: " + field + " 应为 " + expected + "，实际为 " + actual);
+        }
+    }
+
+    /**
+     * 按y、x、宽、高、类型排序的墙体下标
+     */
+    private static Integer[] sortedWalls(LevelConfig level) {
+        Integer[] order = new Integer[level.getWallCount()];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.<Integer>comparingInt(level::getWallY)
+                .thenComparingInt(level::getWallX)
+                .thenComparingInt(level::getWallWidth)
+                .thenComparingInt(level::getWallHeight)
+                .thenComparing(i -> text(level.getWallType(i))));
+        return order;
+    }
+
+    private static String wall(LevelConfig level, int i) {
+        return "(" + level.getWallX(i) + "," + level.getWallY(i) + "," + level.getWallWidth(i) + ","
+                + level.getWallHeight(i) + "," + text(level.getWallType(i)) + ")";
+    }
+
+    private static String spawn(LevelConfig.PlayerSpawnConfig spawn) {
+        return spawn != null ? spawn.getX() + "," + spawn.getY() : "null";
+    }
+
+    /**
+     * 二进制格式把null文本写为空字符串，比较时视为相同
+     */
+    private static String text(String value) {
+        return value != null ? value : "";
+    }
+}
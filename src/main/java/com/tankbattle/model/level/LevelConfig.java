@@ -2,30 +2,60 @@ package com.tankbattle.model.level;
 
 import java.util.List;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Map;
 import java.util.HashMap;
 
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+import com.tankbattle.model.enums.TerrainType;
+
 /**
  * 关卡配置类，定义一个关卡的所有参数
+ * 关卡解析器把墙体直接写入紧凑数组，只有调用getWalls()时才生成WallConfig列表；
+ * 附加属性先保存为JSON文本，第一次访问时才解析
  * 
  * @author Taiyu Jin
  */
 public class LevelConfig {
+    // 未指定地图尺寸时的默认尺寸（像素）
+    public static final int DEFAULT_MAP_WIDTH = 800;
+    public static final int DEFAULT_MAP_HEIGHT = 600;
+    
+    // 地形格子大小（像素），与墙体网格一致
+    public static final int TERRAIN_TILE_SIZE = 40;
+    
+    private static final Gson gson = new Gson();
+    
     private int levelNumber;
     private String levelName;
     private int enemyTankCount;
-    private List<WallConfig> walls;
+    // 地图尺寸（像素），0表示使用默认尺寸
+    private int mapWidth;
+    private int mapHeight;
+    // 可能在多个线程间共享（关卡缓存、预取和校验线程），列表在局部构建完成后才发布
+    private volatile List<WallConfig> walls;
     private PlayerSpawnConfig playerSpawn;
     private List<EnemySpawnConfig> enemySpawns;
     private Map<String, Object> additionalProperties;
     
+    // 紧凑墙体数据：每个墙体依次占x、y、宽、高四个int，类型单独存放
+    // walls列表生成后以列表为准；生成列表时不修改紧凑数据，并发读取的线程仍可继续使用
+    private transient int[] wallData;
+    private transient String[] wallTypes;
+    private transient int compactWallCount;
+    
+    // 地形层：每个格子一个字节的地形编码，按行优先存放，null表示没有地形
+    private transient byte[] terrain;
+    
+    // 尚未解析的附加属性JSON文本
+    private transient String additionalPropertiesJson;
+    
     /**
      * 默认构造函数
      */
     public LevelConfig() {
-        this.walls = new ArrayList<>();
         this.enemySpawns = new ArrayList<>();
-        this.additionalProperties = new HashMap<>();
     }
     
     /**
@@ -68,16 +98,212 @@ public class LevelConfig {
         this.enemyTankCount = enemyTankCount;
     }
     
+    /**
+     * 地图宽度，未指定时返回默认宽度
+     * 
+     * @return 地图宽度（像素）
+     */
+    public int getMapWidth() {
+        return mapWidth > 0 ? mapWidth : DEFAULT_MAP_WIDTH;
+    }
+    
+    public void setMapWidth(int mapWidth) {
+        this.mapWidth = mapWidth;
+    }
+    
+    /**
+     * 地图高度，未指定时返回默认高度
+     * 
+     * @return 地图高度（像素）
+     */
+    public int getMapHeight() {
+        return mapHeight > 0 ? mapHeight : DEFAULT_MAP_HEIGHT;
+    }
+    
+    public void setMapHeight(int mapHeight) {
+        this.mapHeight = mapHeight;
+    }
+    
+    /**
+     * 是否显式指定了地图尺寸
+     * 
+     * @return 是否指定了地图尺寸
+     */
+    public boolean hasMapSize() {
+        return mapWidth > 0 && mapHeight > 0;
+    }
+    
+    /**
+     * 地形层的列数（按地图宽度向上取整）
+     * 
+     * @return 列数
+     */
+    public int getTerrainColumns() {
+        return (getMapWidth() + TERRAIN_TILE_SIZE - 1) / TERRAIN_TILE_SIZE;
+    }
+    
+    /**
+     * 地形层的行数（按地图高度向上取整）
+     * 
+     * @return 行数
+     */
+    public int getTerrainRows() {
+        return (getMapHeight() + TERRAIN_TILE_SIZE - 1) / TERRAIN_TILE_SIZE;
+    }
+    
+    /**
+     * 是否有地形层
+     * 
+     * @return 是否有地形层
+     */
+    public boolean hasTerrain() {
+        return terrain != null;
+    }
+    
+    /**
+     * 获取地形层的原始编码数组，按行优先存放，长度为列数乘行数
+     * 
+     * @return 地形编码数组，没有地形时返回null
+     */
+    public byte[] getTerrain() {
+        return terrain;
+    }
+    
+    /**
+     * 设置地形层
+     * 
+     * @param terrain 地形编码数组，长度必须为列数乘行数；null表示清除地形
+     * @throws IllegalArgumentException 数组长度与地图尺寸不符
+     */
+    public void setTerrain(byte[] terrain) {
+        if (terrain != null && terrain.length != getTerrainColumns() * getTerrainRows()) {
+            throw new IllegalArgumentException("地形层大小" + terrain.length + "与地图尺寸"
+                    + getTerrainColumns() + "x" + getTerrainRows() + "不符");
+        }
+        this.terrain = terrain;
+    }
+    
+    /**
+     * 获取格子的地形类型
+     * 
+     * @param col 列
+     * @param row 行
+     * @return 地形类型，超出地图或没有地形时返回NONE
+     */
+    public TerrainType getTerrainAt(int col, int row) {
+        int cols = getTerrainColumns();
+        if (terrain == null || col < 0 || row < 0 || col >= cols || row >= getTerrainRows()) {
+            return TerrainType.NONE;
+        }
+        return TerrainType.fromCode(terrain[row * cols + col]);
+    }
+    
+    /**
+     * 设置格子的地形类型，第一次设置时按当前地图尺寸创建地形层
+     * 
+     * @param col 列
+     * @param row 行
+     * @param type 地形类型
+     */
+    public void setTerrainAt(int col, int row, TerrainType type) {
+        int cols = getTerrainColumns();
+        if (col < 0 || row < 0 || col >= cols || row >= getTerrainRows()) {
+            throw new IndexOutOfBoundsException("地形格子(" + col + "," + row + ")超出地图范围");
+        }
+        if (terrain == null) {
+            terrain = new byte[cols * getTerrainRows()];
+        }
+        terrain[row * cols + col] = type.getCode();
+    }
+    
+    /**
+     * 获取墙体配置列表，第一次调用时由紧凑数据生成
+     * 列表在局部变量中构建完成后才发布，紧凑数据保持不变，多个线程同时调用时
+     * 各自可能生成一份内容相同的列表，最后发布的一份生效。
+     * 只需要读取墙体时优先使用getWallCount()和getWallX(int)等方法，避免创建对象
+     * 
+     * @return 墙体配置列表
+     */
     public List<WallConfig> getWalls() {
-        return walls;
+        List<WallConfig> list = walls;
+        if (list == null) {
+            list = new ArrayList<>(compactWallCount);
+            for (int i = 0; i < compactWallCount; i++) {
+                list.add(new WallConfig(wallData[i * 4], wallData[i * 4 + 1],
+                        wallData[i * 4 + 2], wallData[i * 4 + 3], wallTypes[i]));
+            }
+            walls = list;
+        }
+        return list;
     }
     
     public void setWalls(List<WallConfig> walls) {
         this.walls = walls;
+        clearCompactWalls();
     }
     
     public void addWall(WallConfig wall) {
-        this.walls.add(wall);
+        getWalls().add(wall);
+    }
+    
+    /**
+     * 在紧凑数据中追加墙体，供关卡解析器使用
+     */
+    void addCompactWall(int x, int y, int width, int height, String type) {
+        List<WallConfig> list = walls;
+        if (list != null) {
+            list.add(new WallConfig(x, y, width, height, type));
+            return;
+        }
+        if (wallData == null) {
+            wallData = new int[64];
+            wallTypes = new String[16];
+        } else if (compactWallCount == wallTypes.length) {
+            wallData = Arrays.copyOf(wallData, wallData.length * 2);
+            wallTypes = Arrays.copyOf(wallTypes, wallTypes.length * 2);
+        }
+        int offset = compactWallCount * 4;
+        wallData[offset] = x;
+        wallData[offset + 1] = y;
+        wallData[offset + 2] = width;
+        wallData[offset + 3] = height;
+        wallTypes[compactWallCount++] = type;
+    }
+    
+    private void clearCompactWalls() {
+        wallData = null;
+        wallTypes = null;
+        compactWallCount = 0;
+    }
+    
+    public int getWallCount() {
+        List<WallConfig> list = walls;
+        return list != null ? list.size() : compactWallCount;
+    }
+    
+    public int getWallX(int i) {
+        List<WallConfig> list = walls;
+        return list != null ? list.get(i).getX() : wallData[i * 4];
+    }
+    
+    public int getWallY(int i) {
+        List<WallConfig> list = walls;
+        return list != null ? list.get(i).getY() : wallData[i * 4 + 1];
+    }
+    
+    public int getWallWidth(int i) {
+        List<WallConfig> list = walls;
+        return list != null ? list.get(i).getWidth() : wallData[i * 4 + 2];
+    }
+    
+    public int getWallHeight(int i) {
+        List<WallConfig> list = walls;
+        return list != null ? list.get(i).getHeight() : wallData[i * 4 + 3];
+    }
+    
+    public String getWallType(int i) {
+        List<WallConfig> list = walls;
+        return list != null ? list.get(i).getType() : wallTypes[i];
     }
     
     public PlayerSpawnConfig getPlayerSpawn() {
@@ -101,17 +327,48 @@ public class LevelConfig {
     }
     
     public Object getAdditionalProperty(String key) {
-        return additionalProperties.get(key);
+        return getAdditionalProperties().get(key);
     }
     
     public void setAdditionalProperty(String key, Object value) {
-        this.additionalProperties.put(key, value);
+        getAdditionalProperties().put(key, value);
     }
     
+    /**
+     * 获取附加属性，第一次调用时才解析保存的JSON文本
+     * 
+     * @return 附加属性
+     */
     public Map<String, Object> getAdditionalProperties() {
+        if (additionalProperties == null) {
+            additionalProperties = additionalPropertiesJson != null
+                    ? gson.fromJson(additionalPropertiesJson, new TypeToken<HashMap<String, Object>>() {}.getType())
+                    : new HashMap<>();
+            additionalPropertiesJson = null;
+        }
         return additionalProperties;
     }
     
+    /**
+     * 保存附加属性的JSON文本，推迟到访问时解析
+     */
+    void setAdditionalPropertiesJson(String json) {
+        this.additionalProperties = null;
+        this.additionalPropertiesJson = json;
+    }
+    
+    /**
+     * 附加属性的JSON文本，尚未解析时直接返回原文
+     * 
+     * @return JSON对象文本，没有附加属性时返回null
+     */
+    String getAdditionalPropertiesJson() {
+        if (additionalProperties == null) {
+            return additionalPropertiesJson;
+        }
+        return additionalProperties.isEmpty() ? null : gson.toJson(additionalProperties);
+    }
+    
     /**
      * 墙体配置
      */
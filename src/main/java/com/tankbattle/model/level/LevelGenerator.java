@@ -0,0 +1,257 @@
+package com.tankbattle.model.level;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Random;
+
+/**
+ * 程序化关卡生成器，用于无尽模式
+ * 相同的种子和难度总是生成相同的关卡；生成后保证玩家出生点与每个敌人出生点之间有通路
+ * 生成速度基准测试和确定性自检见测试源码中的LevelGeneratorBenchmark和LevelGeneratorCheck
+ * 
+ * @author Taiyu Jin
+ */
+public class LevelGenerator {
+    
+    // 地图网格尺寸（与游戏区域800x600、格子40一致）
+    public static final int COLS = 20;
+    public static final int ROWS = 15;
+    private static final int TILE_SIZE = 40;
+    
+    // 格子内容
+    private static final byte EMPTY = 0;
+    private static final byte BRICK = 1;
+    private static final byte STEEL = 2;
+    
+    // 玩家和敌人出生点（格子坐标）
+    private static final int[] PLAYER_SPAWN = {10, 13};
+    private static final int[][] ENEMY_SPAWNS = {{1, 1}, {10, 1}, {18, 1}, {18, 7}};
+    
+    private LevelGenerator() {
+    }
+    
+    /**
+     * 根据无尽模式的基础种子和关卡编号计算该关的种子
+     * 
+     * @param baseSeed 基础种子
+     * @param levelNumber 关卡编号
+     * @return 关卡种子
+     */
+    public static long levelSeed(long baseSeed, int levelNumber) {
+        // SplitMix64混合，使相邻关卡的种子差异足够大
+        long z = baseSeed + levelNumber * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+    
+    /**
+     * 生成关卡
+     * 
+     * @param seed 随机种子
+     * @param levelNumber 关卡编号
+     * @param difficulty 难度（从1开始，越大墙体越密、钢墙和敌人越多）
+     * @return 关卡配置
+     */
+    public static LevelConfig generate(long seed, int levelNumber, int difficulty) {
+        Random random = new Random(seed);
+        int level = Math.max(1, difficulty);
+        double wallDensity = Math.min(0.40, 0.18 + level * 0.02);
+        double steelRatio = Math.min(0.50, 0.10 + level * 0.04);
+        
+        byte[] grid = new byte[COLS * ROWS];
+        boolean[] reserved = reservedCells();
+        
+        // 以短墙段为单位放置墙体，比逐格随机更像手工关卡
+        int target = (int) (COLS * ROWS * wallDensity);
+        int placed = 0;
+        int attempts = 0;
+        while (placed < target && attempts < target * 10) {
+            attempts++;
+            int col = random.nextInt(COLS);
+            int row = random.nextInt(ROWS);
+            boolean horizontal = random.nextBoolean();
+            int length = 1 + random.nextInt(4);
+            byte type = random.nextDouble() < steelRatio ? STEEL : BRICK;
+            for (int i = 0; i < length && placed < target; i++) {
+                int c = horizontal ? col + i : col;
+                int r = horizontal ? row : row + i;
+                if (c >= COLS || r >= ROWS) {
+                    break;
+                }
+                int index = r * COLS + c;
+                if (!reserved[index] && grid[index] == EMPTY) {
+                    grid[index] = type;
+                    placed++;
+                }
+            }
+        }
+        
+        ensureReachable(grid);
+        
+        LevelConfig config = new LevelConfig(levelNumber, "无尽模式 第" + levelNumber + "关",
+                Math.min(30, 8 + level * 2));
+        config.setPlayerSpawn(new LevelConfig.PlayerSpawnConfig(PLAYER_SPAWN[0] * TILE_SIZE, PLAYER_SPAWN[1] * TILE_SIZE));
+        for (int[] spawn : ENEMY_SPAWNS) {
+            config.addEnemySpawn(new LevelConfig.EnemySpawnConfig(spawn[0] * TILE_SIZE, spawn[1] * TILE_SIZE));
+        }
+        for (int index = 0; index < grid.length; index++) {
+            if (grid[index] != EMPTY) {
+                config.addWall(new LevelConfig.WallConfig((index % COLS) * TILE_SIZE, (index / COLS) * TILE_SIZE,
+                        TILE_SIZE, TILE_SIZE, grid[index] == STEEL ? "steel" : "brick"));
+            }
+        }
+        config.setAdditionalProperty("seed", Long.toString(seed));
+        config.setAdditionalProperty("difficulty", level);
+        return config;
+    }
+    
+    /**
+     * 出生点及其周围一格保持为空
+     */
+    private static boolean[] reservedCells() {
+        boolean[] reserved = new boolean[COLS * ROWS];
+        reserveAround(reserved, PLAYER_SPAWN);
+        for (int[] spawn : ENEMY_SPAWNS) {
+            reserveAround(reserved, spawn);
+        }
+        return reserved;
+    }
+    
+    private static void reserveAround(boolean[] reserved, int[] cell) {
+        for (int r = cell[1] - 1; r <= cell[1] + 1; r++) {
+            for (int c = cell[0] - 1; c <= cell[0] + 1; c++) {
+                if (c >= 0 && c < COLS && r >= 0 && r < ROWS) {
+                    reserved[r * COLS + c] = true;
+                }
+            }
+        }
+    }
+    
+    /**
+     * 保证每个敌人出生点都能到达玩家出生点
+     * 从玩家出生点广度优先搜索可到达区域；对无法到达的出生点用0-1广度优先搜索
+     * 找到需要拆除墙体最少的路径，并把路径上的墙体清除
+     * 
+     * @param grid 格子内容
+     */
+    private static void ensureReachable(byte[] grid) {
+        boolean[] reachable = flood(grid, PLAYER_SPAWN[1] * COLS + PLAYER_SPAWN[0]);
+        for (int[] spawn : ENEMY_SPAWNS) {
+            int start = spawn[1] * COLS + spawn[0];
+            if (reachable[start]) {
+                continue;
+            }
+            carveCorridor(grid, start, reachable);
+            reachable = flood(grid, PLAYER_SPAWN[1] * COLS + PLAYER_SPAWN[0]);
+        }
+    }
+    
+    /**
+     * 从起点广度优先搜索所有连通的空格子
+     */
+    private static boolean[] flood(byte[] grid, int start) {
+        boolean[] visited = new boolean[grid.length];
+        int[] queue = new int[grid.length];
+        int head = 0;
+        int tail = 0;
+        visited[start] = true;
+        queue[tail++] = start;
+        while (head < tail) {
+            int index = queue[head++];
+            int col = index % COLS;
+            int row = index / COLS;
+            if (col > 0) {
+                tail = visit(grid, visited, queue, tail, index - 1);
+            }
+            if (col < COLS - 1) {
+                tail = visit(grid, visited, queue, tail, index + 1);
+            }
+            if (row > 0) {
+                tail = visit(grid, visited, queue, tail, index - COLS);
+            }
+            if (row < ROWS - 1) {
+                tail = visit(grid, visited, queue, tail, index + COLS);
+            }
+        }
+        return visited;
+    }
+    
+    private static int visit(byte[] grid, boolean[] visited, int[] queue, int tail, int index) {
+        if (!visited[index] && grid[index] == EMPTY) {
+            visited[index] = true;
+            queue[tail++] = index;
+        }
+        return tail;
+    }
+    
+    /**
+     * 从起点出发，以经过的墙体数为代价寻找到可到达区域的最短路径，并清除路径上的墙体
+     */
+    private static void carveCorridor(byte[] grid, int start, boolean[] reachable) {
+        int[] cost = new int[grid.length];
+        int[] previous = new int[grid.length];
+        Arrays.fill(cost, Integer.MAX_VALUE);
+        Arrays.fill(previous, -1);
+        Deque<Integer> deque = new ArrayDeque<>();
+        cost[start] = 0;
+        deque.add(start);
+        
+        int end = -1;
+        while (!deque.isEmpty()) {
+            int index = deque.pollFirst();
+            if (reachable[index]) {
+                end = index;
+                break;
+            }
+            int col = index % COLS;
+            int row = index / COLS;
+            int[] neighbours = {
+                col > 0 ? index - 1 : -1,
+                col < COLS - 1 ? index + 1 : -1,
+                row > 0 ? index - COLS : -1,
+                row < ROWS - 1 ? index + COLS : -1
+            };
+            for (int next : neighbours) {
+                if (next < 0) {
+                    continue;
+                }
+                int weight = grid[next] == EMPTY ? 0 : 1;
+                if (cost[index] + weight < cost[next]) {
+                    cost[next] = cost[index] + weight;
+                    previous[next] = index;
+                    if (weight == 0) {
+                        deque.addFirst(next);
+                    } else {
+                        deque.addLast(next);
+                    }
+                }
+            }
+        }
+        
+        for (int index = end; index >= 0; index = previous[index]) {
+            grid[index] = EMPTY;
+        }
+    }
+    
+    /**
+     * 检查关卡中玩家出生点能否到达所有敌人出生点，供确定性自检使用
+     * 
+     * @param config 关卡配置
+     * @return 是否全部可达
+     */
+    static boolean isFullyReachable(LevelConfig config) {
+        byte[] grid = new byte[COLS * ROWS];
+        for (int i = 0; i < config.getWallCount(); i++) {
+            grid[(config.getWallY(i) / TILE_SIZE) * COLS + config.getWallX(i) / TILE_SIZE] = BRICK;
+        }
+        boolean[] reachable = flood(grid, PLAYER_SPAWN[1] * COLS + PLAYER_SPAWN[0]);
+        for (int[] spawn : ENEMY_SPAWNS) {
+            if (!reachable[spawn[1] * COLS + spawn[0]]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
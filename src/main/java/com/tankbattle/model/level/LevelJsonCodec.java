@@ -0,0 +1,353 @@
+package com.tankbattle.model.level;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.google.gson.JsonParseException;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import com.tankbattle.model.enums.TerrainType;
+
+/**
+ * 关卡JSON文件的流式读写器
+ * 基于JsonReader逐个读取字段，墙体直接写入LevelConfig的紧凑数组，不经过反射绑定；
+ * 附加属性只保存原始JSON文本，访问时才解析。写出的格式与原来由Gson生成的文件相同
+ * 地形层保存为字符串数组，每个字符串是一行格子，字符含义见TerrainType
+ * 
+ * @author Taiyu Jin
+ */
+public class LevelJsonCodec {
+    
+    private LevelJsonCodec() {
+    }
+    
+    /**
+     * 读取关卡配置
+     * 
+     * @param in 字符输入流
+     * @return 关卡配置
+     * @throws IOException 读取错误或JSON格式错误
+     */
+    public static LevelConfig read(Reader in) throws IOException {
+        LevelConfig level = new LevelConfig();
+        JsonReader reader = new JsonReader(in);
+        // 地形依赖地图尺寸，读完所有字段后再转换
+        List<String> terrainRows = null;
+        try {
+            reader.beginObject();
+            while (reader.hasNext()) {
+                String name = reader.nextName();
+                if (reader.peek() == JsonToken.NULL) {
+                    reader.nextNull();
+                    continue;
+                }
+                switch (name) {
+                    case "levelNumber":
+                        level.setLevelNumber(reader.nextInt());
+                        break;
+                    case "levelName":
+                        level.setLevelName(reader.nextString());
+                        break;
+                    case "enemyTankCount":
+                        level.setEnemyTankCount(reader.nextInt());
+                        break;
+                    case "mapWidth":
+                        level.setMapWidth(reader.nextInt());
+                        break;
+                    case "mapHeight":
+                        level.setMapHeight(reader.nextInt());
+                        break;
+                    case "walls":
+                        readWalls(reader, level);
+                        break;
+                    case "terrain":
+                        terrainRows = readStrings(reader);
+                        break;
+                    case "playerSpawn":
+                        int[] spawn = readPoint(reader);
+                        level.setPlayerSpawn(new LevelConfig.PlayerSpawnConfig(spawn[0], spawn[1]));
+                        break;
+                    case "enemySpawns":
+                        level.setEnemySpawns(readEnemySpawns(reader));
+                        break;
+                    case "additionalProperties":
+                        readAdditionalProperties(reader, level);
+                        break;
+                    default:
+                        // 与反射绑定一致，忽略未知字段
+                        reader.skipValue();
+                        break;
+                }
+            }
+            reader.endObject();
+            if (terrainRows != null) {
+                level.setTerrain(parseTerrain(terrainRows, level));
+            }
+        } catch (IllegalArgumentException | IllegalStateException | JsonParseException e) {
+            throw new IOException("关卡JSON格式错误: " + e.getMessage(), e);
+        }
+        return level;
+    }
+    
+    private static void readWalls(JsonReader reader, LevelConfig level) throws IOException {
+        reader.beginArray();
+        while (reader.hasNext()) {
+            int x = 0;
+            int y = 0;
+            int width = 0;
+            int height = 0;
+            String type = null;
+            
+            reader.beginObject();
+            while (reader.hasNext()) {
+                String name = reader.nextName();
+                if (reader.peek() == JsonToken.NULL) {
+                    reader.nextNull();
+                    continue;
+                }
+                switch (name) {
+                    case "x":
+                        x = reader.nextInt();
+                        break;
+                    case "y":
+                        y = reader.nextInt();
+                        break;
+                    case "width":
+                        width = reader.nextInt();
+                        break;
+                    case "height":
+                        height = reader.nextInt();
+                        break;
+                    case "type":
+                        type = internType(reader.nextString());
+                        break;
+                    default:
+                        reader.skipValue();
+                        break;
+                }
+            }
+            reader.endObject();
+            level.addCompactWall(x, y, width, height, type);
+        }
+        reader.endArray();
+    }
+    
+    /**
+     * 常见墙体类型使用同一个字符串实例
+     */
+    private static String internType(String type) {
+        if ("brick".equals(type)) {
+            return "brick";
+        }
+        if ("steel".equals(type)) {
+            return "steel";
+        }
+        return type;
+    }
+    
+    private static List<String> readStrings(JsonReader reader) throws IOException {
+        List<String> strings = new ArrayList<>();
+        reader.beginArray();
+        while (reader.hasNext()) {
+            strings.add(reader.nextString());
+        }
+        reader.endArray();
+        return strings;
+    }
+    
+    /**
+     * 把地形行字符串转换为地形编码数组，行数或列数不足的部分视为普通地面
+     */
+    private static byte[] parseTerrain(List<String> rows, LevelConfig level) {
+        int cols = level.getTerrainColumns();
+        if (rows.size() > level.getTerrainRows()) {
+            throw new IllegalArgumentException("地形有" + rows.size() + "行，超出地图的" + level.getTerrainRows() + "行");
+        }
+        byte[] terrain = new byte[cols * level.getTerrainRows()];
+        for (int row = 0; row < rows.size(); row++) {
+            String line = rows.get(row);
+            if (line.length() > cols) {
+                throw new IllegalArgumentException("地形第" + (row + 1) + "行有" + line.length() + "列，超出地图的" + cols + "列");
+            }
+            for (int col = 0; col < line.length(); col++) {
+                terrain[row * cols + col] = TerrainType.fromSymbol(line.charAt(col)).getCode();
+            }
+        }
+        return terrain;
+    }
+    
+    private static int[] readPoint(JsonReader reader) throws IOException {
+        int[] point = new int[2];
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if ("x".equals(name) && reader.peek() != JsonToken.NULL) {
+                point[0] = reader.nextInt();
+            } else if ("y".equals(name) && reader.peek() != JsonToken.NULL) {
+                point[1] = reader.nextInt();
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return point;
+    }
+    
+    private static List<LevelConfig.EnemySpawnConfig> readEnemySpawns(JsonReader reader) throws IOException {
+        List<LevelConfig.EnemySpawnConfig> spawns = new ArrayList<>();
+        reader.beginArray();
+        while (reader.hasNext()) {
+            int[] point = readPoint(reader);
+            spawns.add(new LevelConfig.EnemySpawnConfig(point[0], point[1]));
+        }
+        reader.endArray();
+        return spawns;
+    }
+    
+    /**
+     * 附加属性为空对象时直接跳过，否则把各个词法单元原样复制为紧凑的JSON文本，
+     * 不建立JsonElement树，第一次访问附加属性时才由LevelConfig解析
+     */
+    private static void readAdditionalProperties(JsonReader reader, LevelConfig level) throws IOException {
+        if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+            reader.skipValue();
+            return;
+        }
+        reader.beginObject();
+        if (!reader.hasNext()) {
+            reader.endObject();
+            return;
+        }
+        StringWriter text = new StringWriter();
+        JsonWriter writer = new JsonWriter(text);
+        writer.beginObject();
+        while (reader.hasNext()) {
+            writer.name(reader.nextName());
+            copyValue(reader, writer);
+        }
+        reader.endObject();
+        writer.endObject();
+        writer.flush();
+        level.setAdditionalPropertiesJson(text.toString());
+    }
+    
+    /**
+     * 把读取器中的下一个值复制到写出器，数字保留原始写法
+     */
+    private static void copyValue(JsonReader reader, JsonWriter writer) throws IOException {
+        switch (reader.peek()) {
+            case BEGIN_OBJECT:
+                reader.beginObject();
+                writer.beginObject();
+                while (reader.hasNext()) {
+                    writer.name(reader.nextName());
+                    copyValue(reader, writer);
+                }
+                reader.endObject();
+                writer.endObject();
+                break;
+            case BEGIN_ARRAY:
+                reader.beginArray();
+                writer.beginArray();
+                while (reader.hasNext()) {
+                    copyValue(reader, writer);
+                }
+                reader.endArray();
+                writer.endArray();
+                break;
+            case STRING:
+                writer.value(reader.nextString());
+                break;
+            case NUMBER:
+                writer.jsonValue(reader.nextString());
+                break;
+            case BOOLEAN:
+                writer.value(reader.nextBoolean());
+                break;
+            case NULL:
+                reader.nextNull();
+                writer.nullValue();
+                break;
+            default:
+                throw new JsonParseException("附加属性格式错误: " + reader.peek());
+        }
+    }
+    
+    /**
+     * 写出关卡配置（两个空格缩进）
+     * 
+     * @param level 关卡配置
+     * @param out 字符输出流
+     * @throws IOException 写入错误
+     */
+    public static void write(LevelConfig level, Writer out) throws IOException {
+        JsonWriter writer = new JsonWriter(out);
+        writer.setIndent("  ");
+        writer.beginObject();
+        writer.name("levelNumber").value(level.getLevelNumber());
+        if (level.getLevelName() != null) {
+            writer.name("levelName").value(level.getLevelName());
+        }
+        writer.name("enemyTankCount").value(level.getEnemyTankCount());
+        if (level.hasMapSize()) {
+            writer.name("mapWidth").value(level.getMapWidth());
+            writer.name("mapHeight").value(level.getMapHeight());
+        }
+        
+        writer.name("walls").beginArray();
+        for (int i = 0; i < level.getWallCount(); i++) {
+            writer.beginObject();
+            writer.name("x").value(level.getWallX(i));
+            writer.name("y").value(level.getWallY(i));
+            writer.name("width").value(level.getWallWidth(i));
+            writer.name("height").value(level.getWallHeight(i));
+            if (level.getWallType(i) != null) {
+                writer.name("type").value(level.getWallType(i));
+            }
+            writer.endObject();
+        }
+        writer.endArray();
+        
+        if (level.hasTerrain()) {
+            writer.name("terrain").beginArray();
+            byte[] terrain = level.getTerrain();
+            int cols = level.getTerrainColumns();
+            char[] line = new char[cols];
+            for (int offset = 0; offset < terrain.length; offset += cols) {
+                for (int col = 0; col < cols; col++) {
+                    line[col] = TerrainType.fromCode(terrain[offset + col]).getSymbol();
+                }
+                writer.value(new String(line));
+            }
+            writer.endArray();
+        }
+        
+        if (level.getPlayerSpawn() != null) {
+            writer.name("playerSpawn").beginObject();
+            writer.name("x").value(level.getPlayerSpawn().getX());
+            writer.name("y").value(level.getPlayerSpawn().getY());
+            writer.endObject();
+        }
+        
+        if (level.getEnemySpawns() != null) {
+            writer.name("enemySpawns").beginArray();
+            for (LevelConfig.EnemySpawnConfig spawn : level.getEnemySpawns()) {
+                writer.beginObject();
+                writer.name("x").value(spawn.getX());
+                writer.name("y").value(spawn.getY());
+                writer.endObject();
+            }
+            writer.endArray();
+        }
+        
+        String properties = level.getAdditionalPropertiesJson();
+        writer.name("additionalProperties").jsonValue(properties != null ? properties : "{}");
+        writer.endObject();
+        writer.flush();
+    }
+}
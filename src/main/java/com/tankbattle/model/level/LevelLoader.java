@@ -1,41 +1,198 @@
 package com.tankbattle.model.level;
 
+import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileReader;
+import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
-import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
-import com.google.gson.JsonSyntaxException;
+import com.tankbattle.model.ContentPack;
 
 /**
  * 关卡加载器，用于从文件加载关卡配置
+ * 同名的二进制关卡文件（.tblv）存在且不比JSON文件旧时优先使用二进制文件
  * 
  * @author Taiyu Jin
  */
 public class LevelLoader {
     
     private static final String DEFAULT_LEVELS_DIRECTORY = "levels";
-    private static final Gson gson = new GsonBuilder().setPrettyPrinting().create();
     
     /**
-     * 从JSON文件加载单个关卡配置
+     * 从JSON文件加载单个关卡配置（流式解析）
      * 
      * @param filePath JSON文件路径
      * @return 关卡配置对象
-     * @throws IOException 文件读取错误
-     * @throws JsonSyntaxException JSON解析错误
+     * @throws IOException 文件读取错误或JSON格式错误
      */
-    public static LevelConfig loadLevelFromJson(String filePath) throws IOException, JsonSyntaxException {
-        try (FileReader reader = new FileReader(filePath)) {
-            return gson.fromJson(reader, LevelConfig.class);
+    public static LevelConfig loadLevelFromJson(String filePath) throws IOException {
+        // JsonReader自带缓冲，不再套一层BufferedReader
+        try (Reader reader = new InputStreamReader(new FileInputStream(filePath), StandardCharsets.UTF_8)) {
+            return LevelJsonCodec.read(reader);
         }
     }
     
+    /**
+     * 加载单个关卡文件，根据扩展名选择JSON或二进制格式
+     * 
+     * @param file 关卡文件
+     * @return 关卡配置对象
+     * @throws IOException 文件读取或解析错误
+     */
+    public static LevelConfig loadLevel(File file) throws IOException {
+        if (file.getName().toLowerCase().endsWith(BinaryLevelCodec.FILE_EXTENSION)) {
+            return BinaryLevelCodec.read(file);
+        }
+        return loadLevelFromJson(file.getAbsolutePath());
+    }
+    
+    /**
+     * 从内容包加载单个关卡条目，根据扩展名选择JSON或二进制格式
+     * 
+     * @param pack 内容包
+     * @param path 包内路径
+     * @return 关卡配置对象
+     * @throws IOException 条目读取或解析错误
+     */
+    public static LevelConfig loadLevel(ContentPack pack, String path) throws IOException {
+        if (path.toLowerCase().endsWith(BinaryLevelCodec.FILE_EXTENSION)) {
+            return BinaryLevelCodec.decode(pack.readAllBytes(path));
+        }
+        try (Reader reader = new InputStreamReader(pack.open(path), StandardCharsets.UTF_8)) {
+            return LevelJsonCodec.read(reader);
+        }
+    }
+    
+    /**
+     * 从内容包加载单个关卡条目，二进制条目损坏时回退到同名JSON条目
+     * 
+     * @param pack 内容包
+     * @param path 包内路径
+     * @return 关卡配置，加载失败时返回null
+     */
+    public static LevelConfig loadLevelOrFallback(ContentPack pack, String path) {
+        try {
+            return loadLevel(pack, path);
+        } catch (Exception e) {
+            System.err.println("加载关卡失败: " + path + ", 错误: " + e.getMessage());
+        }
+        if (!path.toLowerCase().endsWith(BinaryLevelCodec.FILE_EXTENSION)) {
+            return null;
+        }
+        String json = path.substring(0, path.lastIndexOf('.')) + ".json";
+        if (!pack.contains(json)) {
+            return null;
+        }
+        try {
+            LevelConfig level = loadLevel(pack, json);
+            System.out.println("已改用JSON关卡条目: " + json);
+            return level;
+        } catch (Exception e) {
+            System.err.println("加载关卡失败: " + json + ", 错误: " + e.getMessage());
+            return null;
+        }
+    }
+    
+    /**
+     * 列出内容包关卡目录中的条目，同名的JSON和二进制条目只保留应当加载的一个
+     * 
+     * @param pack 内容包
+     * @return 关卡条目列表
+     */
+    public static List<ContentPack.Entry> listLevelEntries(ContentPack pack) {
+        Map<String, ContentPack.Entry> byBaseName = new LinkedHashMap<>();
+        for (ContentPack.Entry entry : pack.list(ContentPack.LEVELS_DIRECTORY)) {
+            String path = entry.getPath();
+            String lower = path.toLowerCase();
+            if (!lower.endsWith(".json") && !lower.endsWith(BinaryLevelCodec.FILE_EXTENSION)) {
+                continue;
+            }
+            String baseName = path.substring(0, path.lastIndexOf('.'));
+            ContentPack.Entry existing = byBaseName.get(baseName);
+            if (existing == null || isPreferred(entry, existing)) {
+                byBaseName.put(baseName, entry);
+            }
+        }
+        return new ArrayList<>(byBaseName.values());
+    }
+    
+    /**
+     * 列出目录中的关卡文件，同名的JSON和二进制文件只保留应当加载的一个
+     * 
+     * @param dir 关卡目录
+     * @return 关卡文件列表
+     */
+    public static List<File> listLevelFiles(File dir) {
+        File[] files = dir.listFiles((d, name) -> {
+            String lower = name.toLowerCase();
+            return lower.endsWith(".json") || lower.endsWith(BinaryLevelCodec.FILE_EXTENSION);
+        });
+        Map<String, File> byBaseName = new LinkedHashMap<>();
+        if (files == null) {
+            return new ArrayList<>();
+        }
+        
+        for (File file : files) {
+            String name = file.getName();
+            String baseName = name.substring(0, name.lastIndexOf('.'));
+            File existing = byBaseName.get(baseName);
+            if (existing == null || isPreferred(file, existing)) {
+                byBaseName.put(baseName, file);
+            }
+        }
+        return new ArrayList<>(byBaseName.values());
+    }
+    
+    /**
+     * 获取同名关卡文件中应当加载的一个
+     * 
+     * @param dir 关卡目录
+     * @param baseName 不含扩展名的文件名
+     * @return 应当加载的文件，JSON和二进制文件都不存在时返回null
+     */
+    public static File preferredLevelFile(File dir, String baseName) {
+        File json = new File(dir, baseName + ".json");
+        File binary = new File(dir, baseName + BinaryLevelCodec.FILE_EXTENSION);
+        if (!binary.isFile()) {
+            return json.isFile() ? json : null;
+        }
+        if (!json.isFile()) {
+            return binary;
+        }
+        return isPreferred(binary, json) ? binary : json;
+    }
+    
+    /**
+     * 判断候选文件是否应当替代已有的同名文件
+     * 二进制文件不比JSON文件旧时优先，JSON修改后未重新编译则使用JSON
+     */
+    private static boolean isPreferred(File candidate, File existing) {
+        boolean candidateBinary = candidate.getName().toLowerCase().endsWith(BinaryLevelCodec.FILE_EXTENSION);
+        File binary = candidateBinary ? candidate : existing;
+        File json = candidateBinary ? existing : candidate;
+        boolean binaryPreferred = binary.lastModified() >= json.lastModified();
+        return candidateBinary == binaryPreferred;
+    }
+    
+    /**
+     * 与目录中的规则一致：二进制条目不比JSON条目旧时优先
+     */
+    private static boolean isPreferred(ContentPack.Entry candidate, ContentPack.Entry existing) {
+        boolean candidateBinary = candidate.getPath().toLowerCase().endsWith(BinaryLevelCodec.FILE_EXTENSION);
+        ContentPack.Entry binary = candidateBinary ? candidate : existing;
+        ContentPack.Entry json = candidateBinary ? existing : candidate;
+        boolean binaryPreferred = binary.getLastModified() >= json.getLastModified();
+        return candidateBinary == binaryPreferred;
+    }
+    
     /**
      * 加载所有关卡配置
      * 
@@ -51,19 +208,17 @@ public class LevelLoader {
             return createDefaultLevels();
         }
         
-        File[] files = dir.listFiles((d, name) -> name.toLowerCase().endsWith(".json"));
-        if (files == null || files.length == 0) {
-            System.err.println("关卡目录中没有JSON文件: " + directory);
+        List<File> files = listLevelFiles(dir);
+        if (files.isEmpty()) {
+            System.err.println("关卡目录中没有关卡文件: " + directory);
             return createDefaultLevels();
         }
         
         for (File file : files) {
-            try {
-                LevelConfig level = loadLevelFromJson(file.getAbsolutePath());
+            LevelConfig level = loadLevelOrFallback(file);
+            if (level != null) {
                 levels.add(level);
                 System.out.println("成功加载关卡: " + level.getLevelName());
-            } catch (Exception e) {
-                System.err.println("加载关卡失败: " + file.getName() + ", 错误: " + e.getMessage());
             }
         }
         
@@ -77,6 +232,55 @@ public class LevelLoader {
         return levels;
     }
     
+    /**
+     * 加载单个关卡文件，二进制文件损坏时回退到同名JSON文件
+     * 
+     * @param file 关卡文件
+     * @return 关卡配置，加载失败时返回null
+     */
+    public static LevelConfig loadLevelOrFallback(File file) {
+        try {
+            return loadLevel(file);
+        } catch (Exception e) {
+            System.err.println("加载关卡失败: " + file.getName() + ", 错误: " + e.getMessage());
+            return loadJsonFallback(file);
+        }
+    }
+    
+    /**
+     * 二进制关卡文件无法读取时，尝试读取同名的JSON文件
+     * 
+     * @param file 读取失败的关卡文件
+     * @return 关卡配置，没有可用的JSON文件时返回null
+     */
+    private static LevelConfig loadJsonFallback(File file) {
+        String name = file.getName();
+        if (!name.toLowerCase().endsWith(BinaryLevelCodec.FILE_EXTENSION)) {
+            return null;
+        }
+        File json = new File(file.getParentFile(), name.substring(0, name.lastIndexOf('.')) + ".json");
+        if (!json.exists()) {
+            return null;
+        }
+        try {
+            LevelConfig level = loadLevelFromJson(json.getAbsolutePath());
+            System.out.println("已改用JSON关卡文件: " + json.getName());
+            return level;
+        } catch (Exception e) {
+            System.err.println("加载关卡失败: " + json.getName() + ", 错误: " + e.getMessage());
+            return null;
+        }
+    }
+    
+    /**
+     * 获取默认关卡目录
+     * 
+     * @return 默认关卡目录
+     */
+    public static File getDefaultLevelsDirectory() {
+        return new File(DEFAULT_LEVELS_DIRECTORY);
+    }
+    
     /**
      * 加载所有关卡配置，使用默认目录
      * 
@@ -174,7 +378,8 @@ public class LevelLoader {
         }
         
         String filePath = DEFAULT_LEVELS_DIRECTORY + "/level_" + level.getLevelNumber() + ".json";
-        String json = gson.toJson(level);
-        Files.write(Paths.get(filePath), json.getBytes());
+        try (BufferedWriter writer = Files.newBufferedWriter(Paths.get(filePath), StandardCharsets.UTF_8)) {
+            LevelJsonCodec.write(level, writer);
+        }
     }
 }
@@ -1,20 +1,41 @@
 package com.tankbattle.model.level;
 
+import java.io.File;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Optional;
+import java.util.Map;
+
+import com.tankbattle.model.ContentPack;
 
 /**
  * 关卡管理器，管理游戏关卡的加载、切换等
+ * 启动时只建立关卡目录索引，完整的关卡配置在使用时才解析，并缓存最近使用的几个。
+ * 安装的内容包中有关卡时只使用内容包中的关卡
  * 
  * @author Taiyu Jin
  */
 public class LevelManager {
     private static LevelManager instance;
     
-    private List<LevelConfig> levels;
+    // 缓存的关卡配置数量
+    private static final int CACHE_SIZE = 8;
+    
+    private LevelCatalog catalog;
+    private List<LevelCatalog.Entry> entries;
     private int currentLevelIndex = 0;
     
+    // 最近使用的关卡配置，按关卡编号索引
+    private final Map<Integer, LevelConfig> levelCache = new LinkedHashMap<Integer, LevelConfig>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, LevelConfig> eldest) {
+            return size() > CACHE_SIZE;
+        }
+    };
+    
+    // 关卡文件无法写入时使用的内存中默认关卡
+    private List<LevelConfig> fallbackLevels;
+    
     /**
      * 私有构造函数，单例模式
      */
@@ -35,26 +56,107 @@ public class LevelManager {
     }
     
     /**
-     * 加载所有关卡
+     * 建立关卡目录索引
      */
-    private void loadLevels() {
-        this.levels = LevelLoader.loadAllLevels();
+    private synchronized void loadLevels() {
+        ContentPack pack = ContentPack.getInstalled();
+        if (pack != null && !pack.list(ContentPack.LEVELS_DIRECTORY).isEmpty()) {
+            catalog = new LevelCatalog(pack);
+        } else {
+            catalog = new LevelCatalog(LevelLoader.getDefaultLevelsDirectory());
+        }
+        catalog.refresh();
+        entries = catalog.getEntries();
+        levelCache.clear();
+        fallbackLevels = null;
+        
+        if (entries.isEmpty()) {
+            File dir = LevelLoader.getDefaultLevelsDirectory();
+            // 目录不存在或没有关卡文件时创建默认关卡
+            System.err.println("关卡目录中没有关卡文件: " + dir.getPath());
+            List<LevelConfig> defaults = LevelLoader.createDefaultLevels();
+            catalog.refresh();
+            entries = catalog.getEntries();
+            if (entries.isEmpty()) {
+                // 默认关卡无法写入文件，直接使用内存中的配置
+                fallbackLevels = defaults;
+            }
+        }
+        
+        if (currentLevelIndex >= getLevelCount()) {
+            currentLevelIndex = 0;
+        }
     }
     
     /**
-     * 重新加载关卡
+     * 重新加载关卡，只重新读取发生变化的文件
      */
     public void reloadLevels() {
         loadLevels();
     }
     
+    /**
+     * 重新读取单个发生变化的关卡文件并更新索引
+     * 
+     * @param fileName 发生变化的文件名
+     * @return 如果变化的是当前关卡，返回重新解析的配置；否则返回null
+     */
+    public synchronized LevelConfig reloadLevelFile(String fileName) {
+        if (fallbackLevels != null || catalog.getPack() != null) {
+            return null;
+        }
+        
+        Integer currentNumber = entries.isEmpty() ? null : entries.get(currentLevelIndex).getLevelNumber();
+        LevelCatalog.Entry entry = catalog.refreshFile(fileName);
+        entries = catalog.getEntries();
+        
+        // 丢弃可能受影响的缓存
+        if (entry != null) {
+            levelCache.remove(entry.getLevelNumber());
+        }
+        if (currentNumber != null) {
+            levelCache.remove(currentNumber);
+        }
+        
+        // 保持当前关卡编号不变
+        currentLevelIndex = 0;
+        for (int i = 0; i < entries.size(); i++) {
+            if (currentNumber != null && entries.get(i).getLevelNumber() == currentNumber) {
+                currentLevelIndex = i;
+                break;
+            }
+        }
+        
+        if (entry != null && currentNumber != null && entry.getLevelNumber() == currentNumber) {
+            return getLevel(currentLevelIndex);
+        }
+        return null;
+    }
+    
+    /**
+     * 获取关卡目录索引条目
+     * 
+     * @return 按关卡编号排序的条目
+     */
+    public synchronized List<LevelCatalog.Entry> getCatalogEntries() {
+        return new ArrayList<>(entries);
+    }
+    
     /**
      * 获取所有关卡
+     * 注意：会解析所有关卡文件，关卡很多时开销较大
      * 
      * @return 关卡列表
      */
-    public List<LevelConfig> getLevels() {
-        return new ArrayList<>(levels);
+    public synchronized List<LevelConfig> getLevels() {
+        List<LevelConfig> levels = new ArrayList<>();
+        for (int i = 0; i < getLevelCount(); i++) {
+            LevelConfig level = getLevel(i);
+            if (level != null) {
+                levels.add(level);
+            }
+        }
+        return levels;
     }
     
     /**
@@ -62,8 +164,30 @@ public class LevelManager {
      * 
      * @return 关卡数量
      */
-    public int getLevelCount() {
-        return levels.size();
+    public synchronized int getLevelCount() {
+        return fallbackLevels != null ? fallbackLevels.size() : entries.size();
+    }
+    
+    /**
+     * 获取指定索引的关卡配置，需要时才解析文件
+     * 
+     * @param index 关卡索引
+     * @return 关卡配置，加载失败时返回null
+     */
+    private LevelConfig getLevel(int index) {
+        if (fallbackLevels != null) {
+            return fallbackLevels.get(index);
+        }
+        
+        LevelCatalog.Entry entry = entries.get(index);
+        LevelConfig level = levelCache.get(entry.getLevelNumber());
+        if (level == null) {
+            level = catalog.loadLevel(entry);
+            if (level != null) {
+                levelCache.put(entry.getLevelNumber(), level);
+            }
+        }
+        return level;
     }
     
     /**
@@ -71,11 +195,11 @@ public class LevelManager {
      * 
      * @return 当前关卡配置
      */
-    public LevelConfig getCurrentLevel() {
-        if (levels.isEmpty()) {
+    public synchronized LevelConfig getCurrentLevel() {
+        if (getLevelCount() == 0) {
             return null;
         }
-        return levels.get(currentLevelIndex);
+        return getLevel(currentLevelIndex);
     }
     
     /**
@@ -84,8 +208,8 @@ public class LevelManager {
      * @param index 关卡索引
      * @return 是否设置成功
      */
-    public boolean setCurrentLevelIndex(int index) {
-        if (index >= 0 && index < levels.size()) {
+    public synchronized boolean setCurrentLevelIndex(int index) {
+        if (index >= 0 && index < getLevelCount()) {
             this.currentLevelIndex = index;
             return true;
         }
@@ -93,21 +217,47 @@ public class LevelManager {
     }
     
     /**
-     * 通过关卡编号设置当前关卡
+     * 通过关卡编号设置当前关卡，并解析该关卡
      * 
      * @param levelNumber 关卡编号
      * @return 是否设置成功
      */
-    public boolean setCurrentLevelByNumber(int levelNumber) {
-        Optional<LevelConfig> levelOpt = levels.stream()
-                .filter(l -> l.getLevelNumber() == levelNumber)
-                .findFirst();
-        
-        if (levelOpt.isPresent()) {
-            int index = levels.indexOf(levelOpt.get());
-            return setCurrentLevelIndex(index);
+    public synchronized boolean setCurrentLevelByNumber(int levelNumber) {
+        int index = indexOf(levelNumber);
+        if (index < 0) {
+            return false;
         }
-        return false;
+        setCurrentLevelIndex(index);
+        getLevel(index);
+        return true;
+    }
+    
+    /**
+     * 通过关卡编号获取关卡配置，不切换当前关卡
+     * 
+     * @param levelNumber 关卡编号
+     * @return 关卡配置，关卡不存在或加载失败时返回null
+     */
+    public synchronized LevelConfig getLevelByNumber(int levelNumber) {
+        int index = indexOf(levelNumber);
+        return index >= 0 ? getLevel(index) : null;
+    }
+    
+    /**
+     * 查找关卡编号对应的索引
+     * 
+     * @return 关卡索引，没有该关卡时返回-1
+     */
+    private int indexOf(int levelNumber) {
+        for (int i = 0; i < getLevelCount(); i++) {
+            int number = fallbackLevels != null
+                    ? fallbackLevels.get(i).getLevelNumber()
+                    : entries.get(i).getLevelNumber();
+            if (number == levelNumber) {
+                return i;
+            }
+        }
+        return -1;
     }
     
     /**
@@ -115,7 +265,7 @@ public class LevelManager {
      * 
      * @return 当前关卡索引
      */
-    public int getCurrentLevelIndex() {
+    public synchronized int getCurrentLevelIndex() {
         return currentLevelIndex;
     }
     
@@ -124,8 +274,20 @@ public class LevelManager {
      * 
      * @return 是否有下一关
      */
-    public boolean hasNextLevel() {
-        return currentLevelIndex < levels.size() - 1;
+    public synchronized boolean hasNextLevel() {
+        return currentLevelIndex < getLevelCount() - 1;
+    }
+    
+    /**
+     * 查看下一关配置，不切换当前关卡
+     * 
+     * @return 下一关配置，如果没有下一关则返回null
+     */
+    public synchronized LevelConfig peekNextLevel() {
+        if (hasNextLevel()) {
+            return getLevel(currentLevelIndex + 1);
+        }
+        return null;
     }
     
     /**
@@ -133,7 +295,7 @@ public class LevelManager {
      * 
      * @return 下一关配置，如果没有下一关则返回null
      */
-    public LevelConfig nextLevel() {
+    public synchronized LevelConfig nextLevel() {
         if (hasNextLevel()) {
             currentLevelIndex++;
             return getCurrentLevel();
@@ -146,7 +308,7 @@ public class LevelManager {
      * 
      * @return 当前关卡配置
      */
-    public LevelConfig restartLevel() {
+    public synchronized LevelConfig restartLevel() {
         return getCurrentLevel();
     }
 }
@@ -0,0 +1,485 @@
+package com.tankbattle.model.level;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.google.gson.stream.JsonWriter;
+import com.tankbattle.model.ContentPack;
+import com.tankbattle.model.LevelAnalysis;
+import com.tankbattle.model.PreparedLevel;
+import com.tankbattle.model.WallIndex;
+import com.tankbattle.model.entity.Wall;
+
+/**
+ * 关卡批量校验器，发布关卡前检查关卡目录或内容包中的所有关卡
+ *
+ * 用法: java -cp TankBattle.jar com.tankbattle.model.level.LevelValidator [关卡目录或.tbpack]
+ *       [--report=报告文件] [--threads=线程数]
+ *
+ * 每个关卡在线程池中独立加载并检查：出生点是否在地图外、是否被墙体或水面占据，
+ * 敌人出生点能否从玩家出生点到达，墙体是否超出地图、是否互相重叠。
+ * 结果写成JSON报告（未指定报告文件时输出到标准输出），包含每个关卡的加载和检查耗时；
+ * 有关卡存在问题时退出码为1。
+ *
+ * @author Taiyu Jin
+ */
+public class LevelValidator {
+
+    private static final String REPORT_ARG = "--report=";
+    private static final String THREADS_ARG = "--threads=";
+
+    // 坦克尺寸，出生点按坦克占据的区域检查
+    private static final int TANK_SIZE = 40;
+
+    // 每个关卡最多逐条列出的墙体问题，超出部分只计数
+    private static final int MAX_WALL_PROBLEMS = 20;
+
+    /**
+     * 问题类型
+     */
+    public enum ProblemType {
+        LOAD_FAILED,
+        SPAWN_OUT_OF_BOUNDS,
+        SPAWN_IN_WALL,
+        SPAWN_ON_WATER,
+        ENEMY_SPAWN_UNREACHABLE,
+        WALL_OUT_OF_BOUNDS,
+        WALL_OVERLAP
+    }
+
+    /**
+     * 一个校验问题
+     */
+    public static class Problem {
+        private final ProblemType type;
+        private final String message;
+
+        Problem(ProblemType type, String message) {
+            this.type = type;
+            this.message = message;
+        }
+
+        public ProblemType getType() {
+            return type;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+    }
+
+    /**
+     * 一个关卡的校验结果
+     */
+    public static class Result {
+        private final String source;
+        private int levelNumber;
+        private String levelName;
+        private int wallCount;
+        private long loadNanos;
+        private long checkNanos;
+        private final List<Problem> problems = new ArrayList<>();
+
+        Result(String source) {
+            this.source = source;
+        }
+
+        public String getSource() {
+            return source;
+        }
+
+        public int getLevelNumber() {
+            return levelNumber;
+        }
+
+        public String getLevelName() {
+            return levelName;
+        }
+
+        public int getWallCount() {
+            return wallCount;
+        }
+
+        public long getLoadNanos() {
+            return loadNanos;
+        }
+
+        public long getCheckNanos() {
+            return checkNanos;
+        }
+
+        public List<Problem> getProblems() {
+            return problems;
+        }
+
+        public boolean isValid() {
+            return problems.isEmpty();
+        }
+    }
+
+    /**
+     * 关卡加载方式
+     */
+    private interface Loader {
+        LevelConfig load() throws IOException;
+    }
+
+    private LevelValidator() {
+    }
+
+    /**
+     * 命令行入口
+     *
+     * @param args 命令行参数
+     */
+    public static void main(String[] args) {
+        String source = "levels";
+        String reportFile = null;
+        int threads = Runtime.getRuntime().availableProcessors();
+
+        for (String arg : args) {
+            if (arg.startsWith(REPORT_ARG)) {
+                reportFile = arg.substring(REPORT_ARG.length());
+            } else if (arg.startsWith(THREADS_ARG)) {
+                threads = Math.max(1, Integer.parseInt(arg.substring(THREADS_ARG.length())));
+            } else {
+                source = arg;
+            }
+        }
+
+        long start = System.nanoTime();
+        List<Result> results;
+        try {
+            if (source.toLowerCase().endsWith(ContentPack.FILE_EXTENSION)) {
+                try (ContentPack pack = ContentPack.open(Paths.get(source))) {
+                    results = validatePack(pack, threads);
+                }
+            } else {
+                results = validateDirectory(new File(source), threads);
+            }
+        } catch (IOException e) {
+            System.err.println("无法读取关卡: " + source + ", 错误: " + e.getMessage());
+            System.exit(2);
+            return;
+        }
+        long elapsed = System.nanoTime() - start;
+
+        if (results.isEmpty()) {
+            System.err.println("没有找到关卡文件: " + source);
+            System.exit(2);
+        }
+
+        int invalid = 0;
+        for (Result result : results) {
+            if (!result.isValid()) {
+                invalid++;
+            }
+        }
+
+        try {
+            if (reportFile != null) {
+                try (Writer out = Files.newBufferedWriter(Paths.get(reportFile), StandardCharsets.UTF_8)) {
+                    writeReport(out, source, threads, elapsed, results);
+                }
+            } else {
+                Writer out = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8));
+                writeReport(out, source, threads, elapsed, results);
+                out.write(System.lineSeparator());
+                out.flush();
+            }
+        } catch (IOException e) {
+            System.err.println("写入校验报告失败: " + e.getMessage());
+            System.exit(2);
+        }
+
+        System.err.println("已校验" + results.size() + "个关卡，" + invalid + "个有问题，耗时"
+                + formatMillis(elapsed) + "毫秒（" + threads + "个线程）");
+        System.exit(invalid > 0 ? 1 : 0);
+    }
+
+    /**
+     * 并行校验关卡目录中的所有关卡，同名的JSON和二进制文件只校验应当加载的一个
+     *
+     * @param dir 关卡目录
+     * @param threads 线程数
+     * @return 按关卡编号排序的校验结果
+     */
+    public static List<Result> validateDirectory(File dir, int threads) {
+        List<File> files = LevelLoader.listLevelFiles(dir);
+        List<String> sources = new ArrayList<>(files.size());
+        List<Loader> loaders = new ArrayList<>(files.size());
+        for (File file : files) {
+            sources.add(file.getName());
+            loaders.add(() -> LevelLoader.loadLevel(file));
+        }
+        return validateAll(sources, loaders, threads);
+    }
+
+    /**
+     * 并行校验内容包中的所有关卡
+     *
+     * @param pack 内容包
+     * @param threads 线程数
+     * @return 按关卡编号排序的校验结果
+     */
+    public static List<Result> validatePack(ContentPack pack, int threads) {
+        List<ContentPack.Entry> entries = LevelLoader.listLevelEntries(pack);
+        List<String> sources = new ArrayList<>(entries.size());
+        List<Loader> loaders = new ArrayList<>(entries.size());
+        for (ContentPack.Entry entry : entries) {
+            sources.add(entry.getPath());
+            loaders.add(() -> LevelLoader.loadLevel(pack, entry.getPath()));
+        }
+        return validateAll(sources, loaders, threads);
+    }
+
+    /**
+     * 在固定大小的线程池中加载并校验每个关卡
+     */
+    private static List<Result> validateAll(List<String> sources, List<Loader> loaders, int threads) {
+        AtomicInteger threadCount = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, threads), r -> {
+            Thread thread = new Thread(r, "level-validator-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        List<Future<Result>> futures = new ArrayList<>(sources.size());
+        for (int i = 0; i < sources.size(); i++) {
+            String source = sources.get(i);
+            Loader loader = loaders.get(i);
+            futures.add(executor.submit(() -> validateOne(source, loader)));
+        }
+
+        List<Result> results = new ArrayList<>(futures.size());
+        try {
+            for (int i = 0; i < futures.size(); i++) {
+                try {
+                    results.add(futures.get(i).get());
+                } catch (ExecutionException e) {
+                    Result result = new Result(sources.get(i));
+                    result.problems.add(new Problem(ProblemType.LOAD_FAILED, String.valueOf(e.getCause())));
+                    results.add(result);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            executor.shutdownNow();
+        }
+
+        results.sort((a, b) -> Integer.compare(a.levelNumber, b.levelNumber));
+        return results;
+    }
+
+    /**
+     * 加载并校验单个关卡，分别记录加载和检查耗时
+     */
+    private static Result validateOne(String source, Loader loader) {
+        Result result = new Result(source);
+        long start = System.nanoTime();
+        LevelConfig level;
+        try {
+            level = loader.load();
+        } catch (Exception e) {
+            result.loadNanos = System.nanoTime() - start;
+            result.problems.add(new Problem(ProblemType.LOAD_FAILED, e.getMessage()));
+            return result;
+        }
+        long loaded = System.nanoTime();
+        result.loadNanos = loaded - start;
+        result.levelNumber = level.getLevelNumber();
+        result.levelName = level.getLevelName();
+        result.wallCount = level.getWallCount();
+        result.problems.addAll(validate(level));
+        result.checkNanos = System.nanoTime() - loaded;
+        return result;
+    }
+
+    /**
+     * 对关卡配置做几何和可达性检查
+     *
+     * @param level 关卡配置
+     * @return 发现的问题，没有问题时为空列表
+     */
+    public static List<Problem> validate(LevelConfig level) {
+        List<Problem> problems = new ArrayList<>();
+        int mapWidth = level.getMapWidth();
+        int mapHeight = level.getMapHeight();
+
+        List<Wall> walls = new ArrayList<>(level.getWallCount());
+        for (int i = 0; i < level.getWallCount(); i++) {
+            walls.add(PreparedLevel.createWall(level.getWallX(i), level.getWallY(i),
+                    level.getWallWidth(i), level.getWallHeight(i), level.getWallType(i)));
+        }
+        checkWalls(walls, mapWidth, mapHeight, problems);
+
+        // 与游戏中相同的墙体索引和可达性分析，使用未合并的墙体
+        WallIndex wallIndex = new WallIndex(walls);
+        LevelAnalysis analysis = LevelAnalysis.analyze(level, wallIndex);
+
+        LevelConfig.PlayerSpawnConfig player = level.getPlayerSpawn();
+        if (player != null) {
+            checkSpawn(level, wallIndex, "玩家出生点", player.getX(), player.getY(), problems);
+        }
+        List<LevelConfig.EnemySpawnConfig> enemies = level.getEnemySpawns();
+        if (enemies != null) {
+            for (int i = 0; i < enemies.size(); i++) {
+                int x = enemies.get(i).getX();
+                int y = enemies.get(i).getY();
+                String name = "敌人出生点" + (i + 1);
+                if (checkSpawn(level, wallIndex, name, x, y, problems)
+                        && !analysis.isReachable(x + TANK_SIZE / 2.0, y + TANK_SIZE / 2.0)) {
+                    problems.add(new Problem(ProblemType.ENEMY_SPAWN_UNREACHABLE,
+                            name + "(" + x + "," + y + ")无法从玩家出生点到达"));
+                }
+            }
+        }
+        return problems;
+    }
+
+    /**
+     * 检查出生点是否在地图内、是否被墙体或水面占据
+     *
+     * @return 出生点是否可用
+     */
+    private static boolean checkSpawn(LevelConfig level, WallIndex wallIndex, String name, int x, int y,
+                                      List<Problem> problems) {
+        String position = name + "(" + x + "," + y + ")";
+        if (x < 0 || y < 0 || x + TANK_SIZE > level.getMapWidth() || y + TANK_SIZE > level.getMapHeight()) {
+            problems.add(new Problem(ProblemType.SPAWN_OUT_OF_BOUNDS, position + "超出地图范围"));
+            return false;
+        }
+        if (wallIndex.intersects(x, y, TANK_SIZE, TANK_SIZE)) {
+            problems.add(new Problem(ProblemType.SPAWN_IN_WALL, position + "与墙体重叠"));
+            return false;
+        }
+        int tile = LevelConfig.TERRAIN_TILE_SIZE;
+        for (int row = y / tile; row <= (y + TANK_SIZE - 1) / tile; row++) {
+            for (int col = x / tile; col <= (x + TANK_SIZE - 1) / tile; col++) {
+                if (level.getTerrainAt(col, row).blocksTanks()) {
+                    problems.add(new Problem(ProblemType.SPAWN_ON_WATER, position + "在水面上"));
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 检查墙体是否超出地图、是否互相重叠
+     * 重叠检查按左边界排序后扫描，只比较横向范围相交的墙体
+     */
+    private static void checkWalls(List<Wall> walls, int mapWidth, int mapHeight, List<Problem> problems) {
+        int reported = 0;
+        int outOfBounds = 0;
+        for (Wall wall : walls) {
+            if (wall.getX() < 0 || wall.getY() < 0
+                    || wall.getX() + wall.getWidth() > mapWidth || wall.getY() + wall.getHeight() > mapHeight) {
+                outOfBounds++;
+                if (reported++ < MAX_WALL_PROBLEMS) {
+                    problems.add(new Problem(ProblemType.WALL_OUT_OF_BOUNDS, describe(wall) + "超出地图范围"));
+                }
+            }
+        }
+        if (outOfBounds > MAX_WALL_PROBLEMS) {
+            problems.add(new Problem(ProblemType.WALL_OUT_OF_BOUNDS,
+                    "另有" + (outOfBounds - MAX_WALL_PROBLEMS) + "个墙体超出地图范围"));
+        }
+
+        Wall[] sorted = walls.toArray(new Wall[0]);
+        Arrays.sort(sorted, (a, b) -> Double.compare(a.getX(), b.getX()));
+        int overlaps = 0;
+        reported = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            Wall a = sorted[i];
+            double right = a.getX() + a.getWidth();
+            for (int j = i + 1; j < sorted.length && sorted[j].getX() < right; j++) {
+                Wall b = sorted[j];
+                if (b.getY() < a.getY() + a.getHeight() && a.getY() < b.getY() + b.getHeight()) {
+                    overlaps++;
+                    if (reported++ < MAX_WALL_PROBLEMS) {
+                        problems.add(new Problem(ProblemType.WALL_OVERLAP, describe(a) + "与" + describe(b) + "重叠"));
+                    }
+                }
+            }
+        }
+        if (overlaps > MAX_WALL_PROBLEMS) {
+            problems.add(new Problem(ProblemType.WALL_OVERLAP,
+                    "另有" + (overlaps - MAX_WALL_PROBLEMS) + "处墙体重叠"));
+        }
+    }
+
+    private static String describe(Wall wall) {
+        return "墙体(" + (int) wall.getX() + "," + (int) wall.getY() + "," + wall.getWidth() + "x" + wall.getHeight() + ")";
+    }
+
+    /**
+     * 写入JSON格式的校验报告
+     */
+    private static void writeReport(Writer out, String source, int threads, long elapsedNanos,
+                                    List<Result> results) throws IOException {
+        long totalLoad = 0;
+        long totalCheck = 0;
+        int invalid = 0;
+        for (Result result : results) {
+            totalLoad += result.loadNanos;
+            totalCheck += result.checkNanos;
+            if (!result.isValid()) {
+                invalid++;
+            }
+        }
+
+        JsonWriter writer = new JsonWriter(out);
+        writer.beginObject();
+        writer.name("source").value(source);
+        writer.name("threads").value(threads);
+        writer.name("levels").value(results.size());
+        writer.name("invalid").value(invalid);
+        writer.name("elapsedMs").jsonValue(formatMillis(elapsedNanos));
+        writer.name("loadTotalMs").jsonValue(formatMillis(totalLoad));
+        writer.name("checkTotalMs").jsonValue(formatMillis(totalCheck));
+        writer.name("results").beginArray();
+        for (Result result : results) {
+            writer.beginObject();
+            writer.name("source").value(result.source);
+            writer.name("number").value(result.levelNumber);
+            writer.name("name").value(result.levelName);
+            writer.name("walls").value(result.wallCount);
+            writer.name("loadMs").jsonValue(formatMillis(result.loadNanos));
+            writer.name("checkMs").jsonValue(formatMillis(result.checkNanos));
+            writer.name("valid").value(result.isValid());
+            writer.name("problems").beginArray();
+            for (Problem problem : result.problems) {
+                writer.beginObject();
+                writer.name("type").value(problem.type.name());
+                writer.name("message").value(problem.message);
+                writer.endObject();
+            }
+            writer.endArray();
+            writer.endObject();
+        }
+        writer.endArray();
+        writer.endObject();
+        writer.flush();
+    }
+
+    private static String formatMillis(long nanos) {
+        return String.format(Locale.ROOT, "%.3f", nanos / 1_000_000.0);
+    }
+}
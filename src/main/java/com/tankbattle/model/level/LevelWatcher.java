@@ -0,0 +1,181 @@
+package com.tankbattle.model.level;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * 关卡文件监视器
+ * 监视关卡目录中的JSON和二进制关卡文件，文件变化后只重新读取该文件并更新关卡索引；
+ * 同一文件在短时间内的多次保存会合并为一次重新加载
+ *
+ * @author Taiyu Jin
+ */
+public class LevelWatcher {
+
+    // 开启关卡监视的命令行参数
+    public static final String WATCH_ARG = "--watch-levels";
+
+    // 文件最后一次变化后等待的时间（毫秒），期间的再次变化会重新计时
+    private static final long DEBOUNCE_MILLIS = 300;
+
+    private final Path directory;
+    private final LevelManager levelManager;
+    private final Consumer<LevelConfig> currentLevelListener;
+
+    private WatchService watchService;
+    private Thread watchThread;
+    private volatile boolean running;
+
+    // 等待重新加载的文件及其到期时间（仅由监视线程访问）
+    private final Map<String, Long> pendingFiles = new HashMap<>();
+
+    /**
+     * 构造函数
+     *
+     * @param directory 关卡目录
+     * @param levelManager 关卡管理器
+     * @param currentLevelListener 当前关卡被修改时的回调，在监视线程上调用
+     */
+    public LevelWatcher(Path directory, LevelManager levelManager, Consumer<LevelConfig> currentLevelListener) {
+        this.directory = directory;
+        this.levelManager = levelManager;
+        this.currentLevelListener = currentLevelListener;
+    }
+
+    /**
+     * 检查命令行参数中是否开启了关卡监视
+     *
+     * @param args 命令行参数
+     * @return 是否开启关卡监视
+     */
+    public static boolean isWatchMode(List<String> args) {
+        return args != null && args.contains(WATCH_ARG);
+    }
+
+    /**
+     * 开始监视关卡目录
+     *
+     * @return 是否成功开始监视
+     */
+    public boolean start() {
+        try {
+            watchService = FileSystems.getDefault().newWatchService();
+            directory.register(watchService,
+                    StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY,
+                    StandardWatchEventKinds.ENTRY_DELETE);
+        } catch (IOException e) {
+            System.err.println("无法监视关卡目录: " + directory + ", 错误: " + e.getMessage());
+            return false;
+        }
+
+        running = true;
+        watchThread = new Thread(this::watchLoop, "level-watcher");
+        watchThread.setDaemon(true);
+        watchThread.start();
+        System.out.println("正在监视关卡目录: " + directory.toAbsolutePath());
+        return true;
+    }
+
+    /**
+     * 停止监视
+     */
+    public void stop() {
+        running = false;
+        if (watchService != null) {
+            try {
+                watchService.close();
+            } catch (IOException e) {
+                System.err.println("关闭关卡监视失败: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 监视线程主循环：收集文件变化事件，到期后逐个重新加载
+     */
+    private void watchLoop() {
+        while (running) {
+            try {
+                WatchKey key = pendingFiles.isEmpty()
+                        ? watchService.take()
+                        : watchService.poll(nextDeadlineDelay(), TimeUnit.MILLISECONDS);
+                if (key != null) {
+                    collectEvents(key);
+                }
+                reloadDueFiles();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (ClosedWatchServiceException e) {
+                return;
+            } catch (Exception e) {
+                System.err.println("关卡监视出错: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 记录事件中的关卡文件，并重新计时
+     */
+    private void collectEvents(WatchKey key) {
+        long deadline = System.currentTimeMillis() + DEBOUNCE_MILLIS;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                // 事件丢失时刷新整个索引，仍然只会重新读取有变化的文件
+                levelManager.reloadLevels();
+                continue;
+            }
+            String fileName = ((Path) event.context()).getFileName().toString();
+            String lower = fileName.toLowerCase();
+            if (lower.endsWith(".json") || lower.endsWith(BinaryLevelCodec.FILE_EXTENSION)) {
+                pendingFiles.put(fileName, deadline);
+            }
+        }
+        key.reset();
+    }
+
+    /**
+     * 距离最早到期文件的剩余时间
+     */
+    private long nextDeadlineDelay() {
+        long earliest = Long.MAX_VALUE;
+        for (long deadline : pendingFiles.values()) {
+            earliest = Math.min(earliest, deadline);
+        }
+        return Math.max(1, earliest - System.currentTimeMillis());
+    }
+
+    /**
+     * 重新加载已到期的文件
+     */
+    private void reloadDueFiles() {
+        long now = System.currentTimeMillis();
+        for (Iterator<Map.Entry<String, Long>> it = pendingFiles.entrySet().iterator(); it.hasNext();) {
+            Map.Entry<String, Long> pending = it.next();
+            if (pending.getValue() > now) {
+                continue;
+            }
+            it.remove();
+
+            String fileName = pending.getKey();
+            LevelConfig current = levelManager.reloadLevelFile(fileName);
+            System.out.println("关卡文件已重新加载: " + fileName);
+            if (current != null && currentLevelListener != null) {
+                currentLevelListener.accept(current);
+            }
+        }
+    }
+}
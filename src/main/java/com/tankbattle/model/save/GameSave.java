@@ -23,6 +23,9 @@ public class GameSave implements Serializable {
     // 存档元数据
     private int gameVersion;
     
+    // 完整的世界状态快照（由GameModel编码），旧版存档没有该字段
+    private transient byte[] worldState;
+    
     /**
      * 默认构造函数
      */
@@ -121,6 +124,23 @@ public class GameSave implements Serializable {
         this.gameVersion = gameVersion;
     }
     
+    public byte[] getWorldState() {
+        return worldState;
+    }
+    
+    public void setWorldState(byte[] worldState) {
+        this.worldState = worldState;
+    }
+    
+    /**
+     * 是否包含完整的世界状态，旧版存档只能从关卡开头恢复
+     * 
+     * @return 是否包含世界状态
+     */
+    public boolean hasWorldState() {
+        return worldState != null;
+    }
+    
     @Override
     public String toString() {
         return String.format("存档: %s | 关卡: %d | 得分: %d | 日期: %s", 
@@ -0,0 +1,264 @@
+package com.tankbattle.model.save;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.OutputStream;
+import java.util.Date;
+
+/**
+ * 二进制存档格式编解码器
+ * 
+ * 文件结构（大端序）：
+ * <pre>
+ * 文件头    魔数"TBSV"、版本号
+ * 分段      4字节标签、4字节长度、内容，未知标签按长度跳过
+ *   META    存档名称、日期、游戏版本、关卡、得分、生命、道具状态（始终是第一段）
+ *   WRLD    GameModel编码的世界状态快照（可选）
+ * 结束      标签"END "，长度0
+ * </pre>
+ * 以Java序列化魔数0xACED开头的文件是旧版存档，仍按ObjectInputStream读取
+ * 
+ * @author Taiyu Jin
+ */
+public class SaveFormat {
+    // 魔数"TBSV"
+    private static final int MAGIC = 0x54425356;
+    
+    // 当前格式版本
+    public static final int VERSION = 1;
+    
+    // 分段标签
+    private static final int SECTION_META = tag("META");
+    private static final int SECTION_WORLD = tag("WRLD");
+    private static final int SECTION_END = tag("END ");
+    
+    // Java序列化流的魔数（旧版存档）
+    private static final int JAVA_SERIALIZATION_MAGIC = 0xACED;
+    
+    // 道具状态标志位
+    private static final int FLAG_POWER_UP = 1;
+    private static final int FLAG_SHIELD = 2;
+    private static final int FLAG_SPEED_BOOST = 4;
+    
+    private SaveFormat() {
+    }
+    
+    /**
+     * 将存档编码为字节数组
+     * 
+     * @param save 游戏存档
+     * @return 编码后的数据
+     * @throws IOException 编码错误
+     */
+    public static byte[] encode(GameSave save) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(256 + lengthOf(save.getWorldState()));
+        write(save, buffer);
+        return buffer.toByteArray();
+    }
+    
+    /**
+     * 将存档写入输出流
+     * 
+     * @param save 游戏存档
+     * @param output 输出流，不会被关闭
+     * @throws IOException 写入错误
+     */
+    public static void write(GameSave save, OutputStream output) throws IOException {
+        DataOutputStream out = new DataOutputStream(output);
+        out.writeInt(MAGIC);
+        out.writeShort(VERSION);
+        
+        writeSection(out, SECTION_META, encodeHeader(save));
+        
+        if (save.hasWorldState()) {
+            writeSection(out, SECTION_WORLD, save.getWorldState());
+        }
+        writeSection(out, SECTION_END, new byte[0]);
+        out.flush();
+    }
+    
+    /**
+     * 从字节数组解码存档
+     * 
+     * @param data 存档数据
+     * @return 游戏存档
+     * @throws IOException 格式错误
+     */
+    public static GameSave decode(byte[] data) throws IOException {
+        return read(new ByteArrayInputStream(data));
+    }
+    
+    /**
+     * 从输入流读取存档，自动识别旧版Java序列化存档
+     * 
+     * @param input 输入流，不会被关闭
+     * @return 游戏存档
+     * @throws IOException 读取错误或格式错误
+     */
+    public static GameSave read(InputStream input) throws IOException {
+        InputStream in = input.markSupported() ? input : new BufferedInputStream(input);
+        if (isLegacy(in)) {
+            return readLegacy(in);
+        }
+        
+        DataInputStream dataIn = new DataInputStream(in);
+        readFileHeader(dataIn);
+        
+        GameSave save = null;
+        while (true) {
+            int tag = dataIn.readInt();
+            int length = dataIn.readInt();
+            if (length < 0) {
+                throw new IOException("存档分段长度无效: " + length);
+            }
+            if (tag == SECTION_END) {
+                break;
+            }
+            byte[] payload = new byte[length];
+            dataIn.readFully(payload);
+            if (tag == SECTION_META) {
+                save = decodeHeader(payload);
+            } else if (tag == SECTION_WORLD) {
+                if (save == null) {
+                    throw new IOException("存档缺少META分段");
+                }
+                save.setWorldState(payload);
+            }
+            // 其他标签来自更新的版本，已按长度跳过
+        }
+        
+        if (save == null) {
+            throw new IOException("存档缺少META分段");
+        }
+        return save;
+    }
+    
+    /**
+     * 只读取存档头（META分段），不读取世界状态
+     * META始终是第一段，所以只需读取文件开头的几十个字节；旧版存档只能完整读取
+     * 
+     * @param input 输入流，不会被关闭
+     * @return 只包含元数据的游戏存档
+     * @throws IOException 读取错误或格式错误
+     */
+    public static GameSave readHeader(InputStream input) throws IOException {
+        InputStream in = input.markSupported() ? input : new BufferedInputStream(input, 512);
+        if (isLegacy(in)) {
+            return readLegacy(in);
+        }
+        
+        DataInputStream dataIn = new DataInputStream(in);
+        readFileHeader(dataIn);
+        if (dataIn.readInt() != SECTION_META) {
+            throw new IOException("存档缺少META分段");
+        }
+        int length = dataIn.readInt();
+        if (length < 0) {
+            throw new IOException("存档分段长度无效: " + length);
+        }
+        byte[] payload = new byte[length];
+        dataIn.readFully(payload);
+        return decodeHeader(payload);
+    }
+    
+    /**
+     * 编码存档头（META分段的内容），存档索引也使用这一编码
+     * 
+     * @param save 游戏存档
+     * @return 编码后的元数据
+     * @throws IOException 编码错误
+     */
+    public static byte[] encodeHeader(GameSave save) throws IOException {
+        ByteArrayOutputStream meta = new ByteArrayOutputStream(128);
+        DataOutputStream out = new DataOutputStream(meta);
+        out.writeUTF(save.getSaveName() != null ? save.getSaveName() : "");
+        out.writeLong(save.getSaveDate() != null ? save.getSaveDate().getTime() : 0);
+        out.writeInt(save.getGameVersion());
+        out.writeInt(save.getLevelNumber());
+        out.writeInt(save.getScore());
+        out.writeInt(save.getPlayerLives());
+        out.writeByte((save.isHasPowerUp() ? FLAG_POWER_UP : 0)
+                | (save.isHasShield() ? FLAG_SHIELD : 0)
+                | (save.isHasSpeedBoost() ? FLAG_SPEED_BOOST : 0));
+        return meta.toByteArray();
+    }
+    
+    /**
+     * 解码存档头
+     * 
+     * @param payload encodeHeader()编码的元数据
+     * @return 只包含元数据的游戏存档
+     * @throws IOException 格式错误
+     */
+    public static GameSave decodeHeader(byte[] payload) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+        GameSave save = new GameSave();
+        save.setSaveName(in.readUTF());
+        save.setSaveDate(new Date(in.readLong()));
+        save.setGameVersion(in.readInt());
+        save.setLevelNumber(in.readInt());
+        save.setScore(in.readInt());
+        save.setPlayerLives(in.readInt());
+        int flags = in.readUnsignedByte();
+        save.setHasPowerUp((flags & FLAG_POWER_UP) != 0);
+        save.setHasShield((flags & FLAG_SHIELD) != 0);
+        save.setHasSpeedBoost((flags & FLAG_SPEED_BOOST) != 0);
+        return save;
+    }
+    
+    /**
+     * 是否是以Java序列化魔数开头的旧版存档（不消耗输入）
+     */
+    private static boolean isLegacy(InputStream in) throws IOException {
+        in.mark(2);
+        int first = in.read();
+        int second = in.read();
+        in.reset();
+        return ((first << 8) | second) == JAVA_SERIALIZATION_MAGIC;
+    }
+    
+    /**
+     * 校验魔数和版本号
+     */
+    private static void readFileHeader(DataInputStream in) throws IOException {
+        if (in.readInt() != MAGIC) {
+            throw new IOException("不是有效的存档文件");
+        }
+        int version = in.readUnsignedShort();
+        if (version > VERSION) {
+            throw new IOException("不支持的存档版本: " + version);
+        }
+    }
+    
+    /**
+     * 读取旧版Java序列化存档
+     */
+    private static GameSave readLegacy(InputStream in) throws IOException {
+        try {
+            ObjectInputStream ois = new ObjectInputStream(in);
+            return (GameSave) ois.readObject();
+        } catch (ClassNotFoundException | ClassCastException e) {
+            throw new IOException("无法读取旧版存档: " + e.getMessage(), e);
+        }
+    }
+    
+    private static void writeSection(DataOutputStream out, int tag, byte[] payload) throws IOException {
+        out.writeInt(tag);
+        out.writeInt(payload.length);
+        out.write(payload);
+    }
+    
+    private static int lengthOf(byte[] data) {
+        return data != null ? data.length : 0;
+    }
+    
+    private static int tag(String name) {
+        return (name.charAt(0) << 24) | (name.charAt(1) << 16) | (name.charAt(2) << 8) | name.charAt(3);
+    }
+}
@@ -0,0 +1,310 @@
+package com.tankbattle.model.save;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+
+/**
+ * 存档索引，保存在存档目录的index.dat中
+ * 每个存档文件记录文件大小、修改时间和存档头，列出存档时只需读取目录和索引；
+ * 大小或修改时间与索引不一致的文件（例如保存后更新索引前程序崩溃）只重新读取存档头。
+ * 索引先写入临时文件再原子替换，任何时候磁盘上的索引都是完整的。
+ * 锁只保护内存中的条目，读取文件和重写索引都不持有锁；重写索引排到写入线程上执行，
+ * 连续的多次修改只写入一次最新的索引
+ * 
+ * @author Taiyu Jin
+ */
+class SaveIndex {
+    // 索引文件名
+    static final String INDEX_FILE = "index.dat";
+    
+    // 魔数"TBSI"和格式版本
+    private static final int MAGIC = 0x54425349;
+    private static final int VERSION = 1;
+    
+    private final Path directory;
+    private final String fileExtension;
+    
+    // 重写索引文件的执行器（存档写入线程）
+    private final Executor indexWriter;
+    
+    // 文件名 -> 索引条目，第一次使用时从磁盘读取，只在持有锁时访问
+    private Map<String, IndexEntry> entries;
+    
+    // 是否已有排队但还没开始的索引重写
+    private boolean writePending;
+    
+    /**
+     * 索引条目
+     */
+    private static class IndexEntry {
+        final long size;
+        final long lastModified;
+        final byte[] header;
+        
+        IndexEntry(long size, long lastModified, byte[] header) {
+            this.size = size;
+            this.lastModified = lastModified;
+            this.header = header;
+        }
+        
+        boolean matches(BasicFileAttributes attributes) {
+            return size == attributes.size() && lastModified == attributes.lastModifiedTime().toMillis();
+        }
+    }
+    
+    /**
+     * 构造函数
+     * 
+     * @param directory 存档目录
+     * @param fileExtension 存档文件扩展名
+     * @param indexWriter 重写索引文件的执行器，应与存档写入使用同一个线程
+     */
+    SaveIndex(Path directory, String fileExtension, Executor indexWriter) {
+        this.directory = directory;
+        this.fileExtension = fileExtension;
+        this.indexWriter = indexWriter;
+    }
+    
+    /**
+     * 列出所有存档的元数据，按保存时间从新到旧排序
+     * 
+     * @return 只包含元数据的存档列表
+     */
+    List<GameSave> list() {
+        ensureLoaded();
+        List<GameSave> saves = new ArrayList<>();
+        if (!Files.isDirectory(directory)) {
+            return saves;
+        }
+        
+        boolean changed = false;
+        Set<String> present = new HashSet<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*" + fileExtension)) {
+            for (Path file : stream) {
+                String fileName = file.getFileName().toString();
+                BasicFileAttributes attributes;
+                try {
+                    attributes = Files.readAttributes(file, BasicFileAttributes.class);
+                } catch (IOException e) {
+                    continue;
+                }
+                if (!attributes.isRegularFile()) {
+                    continue;
+                }
+                present.add(fileName);
+                
+                IndexEntry entry;
+                synchronized (this) {
+                    entry = entries.get(fileName);
+                }
+                if (entry == null || !entry.matches(attributes)) {
+                    IndexEntry cached = entry;
+                    entry = readEntry(file, attributes);
+                    if (entry == null) {
+                        continue;
+                    }
+                    synchronized (this) {
+                        // 读取期间写入线程已更新的条目不被覆盖
+                        if (entries.get(fileName) == cached) {
+                            entries.put(fileName, entry);
+                            changed = true;
+                        }
+                    }
+                }
+                try {
+                    saves.add(SaveFormat.decodeHeader(entry.header));
+                } catch (IOException e) {
+                    System.err.println("存档索引条目损坏: " + fileName);
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("无法列出存档目录: " + e.getMessage());
+            return saves;
+        }
+        
+        // 清除已被外部删除的存档
+        synchronized (this) {
+            if (entries.keySet().retainAll(present)) {
+                changed = true;
+            }
+        }
+        if (changed) {
+            scheduleWrite();
+        }
+        
+        saves.sort(Comparator.comparing((GameSave save) -> save.getSaveDate() != null ? save.getSaveDate().getTime() : 0L)
+                .reversed());
+        return saves;
+    }
+    
+    /**
+     * 存档文件写入完成后更新索引
+     * 
+     * @param file 存档文件
+     * @param save 写入的存档
+     */
+    void put(Path file, GameSave save) {
+        ensureLoaded();
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+            IndexEntry entry = new IndexEntry(attributes.size(), attributes.lastModifiedTime().toMillis(),
+                    SaveFormat.encodeHeader(save));
+            synchronized (this) {
+                entries.put(file.getFileName().toString(), entry);
+            }
+            scheduleWrite();
+        } catch (IOException e) {
+            // 索引会在下次列出存档时修复
+            System.err.println("更新存档索引失败: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * 存档文件删除后更新索引
+     * 
+     * @param fileName 存档文件名
+     */
+    void remove(String fileName) {
+        ensureLoaded();
+        boolean removed;
+        synchronized (this) {
+            removed = entries.remove(fileName) != null;
+        }
+        if (removed) {
+            scheduleWrite();
+        }
+    }
+    
+    /**
+     * 读取存档头生成索引条目
+     * 
+     * @return 索引条目，文件无法读取时返回null
+     */
+    private static IndexEntry readEntry(Path file, BasicFileAttributes attributes) {
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(file), 512)) {
+            GameSave save = SaveFormat.readHeader(in);
+            return new IndexEntry(attributes.size(), attributes.lastModifiedTime().toMillis(),
+                    SaveFormat.encodeHeader(save));
+        } catch (IOException e) {
+            System.err.println("无法读取存档头: " + file.getFileName() + ", 错误: " + e.getMessage());
+            return null;
+        }
+    }
+    
+    /**
+     * 第一次使用时从磁盘读取索引，读取时不持有锁
+     */
+    private void ensureLoaded() {
+        synchronized (this) {
+            if (entries != null) {
+                return;
+            }
+        }
+        Map<String, IndexEntry> loaded = readIndex();
+        synchronized (this) {
+            if (entries == null) {
+                entries = loaded;
+            }
+        }
+    }
+    
+    /**
+     * 读取索引文件，索引不存在或损坏时返回空索引
+     */
+    private Map<String, IndexEntry> readIndex() {
+        Map<String, IndexEntry> entries = new HashMap<>();
+        Path indexFile = directory.resolve(INDEX_FILE);
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(indexFile)))) {
+            if (in.readInt() != MAGIC || in.readUnsignedShort() != VERSION) {
+                System.err.println("存档索引格式不匹配，将重新建立");
+                return entries;
+            }
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                String fileName = in.readUTF();
+                long size = in.readLong();
+                long lastModified = in.readLong();
+                int length = in.readInt();
+                if (length < 0 || length > 0x10000 + 64) {
+                    throw new IOException("索引条目长度无效: " + length);
+                }
+                byte[] header = new byte[length];
+                in.readFully(header);
+                entries.put(fileName, new IndexEntry(size, lastModified, header));
+            }
+        } catch (NoSuchFileException e) {
+            // 还没有索引
+        } catch (IOException e) {
+            System.err.println("存档索引损坏，将重新建立: " + e.getMessage());
+            entries.clear();
+        }
+        return entries;
+    }
+    
+    /**
+     * 把索引重写排到写入线程上，已有排队的重写时不再重复排队
+     */
+    private void scheduleWrite() {
+        synchronized (this) {
+            if (writePending) {
+                return;
+            }
+            writePending = true;
+        }
+        indexWriter.execute(this::writeIndex);
+    }
+    
+    /**
+     * 在持有锁时编码当前索引，再把它写入临时文件并同步到磁盘，原子替换旧索引
+     */
+    private void writeIndex() {
+        try {
+            byte[] data;
+            synchronized (this) {
+                writePending = false;
+                data = encodeIndex();
+            }
+            SaveWriter.writeAtomically(directory.resolve(INDEX_FILE), data);
+        } catch (IOException e) {
+            System.err.println("写入存档索引失败: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * 编码索引文件内容（调用时必须持有锁）
+     */
+    private byte[] encodeIndex() throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(64 + entries.size() * 96);
+        DataOutputStream out = new DataOutputStream(buffer);
+        out.writeInt(MAGIC);
+        out.writeShort(VERSION);
+        out.writeInt(entries.size());
+        for (Map.Entry<String, IndexEntry> item : entries.entrySet()) {
+            IndexEntry entry = item.getValue();
+            out.writeUTF(item.getKey());
+            out.writeLong(entry.size);
+            out.writeLong(entry.lastModified);
+            out.writeInt(entry.header.length);
+            out.write(entry.header);
+        }
+        out.flush();
+        return buffer.toByteArray();
+    }
+}
@@ -1,18 +1,25 @@
 package com.tankbattle.model.save;
 
+import java.io.BufferedInputStream;
 import java.io.File;
 import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.text.SimpleDateFormat;
-import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
+import java.util.function.Consumer;
+
+import javafx.application.Platform;
 
 /**
  * 游戏存档管理器，负责保存和加载游戏存档
+ * 存档使用SaveFormat定义的二进制格式，旧版Java序列化存档仍可读取；
+ * 存档目录中的索引记录每个存档的存档头，列出存档时不需要读取完整的存档文件。
+ * 存档文件总是先写入临时文件再原子替换；保存和删除都在同一个写入线程上按顺序执行，
+ * saveGameAsync()不等待写入完成
  * 
  * @author Taiyu Jin
  */
@@ -22,12 +29,21 @@ public class SaveManager {
     private static final String SAVE_DIRECTORY = "saves";
     private static final String FILE_EXTENSION = ".sav";
     
+    // 后台写入器，完成回调在JavaFX线程上执行
+    private final SaveWriter writer = new SaveWriter(Platform::runLater);
+    
+    // 存档头索引，索引文件在写入线程上重写
+    private final SaveIndex index = new SaveIndex(Paths.get(SAVE_DIRECTORY), FILE_EXTENSION, writer::execute);
+    
     /**
      * 私有构造函数，单例模式
      */
     private SaveManager() {
         // 确保存档目录存在
         ensureSaveDirectoryExists();
+        
+        // 清除上次运行崩溃时遗留的临时文件
+        writer.deleteStaleTempFiles(Paths.get(SAVE_DIRECTORY));
     }
     
     /**
@@ -55,12 +71,29 @@ public class SaveManager {
     }
     
     /**
-     * 保存游戏
+     * 保存游戏并等待写入完成，排在之前提交的后台写入之后
      * 
      * @param save 游戏存档
      * @return 是否保存成功
      */
     public boolean saveGame(GameSave save) {
+        return writer.writeAndWait(save, prepareSave(save), index);
+    }
+    
+    /**
+     * 在后台线程保存游戏，调用线程不等待磁盘IO
+     * 
+     * @param save 游戏存档，提交后不能再修改
+     * @param callback 完成回调，在JavaFX线程上调用，参数为是否保存成功，可以为null
+     */
+    public void saveGameAsync(GameSave save, Consumer<Boolean> callback) {
+        writer.submit(save, prepareSave(save), index, callback);
+    }
+    
+    /**
+     * 补全存档名称并确定存档文件
+     */
+    private Path prepareSave(GameSave save) {
         ensureSaveDirectoryExists();
         
         // 如果没有提供存档名称，自动生成一个
@@ -69,16 +102,7 @@ public class SaveManager {
             save.setSaveName("TankBattle_" + sdf.format(new Date()));
         }
         
-        String filePath = SAVE_DIRECTORY + File.separator + save.getSaveName() + FILE_EXTENSION;
-        
-        try (ObjectOutputStream oos = new ObjectOutputStream(new FileOutputStream(filePath))) {
-            oos.writeObject(save);
-            System.out.println("游戏已保存到: " + filePath);
-            return true;
-        } catch (IOException e) {
-            System.err.println("保存游戏失败: " + e.getMessage());
-            return false;
-        }
+        return Paths.get(SAVE_DIRECTORY, save.getSaveName() + FILE_EXTENSION);
     }
     
     /**
@@ -90,66 +114,38 @@ public class SaveManager {
     public GameSave loadGame(String saveName) {
         String filePath = SAVE_DIRECTORY + File.separator + saveName + FILE_EXTENSION;
         
-        try (ObjectInputStream ois = new ObjectInputStream(new FileInputStream(filePath))) {
-            GameSave save = (GameSave) ois.readObject();
+        try (InputStream in = new BufferedInputStream(new FileInputStream(filePath))) {
+            GameSave save = SaveFormat.read(in);
             System.out.println("已加载游戏: " + save.getSaveName());
             return save;
-        } catch (IOException | ClassNotFoundException e) {
+        } catch (IOException e) {
             System.err.println("加载游戏失败: " + e.getMessage());
             return null;
         }
     }
     
     /**
-     * 获取所有存档
+     * 获取所有存档的元数据，只读取索引和变化过的存档的存档头，
+     * 返回的存档不包含世界状态，加载时使用loadGame()
      * 
-     * @return 存档列表
+     * @return 存档列表，按保存时间从新到旧排序
      */
     public List<GameSave> getAllSaves() {
-        List<GameSave> saves = new ArrayList<>();
-        File dir = new File(SAVE_DIRECTORY);
-        
-        if (!dir.exists() || !dir.isDirectory()) {
-            return saves;
-        }
-        
-        File[] files = dir.listFiles((d, name) -> name.toLowerCase().endsWith(FILE_EXTENSION));
-        if (files == null) {
-            return saves;
-        }
-        
-        for (File file : files) {
-            String saveName = file.getName().substring(0, file.getName().length() - FILE_EXTENSION.length());
-            GameSave save = loadGame(saveName);
-            if (save != null) {
-                saves.add(save);
-            }
-        }
-        
-        return saves;
+        return index.list();
     }
     
     /**
-     * 删除存档
+     * 删除存档，等待之前提交的写入完成后再删除，已删除的存档不会被排队的写入重新生成
      * 
      * @param saveName 存档名称
      * @return 是否删除成功
      */
     public boolean deleteSave(String saveName) {
-        String filePath = SAVE_DIRECTORY + File.separator + saveName + FILE_EXTENSION;
-        File file = new File(filePath);
-        
-        if (file.exists()) {
-            boolean deleted = file.delete();
-            if (deleted) {
-                System.out.println("已删除存档: " + saveName);
-            } else {
-                System.err.println("无法删除存档: " + saveName);
-            }
-            return deleted;
+        boolean deleted = writer.deleteAndWait(Paths.get(SAVE_DIRECTORY, saveName + FILE_EXTENSION), index);
+        if (deleted) {
+            System.out.println("已删除存档: " + saveName);
         }
-        
-        return false;
+        return deleted;
     }
     
     /**
@@ -162,4 +158,13 @@ public class SaveManager {
         String filePath = SAVE_DIRECTORY + File.separator + saveName + FILE_EXTENSION;
         return new File(filePath).exists();
     }
+    
+    /**
+     * 等待后台存档写入完成，应用退出时调用
+     * 
+     * @param timeoutMillis 最长等待时间（毫秒）
+     */
+    public void shutdown(long timeoutMillis) {
+        writer.shutdown(timeoutMillis);
+    }
 }
@@ -0,0 +1,256 @@
+package com.tankbattle.model.save;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * 后台存档写入器
+ * 存档在调用线程上生成后交给单个写入线程编码并写入磁盘，调用线程不等待磁盘IO；
+ * 同步保存和删除也在写入线程上执行，所有对存档文件的修改按提交顺序进行，
+ * 删除不会被之前排队的写入覆盖。每个文件先写入唯一命名的临时文件并同步到磁盘，
+ * 再原子替换目标文件，写入过程中崩溃只会留下临时文件，原来的存档保持完整；
+ * 这些临时文件在下次启动时清除
+ * 
+ * @author Taiyu Jin
+ */
+class SaveWriter {
+    // 临时文件后缀
+    static final String TEMP_SUFFIX = ".tmp";
+    
+    private final ExecutorService writerExecutor;
+    
+    // 完成回调的执行器（游戏中为JavaFX线程）
+    private final Executor callbackExecutor;
+    
+    /**
+     * 构造函数
+     * 
+     * @param callbackExecutor 执行完成回调的执行器
+     */
+    SaveWriter(Executor callbackExecutor) {
+        this.callbackExecutor = callbackExecutor;
+        this.writerExecutor = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "save-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+    
+    /**
+     * 提交存档写入
+     * 
+     * @param save 游戏存档，提交后不能再修改
+     * @param file 目标文件
+     * @param index 写入成功后更新的存档索引
+     * @param callback 完成回调，参数为是否保存成功，可以为null
+     */
+    void submit(GameSave save, Path file, SaveIndex index, Consumer<Boolean> callback) {
+        writerExecutor.execute(() -> {
+            boolean success = write(save, file, index);
+            if (callback != null) {
+                try {
+                    callbackExecutor.execute(() -> callback.accept(success));
+                } catch (RuntimeException e) {
+                    // 应用已退出，回调无法再执行
+                    System.err.println("无法通知存档结果: " + e.getMessage());
+                }
+            }
+        });
+    }
+    
+    /**
+     * 在写入线程上保存存档并等待完成，排在之前提交的写入之后
+     * 
+     * @param save 游戏存档
+     * @param file 目标文件
+     * @param index 写入成功后更新的存档索引
+     * @return 是否保存成功
+     */
+    boolean writeAndWait(GameSave save, Path file, SaveIndex index) {
+        return runAndWait(() -> write(save, file, index));
+    }
+    
+    /**
+     * 在写入线程上删除存档并等待完成，之前提交的同一文件的写入不会在删除后重新生成存档
+     * 
+     * @param file 存档文件
+     * @param index 删除后更新的存档索引
+     * @return 是否删除成功，文件不存在时返回false
+     */
+    boolean deleteAndWait(Path file, SaveIndex index) {
+        return runAndWait(() -> {
+            try {
+                if (!Files.deleteIfExists(file)) {
+                    return false;
+                }
+            } catch (IOException e) {
+                System.err.println("无法删除存档: " + file.getFileName() + ", 错误: " + e.getMessage());
+                return false;
+            }
+            index.remove(file.getFileName().toString());
+            return true;
+        });
+    }
+    
+    /**
+     * 把任务排到写入线程上，排在之前提交的写入之后；写入线程已停止时直接在调用线程执行
+     * 
+     * @param task 任务
+     */
+    void execute(Runnable task) {
+        try {
+            writerExecutor.execute(task);
+        } catch (RejectedExecutionException e) {
+            task.run();
+        }
+    }
+    
+    /**
+     * 在写入线程上删除目录中上次运行崩溃时遗留的临时文件，应在提交任何写入之前调用
+     * 
+     * @param directory 存档目录
+     */
+    void deleteStaleTempFiles(Path directory) {
+        execute(() -> {
+            if (!Files.isDirectory(directory)) {
+                return;
+            }
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*" + TEMP_SUFFIX)) {
+                for (Path file : stream) {
+                    try {
+                        Files.deleteIfExists(file);
+                    } catch (IOException e) {
+                        System.err.println("无法删除临时文件: " + file.getFileName() + ", 错误: " + e.getMessage());
+                    }
+                }
+            } catch (IOException e) {
+                System.err.println("无法清理存档目录: " + e.getMessage());
+            }
+        });
+    }
+    
+    /**
+     * 编码并写入存档，成功后更新索引
+     */
+    private static boolean write(GameSave save, Path file, SaveIndex index) {
+        try {
+            writeAtomically(file, SaveFormat.encode(save));
+            index.put(file, save);
+            System.out.println("游戏已保存到: " + file);
+            return true;
+        } catch (IOException | RuntimeException e) {
+            System.err.println("保存游戏失败: " + e.getMessage());
+            return false;
+        }
+    }
+    
+    /**
+     * 把任务排到写入线程上执行并等待结果；写入线程已停止时不再有排队的写入，直接在调用线程执行
+     */
+    private boolean runAndWait(Supplier<Boolean> task) {
+        Future<Boolean> future;
+        try {
+            future = writerExecutor.submit(task::get);
+        } catch (RejectedExecutionException e) {
+            return task.get();
+        }
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (ExecutionException e) {
+            System.err.println("存档操作失败: " + e.getCause());
+            return false;
+        }
+    }
+    
+    /**
+     * 等待已提交的写入完成并停止写入线程
+     * 
+     * @param timeoutMillis 最长等待时间（毫秒）
+     */
+    void shutdown(long timeoutMillis) {
+        writerExecutor.shutdown();
+        try {
+            if (!writerExecutor.awaitTermination(timeoutMillis, TimeUnit.MILLISECONDS)) {
+                System.err.println("存档写入未在关闭前完成");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    /**
+     * 原子地替换文件内容：写入同目录的临时文件并同步到磁盘，再重命名为目标文件
+     * 每次写入使用新建的唯一临时文件，同时写入同一文件的调用不会截断彼此的临时文件；
+     * 临时文件使用默认权限创建，替换后的文件权限与直接创建的文件相同
+     * 
+     * @param file 目标文件
+     * @param data 文件内容
+     * @throws IOException 写入错误，此时目标文件保持原样
+     */
+    static void writeAtomically(Path file, byte[] data) throws IOException {
+        Path directory = file.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        Path tempFile;
+        FileChannel tempChannel;
+        while (true) {
+            tempFile = directory.resolve(file.getFileName() + "."
+                    + Long.toUnsignedString(ThreadLocalRandom.current().nextLong(), 36) + TEMP_SUFFIX);
+            try {
+                tempChannel = FileChannel.open(tempFile, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+                break;
+            } catch (FileAlreadyExistsException e) {
+                // 名称冲突，换一个名称重试
+            }
+        }
+        try {
+            try (FileChannel channel = tempChannel) {
+                ByteBuffer buffer = ByteBuffer.wrap(data);
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                channel.force(true);
+            }
+            try {
+                Files.move(tempFile, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            Files.deleteIfExists(tempFile);
+            throw e;
+        }
+        syncDirectory(directory);
+    }
+    
+    /**
+     * 同步目录，使重命名本身也写入磁盘；部分平台不支持打开目录，此时忽略
+     */
+    private static void syncDirectory(Path directory) {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // 不支持同步目录的平台上依赖文件系统自身的顺序保证
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.tankbattle.view;
+
+import com.tankbattle.model.entity.GameObject;
+
+/**
+ * 游戏摄像机，决定地图中哪一块区域显示在画布上
+ * 摄像机以跟随目标为中心，并限制在地图范围内；地图小于视口时居中显示
+ * 
+ * @author Taiyu Jin
+ */
+public class Camera {
+    // 视口大小（画布大小）
+    private final double viewportWidth;
+    private final double viewportHeight;
+    
+    // 视口左上角在世界中的坐标
+    private double x;
+    private double y;
+    
+    /**
+     * 构造函数
+     * 
+     * @param viewportWidth 视口宽度
+     * @param viewportHeight 视口高度
+     */
+    public Camera(double viewportWidth, double viewportHeight) {
+        this.viewportWidth = viewportWidth;
+        this.viewportHeight = viewportHeight;
+    }
+    
+    /**
+     * 使摄像机跟随目标
+     * 
+     * @param target 跟随的目标，为null时保持原位置
+     * @param worldWidth 地图宽度
+     * @param worldHeight 地图高度
+     */
+    public void follow(GameObject target, double worldWidth, double worldHeight) {
+        if (target != null) {
+            x = target.getX() + target.getWidth() / 2.0 - viewportWidth / 2;
+            y = target.getY() + target.getHeight() / 2.0 - viewportHeight / 2;
+        }
+        x = clamp(x, worldWidth, viewportWidth);
+        y = clamp(y, worldHeight, viewportHeight);
+    }
+    
+    /**
+     * 把视口坐标限制在地图内，地图比视口小时居中
+     */
+    private static double clamp(double position, double worldSize, double viewportSize) {
+        if (worldSize <= viewportSize) {
+            return (worldSize - viewportSize) / 2;
+        }
+        return Math.max(0, Math.min(worldSize - viewportSize, position));
+    }
+    
+    /**
+     * 检查矩形是否与视口相交
+     * 
+     * @param objX 矩形X坐标
+     * @param objY 矩形Y坐标
+     * @param width 矩形宽度
+     * @param height 矩形高度
+     * @return 是否可见
+     */
+    public boolean isVisible(double objX, double objY, double width, double height) {
+        return objX < x + viewportWidth && objX + width > x
+                && objY < y + viewportHeight && objY + height > y;
+    }
+    
+    /**
+     * 检查游戏对象是否与视口相交
+     * 
+     * @param obj 游戏对象
+     * @return 是否可见
+     */
+    public boolean isVisible(GameObject obj) {
+        return isVisible(obj.getX(), obj.getY(), obj.getWidth(), obj.getHeight());
+    }
+    
+    public double getX() {
+        return x;
+    }
+    
+    public double getY() {
+        return y;
+    }
+    
+    public double getViewportWidth() {
+        return viewportWidth;
+    }
+    
+    public double getViewportHeight() {
+        return viewportHeight;
+    }
+}
@@ -0,0 +1,156 @@
+package com.tankbattle.view;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import javafx.scene.SnapshotParameters;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.image.WritableImage;
+import javafx.scene.paint.Color;
+
+/**
+ * 区块图像缓存，供墙体层和地形层绘制器共用
+ * 绘制层按边长CHUNK_TILES个格子划分为区块，区块第一次进入视口时由绘制函数画到离屏画布并生成图像，
+ * 之后每帧只绘制一次图像；按最近使用顺序最多保留CACHE_SIZE个区块，没有内容的区块保存为null
+ * 
+ * @author Taiyu Jin
+ */
+class ChunkCache {
+    // 每个区块包含的格子数（边长）
+    static final int CHUNK_TILES = 8;
+    
+    // 最多缓存的区块数
+    private static final int CACHE_SIZE = 64;
+    
+    /**
+     * 区块绘制函数
+     */
+    interface ChunkPainter {
+        /**
+         * 绘制一个区块的内容
+         * 
+         * @param chunkCol 区块列
+         * @param chunkRow 区块行
+         * @param canvas 区块画布的绘图上下文，已平移到世界坐标；第一次调用get()时才创建画布，
+         *               没有调用时区块视为没有内容
+         */
+        void paint(int chunkCol, int chunkRow, Supplier<GraphicsContext> canvas);
+    }
+    
+    /**
+     * 对已缓存区块执行的操作
+     */
+    interface CachedChunkAction {
+        void accept(WritableImage image, int chunkX, int chunkY);
+    }
+    
+    private final int chunkSize;
+    private final ChunkPainter painter;
+    
+    private final Map<Long, WritableImage> chunks = new LinkedHashMap<Long, WritableImage>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, WritableImage> eldest) {
+            return size() > CACHE_SIZE;
+        }
+    };
+    
+    /**
+     * 构造函数
+     * 
+     * @param tileSize 格子大小（像素）
+     * @param painter 区块绘制函数
+     */
+    ChunkCache(int tileSize, ChunkPainter painter) {
+        this.chunkSize = CHUNK_TILES * tileSize;
+        this.painter = painter;
+    }
+    
+    /**
+     * 绘制视口内的区块，缺少的区块先生成并缓存（只能在JavaFX线程调用）
+     * 
+     * @param gc 已平移到世界坐标的绘图上下文
+     * @param camera 摄像机
+     */
+    void draw(GraphicsContext gc, Camera camera) {
+        int minCol = (int) Math.floor(camera.getX() / chunkSize);
+        int maxCol = (int) Math.floor((camera.getX() + camera.getViewportWidth()) / chunkSize);
+        int minRow = (int) Math.floor(camera.getY() / chunkSize);
+        int maxRow = (int) Math.floor((camera.getY() + camera.getViewportHeight()) / chunkSize);
+        for (int row = minRow; row <= maxRow; row++) {
+            for (int col = minCol; col <= maxCol; col++) {
+                long key = key(col, row);
+                WritableImage image;
+                if (chunks.containsKey(key)) {
+                    image = chunks.get(key);
+                } else {
+                    image = render(col, row);
+                    chunks.put(key, image);
+                }
+                if (image != null) {
+                    gc.drawImage(image, col * chunkSize, row * chunkSize);
+                }
+            }
+        }
+    }
+    
+    /**
+     * 清空所有区块
+     */
+    void clear() {
+        chunks.clear();
+    }
+    
+    /**
+     * 丢弃与世界坐标中的矩形区域重叠的区块，下次绘制时重新生成
+     */
+    void invalidate(int x, int y, int width, int height) {
+        for (int row = Math.floorDiv(y, chunkSize); row <= Math.floorDiv(y + height - 1, chunkSize); row++) {
+            for (int col = Math.floorDiv(x, chunkSize); col <= Math.floorDiv(x + width - 1, chunkSize); col++) {
+                chunks.remove(key(col, row));
+            }
+        }
+    }
+    
+    /**
+     * 对与世界坐标中的矩形区域重叠、且已缓存有图像的每个区块执行操作，用于直接修改区块像素
+     */
+    void forEachCached(int x, int y, int width, int height, CachedChunkAction action) {
+        for (int row = Math.floorDiv(y, chunkSize); row <= Math.floorDiv(y + height - 1, chunkSize); row++) {
+            for (int col = Math.floorDiv(x, chunkSize); col <= Math.floorDiv(x + width - 1, chunkSize); col++) {
+                WritableImage image = chunks.get(key(col, row));
+                if (image != null) {
+                    action.accept(image, col * chunkSize, row * chunkSize);
+                }
+            }
+        }
+    }
+    
+    /**
+     * 用绘制函数把一个区块画到离屏画布并生成图像
+     * 
+     * @return 区块图像，绘制函数没有使用画布时返回null
+     */
+    private WritableImage render(int chunkCol, int chunkRow) {
+        Canvas[] canvas = new Canvas[1];
+        painter.paint(chunkCol, chunkRow, () -> {
+            if (canvas[0] == null) {
+                canvas[0] = new Canvas(chunkSize, chunkSize);
+                canvas[0].getGraphicsContext2D().translate(-chunkCol * chunkSize, -chunkRow * chunkSize);
+            }
+            return canvas[0].getGraphicsContext2D();
+        });
+        if (canvas[0] == null) {
+            return null;
+        }
+        
+        SnapshotParameters parameters = new SnapshotParameters();
+        parameters.setFill(Color.TRANSPARENT);
+        return canvas[0].snapshot(parameters, null);
+    }
+    
+    private static long key(int col, int row) {
+        return ((long) col << 32) | (row & 0xFFFFFFFFL);
+    }
+}
@@ -1,5 +1,6 @@
 package com.tankbattle.view;
 
+import javafx.application.Platform;
 import javafx.scene.Scene;
 import javafx.scene.canvas.Canvas;
 import javafx.scene.canvas.GraphicsContext;
@@ -18,6 +19,7 @@ import javafx.scene.layout.Region;
 import javafx.scene.paint.Color;
 import javafx.scene.text.Font;
 
+import java.lang.ref.SoftReference;
 import java.text.SimpleDateFormat;
 import java.util.Date;
 import java.util.List;
@@ -55,9 +57,6 @@ import com.tankbattle.model.ResourceManager;
 import com.tankbattle.model.entity.Bullet;
 import com.tankbattle.model.entity.EnemyTank;
 import com.tankbattle.model.entity.PlayerTank;
-import com.tankbattle.model.entity.Wall;
-import com.tankbattle.model.entity.BrickWall;
-import com.tankbattle.model.entity.SteelWall;
 import com.tankbattle.model.entity.Item;
 import com.tankbattle.model.enums.Direction;
 import com.tankbattle.model.enums.GameState;
@@ -73,12 +72,13 @@ public class GameView {
     private Stage stage;
     private Scene gameScene;
     private Scene menuScene;
-    private Scene gameOverScene;
-    private Scene victoryScene;
     private Scene pauseScene;
-    private Scene helpScene;
     private Scene levelCompleteScene;
-    private Scene musicSettingsScene;
+    // 不常用的场景使用软引用缓存，内存紧张时可被回收
+    private SoftReference<Scene> gameOverSceneRef;
+    private SoftReference<Scene> victorySceneRef;
+    private SoftReference<Scene> helpSceneRef;
+    private SoftReference<Scene> musicSettingsSceneRef;
     private Canvas gameCanvas;
     private GraphicsContext gc;
     
@@ -95,6 +95,15 @@ public class GameView {
     private static final int GAME_WIDTH = 800;
     private static final int GAME_HEIGHT = 600;
     
+    // 跟随玩家的摄像机，地图大于画布时滚动显示
+    private final Camera camera = new Camera(GAME_WIDTH, GAME_HEIGHT);
+    
+    // 地形层绘制器，按区块缓存地形图像
+    private final TerrainRenderer terrainRenderer = new TerrainRenderer();
+    
+    // 墙体层绘制器，按区块缓存墙体图像
+    private WallRenderer wallRenderer;
+    
     // 特效
     private Glow glowEffect;
     private DropShadow shadowEffect;
@@ -107,6 +116,10 @@ public class GameView {
     private Text enemiesText;
     private HBox statusEffectsBox;
     
+    // 游戏场景的键盘事件处理器，场景创建时绑定
+    private EventHandler<KeyEvent> gameKeyPressedHandler;
+    private EventHandler<KeyEvent> gameKeyReleasedHandler;
+    
     // 在类成员区域添加标志位，避免重复播放
     private boolean levelCompleteAudioPlayed = false;
     // 游戏结束音乐播放标志，避免多次播放
@@ -124,16 +137,163 @@ public class GameView {
         
         // 获取资源管理器和音频管理器
         this.resourceManager = ResourceManager.getInstance();
+        this.wallRenderer = new WallRenderer(resourceManager);
         this.audioManager = AudioManager.getInstance();
         
-        // 初始化游戏画布
-        gameCanvas = new Canvas(GAME_WIDTH, GAME_HEIGHT);
-        gc = gameCanvas.getGraphicsContext2D();
-        
         // 初始化特效
         glowEffect = new Glow(0.8);
         shadowEffect = new DropShadow(10, Color.CYAN);
         
+        // 各场景均在首次显示时才创建，缩短启动到主菜单的时间
+    }
+    
+    /**
+     * 在空闲时预先创建常用场景
+     * 每次只创建一个场景，避免长时间占用JavaFX线程
+     */
+    public void prebuildScenesWhenIdle() {
+        Runnable[] builders = {
+            this::getGameScene,
+            this::getPauseScene,
+            this::getLevelCompleteScene
+        };
+        prebuildNext(builders, 0);
+    }
+    
+    /**
+     * 通过Platform.runLater逐个创建场景
+     * 
+     * @param builders 场景创建任务
+     * @param index 当前任务索引
+     */
+    private void prebuildNext(Runnable[] builders, int index) {
+        if (index >= builders.length) {
+            return;
+        }
+        Platform.runLater(() -> {
+            try {
+                builders[index].run();
+            } catch (Exception e) {
+                System.err.println("预创建场景失败: " + e.getMessage());
+            }
+            prebuildNext(builders, index + 1);
+        });
+    }
+    
+    /**
+     * 获取游戏场景，首次访问时创建
+     * 
+     * @return 游戏场景
+     */
+    private Scene getGameScene() {
+        if (gameScene == null) {
+            gameScene = createGameScene();
+        }
+        return gameScene;
+    }
+    
+    /**
+     * 获取主菜单场景，首次访问时创建
+     * 
+     * @return 主菜单场景
+     */
+    private Scene getMenuScene() {
+        if (menuScene == null) {
+            menuScene = createMenuScene();
+        }
+        return menuScene;
+    }
+    
+    /**
+     * 获取暂停场景，首次访问时创建
+     * 
+     * @return 暂停场景
+     */
+    private Scene getPauseScene() {
+        if (pauseScene == null) {
+            pauseScene = createPauseScene();
+        }
+        return pauseScene;
+    }
+    
+    /**
+     * 获取关卡完成场景，首次访问时创建
+     * 
+     * @return 关卡完成场景
+     */
+    private Scene getLevelCompleteScene() {
+        if (levelCompleteScene == null) {
+            levelCompleteScene = createLevelCompleteScene();
+        }
+        return levelCompleteScene;
+    }
+    
+    /**
+     * 获取游戏结束场景，内存紧张时可能被回收并重新创建
+     * 
+     * @return 游戏结束场景
+     */
+    private Scene getGameOverScene() {
+        Scene scene = gameOverSceneRef != null ? gameOverSceneRef.get() : null;
+        if (scene == null) {
+            scene = createGameOverScene();
+            gameOverSceneRef = new SoftReference<>(scene);
+        }
+        return scene;
+    }
+    
+    /**
+     * 获取胜利场景，内存紧张时可能被回收并重新创建
+     * 
+     * @return 胜利场景
+     */
+    private Scene getVictoryScene() {
+        Scene scene = victorySceneRef != null ? victorySceneRef.get() : null;
+        if (scene == null) {
+            scene = createVictoryScene();
+            victorySceneRef = new SoftReference<>(scene);
+        }
+        return scene;
+    }
+    
+    /**
+     * 获取帮助场景，内存紧张时可能被回收并重新创建
+     * 
+     * @return 帮助场景
+     */
+    private Scene getHelpScene() {
+        Scene scene = helpSceneRef != null ? helpSceneRef.get() : null;
+        if (scene == null) {
+            scene = createHelpScene();
+            helpSceneRef = new SoftReference<>(scene);
+        }
+        return scene;
+    }
+    
+    /**
+     * 获取音乐设置场景，内存紧张时可能被回收并重新创建
+     * 
+     * @return 音乐设置场景
+     */
+    private Scene getMusicSettingsScene() {
+        Scene scene = musicSettingsSceneRef != null ? musicSettingsSceneRef.get() : null;
+        if (scene == null) {
+            scene = createMusicSettingsScene();
+            musicSettingsSceneRef = new SoftReference<>(scene);
+        }
+        return scene;
+    }
+    
+    /**
+     * 创建游戏场景（游戏画布和HUD）
+     * 
+     * @return 游戏场景
+     */
+    private Scene createGameScene() {
+        // 初始化游戏画布
+        gameCanvas = new Canvas(GAME_WIDTH, GAME_HEIGHT);
+        gc = gameCanvas.getGraphicsContext2D();
+        
         // 创建HUD界面
         createHudPanel();
         
@@ -149,28 +309,12 @@ public class GameView {
         StackPane.setAlignment(hudPanel, Pos.TOP_LEFT);
         gamePane.setCenter(gameStackPane);
         
-        gameScene = new Scene(gamePane, GAME_WIDTH, GAME_HEIGHT);
-        
-        // 创建菜单场景
-        createMenuScene();
-        
-        // 创建游戏结束场景
-        createGameOverScene();
-        
-        // 创建胜利场景
-        createVictoryScene();
-        
-        // 创建暂停场景
-        createPauseScene();
+        Scene scene = new Scene(gamePane, GAME_WIDTH, GAME_HEIGHT);
         
-        // 创建帮助场景
-        createHelpScene();
-        
-        // 创建音乐设置场景
-        createMusicSettingsScene();
-        
-        // 创建关卡完成场景
-        createLevelCompleteScene();
+        // 绑定之前注册的键盘事件处理器
+        scene.setOnKeyPressed(gameKeyPressedHandler);
+        scene.setOnKeyReleased(gameKeyReleasedHandler);
+        return scene;
     }
     
     /**
@@ -384,7 +528,7 @@ public class GameView {
     /**
      * 创建主菜单场景
      */
-    private void createMenuScene() {
+    private Scene createMenuScene() {
         // 创建主界面布局
         StackPane menuRoot = new StackPane();
         
@@ -477,7 +621,7 @@ public class GameView {
                 gameModel.setSelectedLevel(level);
                 
                 // 更新UI，刷新当前关卡选择界面
-                createMenuScene();
+                menuScene = createMenuScene();
                 showMainMenu();
             });
             
@@ -497,6 +641,17 @@ public class GameView {
             startGame();
         });
         
+        // 创建无尽模式按钮
+        Button endlessButton = createStyledButton("无尽模式", 200, 50);
+        endlessButton.setOnAction(e -> {
+            try {
+                audioManager.playSoundEffect("button_click");
+            } catch (Exception ex) {
+                System.err.println("播放按钮音效失败: " + ex.getMessage());
+            }
+            startEndlessGame();
+        });
+        
         // 创建加载游戏按钮
         Button loadButton = createStyledButton("加载游戏", 200, 50);
         loadButton.setOnAction(e -> {
@@ -543,10 +698,10 @@ public class GameView {
         });
         
         // 添加按钮到菜单选项面板 (使用新的水平布局替代单独的按钮)
-        menuOptionsBox.getChildren().addAll(levelSelectorBox, startButton, loadButton, utilityButtonsBox, exitButton);
+        menuOptionsBox.getChildren().addAll(levelSelectorBox, startButton, endlessButton, loadButton, utilityButtonsBox, exitButton);
         
         // 创建半透明面板作为菜单选项的背景
-        Rectangle menuBg = new Rectangle(400, 320); // 适当减小高度，因为现在按钮占用的空间更少
+        Rectangle menuBg = new Rectangle(400, 385); // 包含无尽模式按钮的高度
         menuBg.setFill(Color.rgb(0, 0, 0, 0.7));
         menuBg.setArcWidth(20);
         menuBg.setArcHeight(20);
@@ -560,7 +715,8 @@ public class GameView {
         menuRoot.getChildren().addAll(background, tankUp, tankRight, enemyTank, titlePane, menuPane);
         
         // 创建场景
-        menuScene = new Scene(menuRoot, GAME_WIDTH, GAME_HEIGHT);
+        Scene menuScene = new Scene(menuRoot, GAME_WIDTH, GAME_HEIGHT);
+        return menuScene;
     }
     
     /**
@@ -630,7 +786,7 @@ public class GameView {
     /**
      * 创建游戏结束场景
      */
-    private void createGameOverScene() {
+    private Scene createGameOverScene() {
         // 创建主界面布局
         StackPane gameOverRoot = new StackPane();
         
@@ -689,7 +845,8 @@ public class GameView {
             } catch (Exception ex) {
                 System.err.println("播放按钮音效失败: " + ex.getMessage());
             }
-            startGame();
+            // 重新开始当前模式（无尽模式使用相同种子）
+            startGame(gameModel::resetGame);
         });
         
         // 创建返回主菜单按钮
@@ -724,13 +881,14 @@ public class GameView {
         gameOverRoot.getChildren().addAll(background, brokenTank, contentBox);
         
         // 创建场景
-        gameOverScene = new Scene(gameOverRoot, GAME_WIDTH, GAME_HEIGHT);
+        Scene gameOverScene = new Scene(gameOverRoot, GAME_WIDTH, GAME_HEIGHT);
+        return gameOverScene;
     }
     
     /**
      * 创建胜利场景
      */
-    private void createVictoryScene() {
+    private Scene createVictoryScene() {
         // 创建主界面布局
         StackPane victoryRoot = new StackPane();
         
@@ -818,13 +976,14 @@ public class GameView {
         victoryRoot.getChildren().addAll(background, victorTank, textBox, buttonPane);
         
         // 创建场景
-        victoryScene = new Scene(victoryRoot, GAME_WIDTH, GAME_HEIGHT);
+        Scene victoryScene = new Scene(victoryRoot, GAME_WIDTH, GAME_HEIGHT);
+        return victoryScene;
     }
     
     /**
      * 创建暂停场景
      */
-    private void createPauseScene() {
+    private Scene createPauseScene() {
         // 创建主界面布局
         StackPane pauseRoot = new StackPane();
         
@@ -895,10 +1054,11 @@ public class GameView {
         pauseRoot.getChildren().addAll(background, contentBox);
         
         // 创建场景
-        pauseScene = new Scene(pauseRoot, GAME_WIDTH, GAME_HEIGHT);
+        Scene pauseScene = new Scene(pauseRoot, GAME_WIDTH, GAME_HEIGHT);
         
         // 移除对键盘监听，确保仅通过按钮恢复/退出
         pauseScene.setOnKeyPressed(null);
+        return pauseScene;
     }
     
     /**
@@ -918,7 +1078,7 @@ public class GameView {
             audioManager.disableAllAudio();
         }
         
-        stage.setScene(menuScene);
+        stage.setScene(getMenuScene());
         gameModel.setGameState(GameState.MENU);
     }
     
@@ -942,7 +1102,7 @@ public class GameView {
             audioManager.disableAllAudio();
         }
         
-        stage.setScene(gameScene);
+        stage.setScene(getGameScene());
     }
     
     /**
@@ -966,7 +1126,7 @@ public class GameView {
                 }
                 gameOverAudioPlayed = true;
             }
-            stage.setScene(gameOverScene);
+            stage.setScene(getGameOverScene());
         }
     }
     
@@ -991,7 +1151,7 @@ public class GameView {
                 audioManager.disableAllAudio();
             }
             
-            stage.setScene(victoryScene);
+            stage.setScene(getVictoryScene());
         }
     }
     
@@ -1012,7 +1172,7 @@ public class GameView {
                 }
                 levelCompleteAudioPlayed = true;
             }
-            stage.setScene(levelCompleteScene);
+            stage.setScene(getLevelCompleteScene());
         }
     }
     
@@ -1021,14 +1181,14 @@ public class GameView {
      */
     public void showPauseScene() {
         if (gameModel.getGameState() == GameState.PAUSED) {
-            stage.setScene(pauseScene);
+            stage.setScene(getPauseScene());
         }
     }
     
     /**
      * 创建帮助场景（包含玩法说明和键位说明）
      */
-    private void createHelpScene() {
+    private Scene createHelpScene() {
         // 创建主界面布局
         StackPane helpRoot = new StackPane(); 
         
@@ -1238,7 +1398,7 @@ public class GameView {
         escHint.setFont(Font.font("Arial", FontWeight.BOLD, 16));
         escHint.setFill(Color.LIGHTBLUE);
         escHint.setOpacity(0.8);
-
+        
         // 创建返回按钮
         Button backButton = createStyledButton("返回主菜单", 200, 50);
         backButton.setOnAction(e -> {
@@ -1303,7 +1463,7 @@ public class GameView {
         helpRoot.getChildren().addAll(background, contentPane);
         
         // 创建场景并添加键盘事件处理
-        helpScene = new Scene(helpRoot, GAME_WIDTH, GAME_HEIGHT);
+        Scene helpScene = new Scene(helpRoot, GAME_WIDTH, GAME_HEIGHT);
         
         // 添加ESC键返回主菜单功能
         helpScene.setOnKeyPressed(event -> {
@@ -1316,6 +1476,7 @@ public class GameView {
                 showMainMenu();
             }
         });
+        return helpScene;
     }
     
     /**
@@ -1357,6 +1518,7 @@ public class GameView {
             audioManager.disableAllAudio();
         }
         
+        Scene helpScene = getHelpScene();
         stage.setScene(helpScene);
         
         // 确保帮助内容滚动到顶部
@@ -1390,6 +1552,24 @@ public class GameView {
      * 开始游戏
      */
     private void startGame() {
+        startGame(gameModel::initGame);
+    }
+    
+    /**
+     * 开始无尽模式，每次使用新的随机种子
+     */
+    private void startEndlessGame() {
+        long seed = System.nanoTime();
+        System.out.println("无尽模式种子: " + seed);
+        startGame(() -> gameModel.initEndlessGame(seed));
+    }
+    
+    /**
+     * 播放开始音效并初始化游戏
+     * 
+     * @param initializer 初始化游戏模型的操作
+     */
+    private void startGame(Runnable initializer) {
         try {
             // 播放游戏开始音效，如果失败也继续游戏
             boolean soundPlayed = audioManager.playSoundEffect("game_start");
@@ -1403,7 +1583,7 @@ public class GameView {
         }
         
         // 无论音频问题如何，都确保游戏继续
-        gameModel.initGame();
+        initializer.run();
         showGameScene();
     }
     
@@ -1440,26 +1620,44 @@ public class GameView {
      * 渲染游戏画面
      */
     public void render() {
+        // 游戏场景尚未创建时无需渲染
+        if (gc == null) {
+            return;
+        }
+        
         // 清空画布
         gc.setFill(Color.BLACK);
         gc.fillRect(0, 0, GAME_WIDTH, GAME_HEIGHT);
         
-        // 绘制墙体
-        for (Wall wall : gameModel.getWalls()) {
-            Image wallImage;
-            if (wall instanceof BrickWall) {
-                wallImage = resourceManager.getImage("brick_wall");
-            } else if (wall instanceof SteelWall) {
-                wallImage = resourceManager.getImage("steel_wall");
-            } else {
-                continue;
-            }
-            
-            gc.drawImage(wallImage, wall.getX(), wall.getY(), wall.getWidth(), wall.getHeight());
+        // 摄像机跟随玩家，之后的绘制都使用世界坐标
+        PlayerTank playerTank = gameModel.getPlayerTank();
+        int mapWidth = gameModel.getMapWidth();
+        int mapHeight = gameModel.getMapHeight();
+        camera.follow(playerTank, mapWidth, mapHeight);
+        gc.save();
+        gc.translate(-camera.getX(), -camera.getY());
+        
+        // 地图小于画布时标出地图边界
+        if (mapWidth < GAME_WIDTH || mapHeight < GAME_HEIGHT) {
+            gc.setStroke(Color.DIMGRAY);
+            gc.setLineWidth(1);
+            gc.strokeRect(-0.5, -0.5, mapWidth + 1, mapHeight + 1);
         }
         
+        // 绘制地面地形（水面、冰面）
+        terrainRenderer.drawGround(gc, gameModel.getTerrainMap(), camera);
+        
+        // 绘制墙体：先丢弃热重载改变的区块并把受损格子更新到缓存的区块中，再绘制视口内的区块
+        gameModel.drainReshapedWalls(wallRenderer::invalidate);
+        gameModel.drainDamagedWalls(wallRenderer::updateTile);
+        wallRenderer.draw(gc, gameModel.getWallIndex(), camera);
+        
         // 绘制道具
         for (Item item : gameModel.getItems()) {
+            if (!camera.isVisible(item)) {
+                continue;
+            }
+            
             String imageName;
             switch (item.getType()) {
                 case SHIELD:
@@ -1497,7 +1695,6 @@ public class GameView {
         }
         
         // 绘制玩家坦克
-        PlayerTank playerTank = gameModel.getPlayerTank();
         if (playerTank != null && playerTank.isAlive()) {
             // 获取坦克图像
             String directionStr;
@@ -1560,6 +1757,10 @@ public class GameView {
         
         // 绘制敌人坦克
         for (EnemyTank enemyTank : gameModel.getEnemyTanks()) {
+            if (!camera.isVisible(enemyTank)) {
+                continue;
+            }
+            
             // 获取敌人坦克图像
             String directionStr;
             switch (enemyTank.getDirection()) {
@@ -1586,6 +1787,10 @@ public class GameView {
         
         // 绘制子弹
         for (Bullet bullet : gameModel.getBullets()) {
+            if (!camera.isVisible(bullet)) {
+                continue;
+            }
+            
             Image bulletImage = resourceManager.getImage("bullet");
             
             // 如果是增强子弹，添加特效并绘制更大
@@ -1598,6 +1803,11 @@ public class GameView {
             }
         }
         
+        // 树林绘制在坦克和子弹上方
+        terrainRenderer.drawCanopy(gc, gameModel.getTerrainMap(), camera);
+        
+        gc.restore();
+        
         // 更新HUD信息
         updateHUD();
     }
@@ -1626,14 +1836,20 @@ public class GameView {
      */
     public void setKeyHandlers(javafx.event.EventHandler<KeyEvent> onKeyPressed, 
                               javafx.event.EventHandler<KeyEvent> onKeyReleased) {
-        gameScene.setOnKeyPressed(onKeyPressed);
-        gameScene.setOnKeyReleased(onKeyReleased);
+        this.gameKeyPressedHandler = onKeyPressed;
+        this.gameKeyReleasedHandler = onKeyReleased;
+        
+        // 游戏场景可能尚未创建，创建时会再绑定
+        if (gameScene != null) {
+            gameScene.setOnKeyPressed(onKeyPressed);
+            gameScene.setOnKeyReleased(onKeyReleased);
+        }
     }
     
     /**
      * 创建关卡完成场景
      */
-    private void createLevelCompleteScene() {
+    private Scene createLevelCompleteScene() {
         // 创建主界面布局
         StackPane levelCompleteRoot = new StackPane();
         
@@ -1696,7 +1912,7 @@ public class GameView {
         VBox textBox = new VBox(30);
         textBox.setAlignment(Pos.CENTER);
         textBox.getChildren().addAll(levelCompleteText, statsBox);
-         
+        
         // 创建按钮面板
         VBox buttonBox = new VBox(15);
         buttonBox.setAlignment(Pos.CENTER);
@@ -1760,10 +1976,11 @@ public class GameView {
         levelCompleteRoot.getChildren().addAll(background, playerTank, enemyTank, mainBox);
         
         // 创建场景
-        levelCompleteScene = new Scene(levelCompleteRoot, GAME_WIDTH, GAME_HEIGHT);
+        Scene levelCompleteScene = new Scene(levelCompleteRoot, GAME_WIDTH, GAME_HEIGHT);
         
         // 移除对键盘监听
         levelCompleteScene.setOnKeyPressed(null);
+        return levelCompleteScene;
     }
     
     /**
@@ -1782,15 +1999,14 @@ public class GameView {
         if (result.isPresent() && !result.get().trim().isEmpty()) {
             String saveName = result.get().trim();
             
-            // 调用GameModel的saveGame方法保存游戏
-            boolean success = gameModel.saveGame(saveName);
-            
-            // 显示保存结果
-            Alert alert = new Alert(success ? Alert.AlertType.INFORMATION : Alert.AlertType.ERROR);
-            alert.setTitle("保存游戏");
-            alert.setHeaderText(success ? "保存成功" : "保存失败");
-            alert.setContentText(success ? "游戏进度已保存！" : "保存游戏时出现错误，请重试。");
-            alert.showAndWait();
+            // 在后台写入存档，写入完成后在JavaFX线程显示保存结果
+            gameModel.saveGameAsync(saveName, success -> {
+                Alert alert = new Alert(success ? Alert.AlertType.INFORMATION : Alert.AlertType.ERROR);
+                alert.setTitle("保存游戏");
+                alert.setHeaderText(success ? "保存成功" : "保存失败");
+                alert.setContentText(success ? "游戏进度已保存！" : "保存游戏时出现错误，请重试。");
+                alert.show();
+            });
         }
     }
     
@@ -1853,7 +2069,7 @@ public class GameView {
     /**
      * 创建音乐设置场景
      */
-    private void createMusicSettingsScene() {
+    private Scene createMusicSettingsScene() {
         StackPane root = new StackPane();
         Rectangle background = new Rectangle(GAME_WIDTH, GAME_HEIGHT);
         background.setFill(Color.rgb(20, 40, 60));
@@ -1881,7 +2097,7 @@ public class GameView {
         volumeSlider.setBlockIncrement(5);
         HBox sliderBox = new HBox(10, sliderLabel, volumeSlider);
         sliderBox.setAlignment(Pos.CENTER);
- 
+        
         // 滑块监听：统一设置全局音量，0即静音，100最大音量
         volumeSlider.valueProperty().addListener((obs, oldVal, newVal) -> {
             double vol = newVal.doubleValue() / 100.0;
@@ -1907,20 +2123,21 @@ public class GameView {
         StackPane panelPane = new StackPane(panelBg, content);
         root.getChildren().addAll(background, panelPane);
         
-        musicSettingsScene = new Scene(root, GAME_WIDTH, GAME_HEIGHT);
+        Scene musicSettingsScene = new Scene(root, GAME_WIDTH, GAME_HEIGHT);
         musicSettingsScene.setOnKeyPressed(event -> {
             if (event.getCode() == javafx.scene.input.KeyCode.ESCAPE) {
                 try { audioManager.playSoundEffect("button_click"); } catch (Exception ex) { System.err.println("播放按钮音效失败: " + ex.getMessage()); }
                 showMainMenu();
             }
         });
+        return musicSettingsScene;
     }
     
     /**
      * 显示音乐设置场景
      */
     public void showMusicSettingsScene() {
-        stage.setScene(musicSettingsScene);
+        stage.setScene(getMusicSettingsScene());
         gameModel.setGameState(GameState.MENU);
     }
 }
\ No newline at end of file
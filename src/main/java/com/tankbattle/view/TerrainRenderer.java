@@ -0,0 +1,133 @@
+package com.tankbattle.view;
+
+import java.util.function.Supplier;
+
+import com.tankbattle.model.TerrainMap;
+import com.tankbattle.model.enums.TerrainType;
+
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.paint.Color;
+
+/**
+ * 地形层绘制器
+ * 地形按区块预先绘制成图像并缓存，每帧只需为视口内的每个区块绘制一次图像；
+ * 地面层（水面、冰面）绘制在墙体下方，树林层绘制在坦克和子弹上方
+ * 
+ * @author Taiyu Jin
+ */
+public class TerrainRenderer {
+    // 地形颜色
+    private static final Color WATER_COLOR = Color.rgb(29, 79, 145);
+    private static final Color WAVE_COLOR = Color.rgb(90, 150, 215);
+    private static final Color ICE_COLOR = Color.rgb(207, 233, 247);
+    private static final Color ICE_STREAK_COLOR = Color.rgb(245, 252, 255);
+    private static final Color FOREST_DARK = Color.rgb(24, 84, 30);
+    private static final Color FOREST_LIGHT = Color.rgb(52, 130, 48);
+    
+    // 缓存对应的地形层，关卡切换后缓存失效
+    private TerrainMap cachedTerrain;
+    
+    // 各层的区块图像，由缓存的地形层绘制
+    private final ChunkCache groundChunks = new ChunkCache(TerrainMap.TILE_SIZE,
+            (col, row, canvas) -> paintChunk(col, row, canvas, false));
+    private final ChunkCache canopyChunks = new ChunkCache(TerrainMap.TILE_SIZE,
+            (col, row, canvas) -> paintChunk(col, row, canvas, true));
+    
+    /**
+     * 绘制地面层（水面和冰面），应在墙体之前调用
+     * 
+     * @param gc 已平移到世界坐标的绘图上下文
+     * @param terrain 地形层
+     * @param camera 摄像机
+     */
+    public void drawGround(GraphicsContext gc, TerrainMap terrain, Camera camera) {
+        if (terrain.contains(TerrainType.WATER) || terrain.contains(TerrainType.ICE)) {
+            drawLayer(gc, terrain, camera, groundChunks);
+        }
+    }
+    
+    /**
+     * 绘制树林层，应在坦克和子弹之后调用
+     * 
+     * @param gc 已平移到世界坐标的绘图上下文
+     * @param terrain 地形层
+     * @param camera 摄像机
+     */
+    public void drawCanopy(GraphicsContext gc, TerrainMap terrain, Camera camera) {
+        if (terrain.contains(TerrainType.FOREST)) {
+            drawLayer(gc, terrain, camera, canopyChunks);
+        }
+    }
+    
+    /**
+     * 绘制视口内的所有区块，缺少的区块先生成并缓存
+     */
+    private void drawLayer(GraphicsContext gc, TerrainMap terrain, Camera camera, ChunkCache cache) {
+        if (terrain != cachedTerrain) {
+            groundChunks.clear();
+            canopyChunks.clear();
+            cachedTerrain = terrain;
+        }
+        cache.draw(gc, camera);
+    }
+    
+    /**
+     * 绘制一个区块中属于该层的地形格子，区块内没有该层地形时不创建画布
+     */
+    private void paintChunk(int chunkCol, int chunkRow, Supplier<GraphicsContext> canvas, boolean canopy) {
+        int tileSize = TerrainMap.TILE_SIZE;
+        for (int r = 0; r < ChunkCache.CHUNK_TILES; r++) {
+            for (int c = 0; c < ChunkCache.CHUNK_TILES; c++) {
+                int col = chunkCol * ChunkCache.CHUNK_TILES + c;
+                int row = chunkRow * ChunkCache.CHUNK_TILES + r;
+                TerrainType type = cachedTerrain.getType(col, row);
+                boolean inLayer = canopy ? type == TerrainType.FOREST
+                        : type == TerrainType.WATER || type == TerrainType.ICE;
+                if (inLayer) {
+                    drawTile(canvas.get(), type, col * tileSize, row * tileSize, tileSize);
+                }
+            }
+        }
+    }
+    
+    /**
+     * 绘制单个地形格子
+     */
+    private static void drawTile(GraphicsContext gc, TerrainType type, double x, double y, double size) {
+        switch (type) {
+            case WATER:
+                gc.setFill(WATER_COLOR);
+                gc.fillRect(x, y, size, size);
+                gc.setStroke(WAVE_COLOR);
+                gc.setLineWidth(2);
+                for (int i = 1; i <= 3; i++) {
+                    double waveY = y + size * i / 4.0;
+                    double offset = (i % 2) * size / 4.0;
+                    gc.strokeLine(x + offset + 4, waveY, x + offset + size / 2.0 - 4, waveY);
+                }
+                break;
+            case ICE:
+                gc.setFill(ICE_COLOR);
+                gc.fillRect(x, y, size, size);
+                gc.setStroke(ICE_STREAK_COLOR);
+                gc.setLineWidth(2);
+                gc.strokeLine(x + 6, y + size - 10, x + size - 10, y + 6);
+                gc.strokeLine(x + 14, y + size - 6, x + size - 6, y + 14);
+                break;
+            case FOREST:
+                // 交错的树冠，边缘留少量缝隙
+                gc.setFill(FOREST_DARK);
+                gc.fillRect(x + 2, y + 2, size - 4, size - 4);
+                gc.setFill(FOREST_LIGHT);
+                double radius = size / 4.0;
+                for (int i = 0; i < 2; i++) {
+                    for (int j = 0; j < 2; j++) {
+                        gc.fillOval(x + j * size / 2.0 + 2, y + i * size / 2.0 + 2, radius * 2 - 4, radius * 2 - 4);
+                    }
+                }
+                break;
+            default:
+                break;
+        }
+    }
+}
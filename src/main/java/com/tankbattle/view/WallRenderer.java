@@ -0,0 +1,164 @@
+package com.tankbattle.view;
+
+import java.util.function.Supplier;
+
+import com.tankbattle.model.ResourceManager;
+import com.tankbattle.model.WallIndex;
+import com.tankbattle.model.WallMerger;
+import com.tankbattle.model.entity.BrickWall;
+import com.tankbattle.model.entity.SteelWall;
+import com.tankbattle.model.entity.Wall;
+
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.image.Image;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.PixelWriter;
+import javafx.scene.paint.ImagePattern;
+
+/**
+ * 墙体层绘制器
+ * 墙体按区块预先绘制成图像并缓存，每帧只需为视口内的每个区块绘制一次图像；
+ * 墙体被击中后只用PixelWriter把受损格子中已被摧毁的小块改为透明，不重绘整个区块
+ * 
+ * @author Taiyu Jin
+ */
+public class WallRenderer {
+    // 区块边长（像素）
+    private static final int CHUNK_SIZE = ChunkCache.CHUNK_TILES * WallMerger.TILE_SIZE;
+    
+    // 一行透明像素，清除区域时每行重复使用
+    private static final int[] CLEAR_PIXELS = new int[CHUNK_SIZE];
+    
+    private final ResourceManager resourceManager;
+    
+    // 缓存对应的墙体索引，关卡切换后缓存失效；热重载改变的区块由invalidate()单独丢弃
+    private WallIndex cachedIndex;
+    
+    // 区块图像，由缓存的墙体索引绘制
+    private final ChunkCache chunks = new ChunkCache(WallMerger.TILE_SIZE, this::paintChunk);
+    
+    /**
+     * 构造函数
+     * 
+     * @param resourceManager 资源管理器
+     */
+    public WallRenderer(ResourceManager resourceManager) {
+        this.resourceManager = resourceManager;
+    }
+    
+    /**
+     * 绘制视口内的墙体，缺少的区块先生成并缓存
+     * 
+     * @param gc 已平移到世界坐标的绘图上下文
+     * @param wallIndex 墙体空间索引
+     * @param camera 摄像机
+     */
+    public void draw(GraphicsContext gc, WallIndex wallIndex, Camera camera) {
+        if (wallIndex != cachedIndex) {
+            chunks.clear();
+            cachedIndex = wallIndex;
+        }
+        chunks.draw(gc, camera);
+    }
+    
+    /**
+     * 更新受损格子在已缓存区块中的像素
+     * 墙体只会被削减，所以只需把已不存在的小块改为透明
+     * 
+     * @param tile 受损的墙体格子
+     */
+    public void updateTile(Wall tile) {
+        if (!tile.isAlive()) {
+            clearArea((int) tile.getX(), (int) tile.getY(), tile.getWidth(), tile.getHeight());
+            return;
+        }
+        if (!(tile instanceof BrickWall)) {
+            return;
+        }
+        
+        int mask = ((BrickWall) tile).getMask();
+        int size = BrickWall.SUB_BLOCK_SIZE;
+        for (int row = 0; row < BrickWall.SUB_BLOCKS; row++) {
+            for (int col = 0; col < BrickWall.SUB_BLOCKS; col++) {
+                if ((mask & (1 << (row * BrickWall.SUB_BLOCKS + col))) == 0) {
+                    clearArea((int) tile.getX() + col * size, (int) tile.getY() + row * size, size, size);
+                }
+            }
+        }
+    }
+    
+    /**
+     * 丢弃与墙体重叠的已缓存区块，下次绘制时重新生成
+     * 
+     * @param wall 被移除或新建的墙体
+     */
+    public void invalidate(Wall wall) {
+        chunks.invalidate((int) wall.getX(), (int) wall.getY(), wall.getWidth(), wall.getHeight());
+    }
+    
+    /**
+     * 把世界坐标中的矩形区域在所有已缓存的相关区块中改为透明
+     */
+    private void clearArea(int x, int y, int width, int height) {
+        chunks.forEachCached(x, y, width, height, (image, chunkX, chunkY) -> {
+            int left = Math.max(x, chunkX);
+            int top = Math.max(y, chunkY);
+            int right = Math.min(x + width, chunkX + CHUNK_SIZE);
+            int bottom = Math.min(y + height, chunkY + CHUNK_SIZE);
+            PixelWriter writer = image.getPixelWriter();
+            writer.setPixels(left - chunkX, top - chunkY, right - left, bottom - top,
+                    PixelFormat.getIntArgbInstance(), CLEAR_PIXELS, 0, 0);
+        });
+    }
+    
+    /**
+     * 绘制一个区块内的墙体，区块内没有墙体时不创建画布
+     */
+    private void paintChunk(int chunkCol, int chunkRow, Supplier<GraphicsContext> canvas) {
+        cachedIndex.forEachInArea(chunkCol * CHUNK_SIZE, chunkRow * CHUNK_SIZE, CHUNK_SIZE, CHUNK_SIZE,
+                wall -> drawWall(canvas.get(), wall));
+    }
+    
+    /**
+     * 绘制单个墙体
+     */
+    private void drawWall(GraphicsContext gc, Wall wall) {
+        Image wallImage;
+        if (wall instanceof BrickWall) {
+            wallImage = resourceManager.getImage("brick_wall");
+        } else if (wall instanceof SteelWall) {
+            wallImage = resourceManager.getImage("steel_wall");
+        } else {
+            return;
+        }
+        
+        if (wall.isMerged()) {
+            // 合并墙体用平铺图案一次填充
+            gc.setFill(new ImagePattern(wallImage, wall.getX(), wall.getY(),
+                    WallMerger.TILE_SIZE, WallMerger.TILE_SIZE, false));
+            gc.fillRect(wall.getX(), wall.getY(), wall.getWidth(), wall.getHeight());
+        } else if (wall instanceof BrickWall && ((BrickWall) wall).isDamaged()) {
+            drawDamagedBrick(gc, (BrickWall) wall, wallImage);
+        } else {
+            gc.drawImage(wallImage, wall.getX(), wall.getY(), wall.getWidth(), wall.getHeight());
+        }
+    }
+    
+    /**
+     * 受损的砖墙只绘制剩余的小块，每个小块取图像中对应的部分
+     */
+    private static void drawDamagedBrick(GraphicsContext gc, BrickWall wall, Image image) {
+        int blocks = BrickWall.SUB_BLOCKS;
+        double sourceWidth = image.getWidth() / blocks;
+        double sourceHeight = image.getHeight() / blocks;
+        double size = BrickWall.SUB_BLOCK_SIZE;
+        for (int row = 0; row < blocks; row++) {
+            for (int col = 0; col < blocks; col++) {
+                if ((wall.getMask() & (1 << (row * blocks + col))) != 0) {
+                    gc.drawImage(image, col * sourceWidth, row * sourceHeight, sourceWidth, sourceHeight,
+                            wall.getX() + col * size, wall.getY() + row * size, size, size);
+                }
+            }
+        }
+    }
+}
@@ -5,6 +5,8 @@ module com.tankbattle {
     requires javafx.swing;
     
     requires java.desktop;
+    requires java.management;
+    requires jdk.zipfs;
     
     requires transitive batik.all;
     requires com.google.gson;
@@ -17,11 +19,11 @@ module com.tankbattle {
     exports com.tankbattle.view;
     exports com.tankbattle.controller;
     exports com.tankbattle.model;
+    exports com.tankbattle.model.audio;
 
     opens com.tankbattle to javafx.fxml;
     opens com.tankbattle.view to javafx.fxml;
     opens com.tankbattle.controller to javafx.fxml;
     
-    opens com.tankbattle.model.level to com.google.gson;
     opens com.tankbattle.model.save to com.google.gson;
 }
\ No newline at end of file
@@ -0,0 +1,105 @@
+package com.tankbattle.model.audio;
+
+import java.net.URL;
+
+/**
+ * 软件混音器的无声卡自检：把音效渲染到MemoryAudioSink，检查解码、叠加、限幅和声部释放。
+ * 失败时以非零状态退出。只用于开发，不随应用发布
+ *
+ * 用法:
+ *   mvn test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+ *   java -cp "target/classes:target/test-classes:$(cat target/cp.txt)" \
+ *       com.tankbattle.model.audio.SoftwareMixerCheck
+ *
+ * @author Taiyu Jin
+ */
+public class SoftwareMixerCheck {
+
+    private static final String SOUND = "tank_fire";
+
+    private SoftwareMixerCheck() {
+    }
+
+    /**
+     * 命令行入口
+     *
+     * @param args 命令行参数（未使用）
+     */
+    public static void main(String[] args) throws Exception {
+        URL url = SoftwareMixerCheck.class.getResource("/audio/" + SOUND + ".wav");
+        if (url == null) {
+            fail("找不到音效资源: " + SOUND);
+        }
+
+        // 单个声部：输出就是解码后的采样
+        MemoryAudioSink single = new MemoryAudioSink();
+        SoftwareMixer mixer = new SoftwareMixer(single);
+        long durationNanos = mixer.loadSound(SOUND, url);
+        int frames = (int) (durationNanos * SoftwareMixer.SAMPLE_RATE / 1_000_000_000L) + SoftwareMixer.CHUNK_FRAMES;
+        check(mixer.openForRendering(), "无法打开内存输出");
+        check(mixer.play(SOUND, 1.0), "音效未能开始播放");
+        check(!mixer.play("missing", 1.0), "未加载的音效不应开始播放");
+        mixer.render(frames);
+        short[] once = samples(single.toByteArray());
+        check(once.length == frames * SoftwareMixer.CHANNELS, "渲染的采样数不正确: " + once.length);
+        check(!isSilent(once, 0, once.length), "单个声部的输出为静音");
+
+        // 两个声部同时播放：输出为逐个采样相加并限幅
+        MemoryAudioSink twice = new MemoryAudioSink();
+        SoftwareMixer doubled = new SoftwareMixer(twice);
+        doubled.loadSound(SOUND, url);
+        doubled.openForRendering();
+        doubled.play(SOUND, 1.0);
+        doubled.play(SOUND, 1.0);
+        doubled.render(frames);
+        short[] mixed = samples(twice.toByteArray());
+        for (int i = 0; i < once.length; i++) {
+            int expected = Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, once[i] * 2));
+            check(mixed[i] == expected, "第" + i + "个采样应为" + expected + "，实际为" + mixed[i]);
+        }
+
+        // 音效结束后声部被释放，之后的输出为静音
+        int before = twice.toByteArray().length;
+        doubled.render(SoftwareMixer.CHUNK_FRAMES);
+        short[] tail = samples(twice.toByteArray());
+        check(isSilent(tail, before / 2, tail.length), "音效结束后仍有输出");
+
+        // 超过最大声部数时替换已有声部，而不是拒绝播放
+        for (int i = 0; i < SoftwareMixer.MAX_VOICES + 4; i++) {
+            check(doubled.play(SOUND, 0.5), "声部已满时未能替换");
+        }
+        doubled.stopAll();
+        mixer.stop();
+        doubled.stop();
+
+        System.out.println("自检通过：" + frames + "帧，最大声部数" + SoftwareMixer.MAX_VOICES);
+    }
+
+    private static short[] samples(byte[] bytes) {
+        short[] samples = new short[bytes.length / 2];
+        for (int i = 0; i < samples.length; i++) {
+            samples[i] = (short) ((bytes[i * 2] & 0xFF) | (bytes[i * 2 + 1] << 8));
+        }
+        return samples;
+    }
+
+    private static boolean isSilent(short[] samples, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (samples[i] != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void check(boolean condition, String message) {
+        if (!condition) {
+            fail(message);
+        }
+    }
+
+    private static void fail(String message) {
+        System.err.println("自检失败：" + message);
+        System.exit(1);
+    }
+}
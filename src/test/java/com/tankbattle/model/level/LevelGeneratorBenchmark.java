@@ -0,0 +1,45 @@
+package com.tankbattle.model.level;
+
+import java.util.Locale;
+
+/**
+ * 程序化关卡生成速度基准测试，输出一行JSON报告。只用于开发，不随应用发布
+ *
+ * 用法:
+ *   mvn test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+ *   java -cp "target/classes:target/test-classes:$(cat target/cp.txt)" \
+ *       com.tankbattle.model.level.LevelGeneratorBenchmark [关卡数]
+ *
+ * @author Taiyu Jin
+ */
+public class LevelGeneratorBenchmark {
+
+    private static final int DEFAULT_LEVELS = 20000;
+
+    private LevelGeneratorBenchmark() {
+    }
+
+    /**
+     * 命令行入口
+     *
+     * @param args 命令行参数
+     */
+    public static void main(String[] args) {
+        int levels = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_LEVELS;
+
+        // 预热
+        for (int i = 0; i < levels / 10; i++) {
+            LevelGenerator.generate(i, i % 20 + 1, i % 10 + 1);
+        }
+        long start = System.nanoTime();
+        int walls = 0;
+        for (int i = 0; i < levels; i++) {
+            walls += LevelGenerator.generate(LevelGenerator.levelSeed(42, i), i + 1, i % 10 + 1).getWallCount();
+        }
+        long elapsed = System.nanoTime() - start;
+        System.out.println(String.format(Locale.ROOT,
+                "{\"levels\":%d,\"totalMs\":%.3f,\"levelsPerSecond\":%.1f,\"avgUs\":%.3f,\"avgWalls\":%.1f}",
+                levels, elapsed / 1_000_000.0, levels / (elapsed / 1_000_000_000.0),
+                elapsed / 1000.0 / levels, (double) walls / levels));
+    }
+}
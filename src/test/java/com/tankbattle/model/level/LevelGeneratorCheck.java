@@ -0,0 +1,63 @@
+package com.tankbattle.model.level;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+
+/**
+ * 程序化关卡生成器的确定性自检：同一种子两次生成的关卡完全相同，且所有出生点都可到达。
+ * 失败时以非零状态退出。只用于开发，不随应用发布
+ *
+ * 用法:
+ *   mvn test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+ *   java -cp "target/classes:target/test-classes:$(cat target/cp.txt)" \
+ *       com.tankbattle.model.level.LevelGeneratorCheck [种子数]
+ *
+ * @author Taiyu Jin
+ */
+public class LevelGeneratorCheck {
+
+    private static final int DEFAULT_SEEDS = 1000;
+
+    private LevelGeneratorCheck() {
+    }
+
+    /**
+     * 命令行入口
+     *
+     * @param args 命令行参数
+     */
+    public static void main(String[] args) {
+        int seeds = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_SEEDS;
+        System.exit(verify(seeds) ? 0 : 1);
+    }
+
+    private static boolean verify(int seeds) {
+        for (int i = 0; i < seeds; i++) {
+            long seed = LevelGenerator.levelSeed(i, i);
+            int difficulty = i % 10 + 1;
+            LevelConfig first = LevelGenerator.generate(seed, i + 1, difficulty);
+            LevelConfig second = LevelGenerator.generate(seed, i + 1, difficulty);
+            if (!toJson(first).equals(toJson(second))) {
+                System.err.println("自检失败：种子" + seed + "两次生成的关卡不同");
+                return false;
+            }
+            if (!LevelGenerator.isFullyReachable(first)) {
+                System.err.println("自检失败：种子" + seed + "生成的关卡存在无法到达的出生点");
+                return false;
+            }
+        }
+        System.out.println("自检通过：" + seeds + "个种子");
+        return true;
+    }
+
+    private static String toJson(LevelConfig config) {
+        StringWriter out = new StringWriter();
+        try {
+            LevelJsonCodec.write(config, out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toString();
+    }
+}
@@ -0,0 +1,233 @@
+package com.tankbattle.model.level;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import com.google.gson.Gson;
+
+/**
+ * 关卡加载基准测试，对比流式JSON解析、Gson反射绑定JSON解析和二进制格式的
+ * 加载耗时与内存分配，并输出一行JSON报告。只用于开发，不随应用发布。
+ * 关卡目录先复制到临时目录再编译，不会在源目录留下游戏运行时优先加载的二进制文件
+ *
+ * 用法（以类路径方式运行，反射绑定需要访问本包）:
+ *   mvn test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+ *   java -cp "target/classes:target/test-classes:$(cat target/cp.txt)" \
+ *       com.tankbattle.model.level.LevelLoadBenchmark [关卡目录] [次数]
+ *
+ * @author Taiyu Jin
+ */
+public class LevelLoadBenchmark {
+
+    private static final int DEFAULT_ITERATIONS = 2000;
+
+    private static final Gson gson = new Gson();
+
+    private LevelLoadBenchmark() {
+    }
+
+    /**
+     * 命令行入口
+     *
+     * @param args 命令行参数
+     */
+    public static void main(String[] args) {
+        String directory = args.length > 0 ? args[0] : "levels";
+        int iterations = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_ITERATIONS;
+
+        File workDir;
+        try {
+            workDir = copyLevels(new File(directory));
+        } catch (IOException e) {
+            System.err.println("无法复制关卡目录: " + e.getMessage());
+            System.exit(1);
+            return;
+        }
+        List<File> sources = LevelCompiler.compileDirectory(workDir);
+        if (!sources.isEmpty()) {
+            System.out.println(benchmark(sources, iterations));
+        }
+        deleteDirectory(workDir);
+        if (sources.isEmpty()) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * 把关卡目录中的JSON关卡复制到新建的临时目录
+     */
+    private static File copyLevels(File source) throws IOException {
+        Path target = Files.createTempDirectory("tankbattle-levels");
+        File[] files = source.listFiles((d, name) -> name.toLowerCase().endsWith(".json"));
+        if (files != null) {
+            for (File file : files) {
+                Files.copy(file.toPath(), target.resolve(file.getName()), StandardCopyOption.COPY_ATTRIBUTES);
+            }
+        }
+        return target.toFile();
+    }
+
+    /**
+     * 使用Gson反射绑定加载关卡配置，作为流式解析的对比基线
+     */
+    private static LevelConfig loadReflective(File file) throws IOException {
+        try (Reader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+            return gson.fromJson(reader, LevelConfig.class);
+        }
+    }
+
+    /**
+     * 对比三种加载方式，另外生成一个大型关卡以体现墙体数量较多时的差异
+     *
+     * @param sources JSON关卡文件
+     * @param iterations 每个文件的加载次数
+     * @return JSON格式的报告
+     */
+    private static String benchmark(List<File> sources, int iterations) {
+        List<File> files = new ArrayList<>(sources);
+        File largeLevel = null;
+        try {
+            largeLevel = createLargeLevel();
+            LevelCompiler.compile(largeLevel);
+            files.add(largeLevel);
+        } catch (IOException e) {
+            System.err.println("无法生成大型基准关卡: " + e.getMessage());
+        }
+
+        StringBuilder sb = new StringBuilder();
+        sb.append("{\"iterations\":").append(iterations).append(",\"levels\":[");
+        long totalJson = 0;
+        long totalReflective = 0;
+        long totalBinary = 0;
+
+        for (int i = 0; i < files.size(); i++) {
+            File json = files.get(i);
+            String name = json.getName();
+            File binary = new File(json.getParentFile(), name.substring(0, name.lastIndexOf('.'))
+                    + BinaryLevelCodec.FILE_EXTENSION);
+            try {
+                // 预热，避免首次加载的类初始化和即时编译影响结果
+                measure(json, iterations / 10 + 1, LevelLoader::loadLevel);
+                measure(json, iterations / 10 + 1, LevelLoadBenchmark::loadReflective);
+                measure(binary, iterations / 10 + 1, LevelLoader::loadLevel);
+                long[] jsonResult = measure(json, iterations, LevelLoader::loadLevel);
+                long[] reflectiveResult = measure(json, iterations, LevelLoadBenchmark::loadReflective);
+                long[] binaryResult = measure(binary, iterations, LevelLoader::loadLevel);
+                totalJson += jsonResult[0];
+                totalReflective += reflectiveResult[0];
+                totalBinary += binaryResult[0];
+
+                if (i > 0) {
+                    sb.append(',');
+                }
+                sb.append("{\"name\":\"").append(name).append("\"")
+                  .append(",\"walls\":").append(jsonResult[2])
+                  .append(",\"jsonBytes\":").append(json.length())
+                  .append(",\"binaryBytes\":").append(binary.length())
+                  .append(",\"jsonUs\":").append(formatMicros(jsonResult[0] / iterations))
+                  .append(",\"reflectiveUs\":").append(formatMicros(reflectiveResult[0] / iterations))
+                  .append(",\"binaryUs\":").append(formatMicros(binaryResult[0] / iterations))
+                  .append(",\"jsonAllocBytes\":").append(jsonResult[1])
+                  .append(",\"reflectiveAllocBytes\":").append(reflectiveResult[1])
+                  .append(",\"binaryAllocBytes\":").append(binaryResult[1])
+                  .append('}');
+            } catch (Exception e) {
+                System.err.println("基准测试失败: " + name + ", 错误: " + e.getMessage());
+            }
+        }
+
+        if (largeLevel != null) {
+            deleteDirectory(largeLevel.getParentFile());
+        }
+
+        sb.append("],\"jsonTotalMs\":").append(formatMicros(totalJson / 1000))
+          .append(",\"reflectiveTotalMs\":").append(formatMicros(totalReflective / 1000))
+          .append(",\"binaryTotalMs\":").append(formatMicros(totalBinary / 1000))
+          .append('}');
+        return sb.toString();
+    }
+
+    /**
+     * 关卡加载方式
+     */
+    private interface Loader {
+        LevelConfig load(File file) throws IOException;
+    }
+
+    /**
+     * 重复加载关卡文件
+     *
+     * @return 总耗时（纳秒）、每次加载分配的字节数（无法测量时为-1）、墙体数
+     */
+    private static long[] measure(File file, int iterations, Loader loader) throws IOException {
+        long allocatedBefore = allocatedBytes();
+        long start = System.nanoTime();
+        int walls = 0;
+        for (int i = 0; i < iterations; i++) {
+            // 只读取墙体数量，不生成墙体配置列表
+            walls = loader.load(file).getWallCount();
+        }
+        long elapsed = System.nanoTime() - start;
+        long allocatedAfter = allocatedBytes();
+        long allocated = allocatedBefore < 0 ? -1 : (allocatedAfter - allocatedBefore) / iterations;
+        return new long[] {elapsed, allocated, walls};
+    }
+
+    /**
+     * 当前线程累计分配的字节数，运行时不支持时返回-1
+     */
+    private static long allocatedBytes() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) bean).getCurrentThreadAllocatedBytes();
+        }
+        return -1;
+    }
+
+    /**
+     * 在临时目录中生成一个80x60格、约一半格子有墙体的大型关卡
+     */
+    private static File createLargeLevel() throws IOException {
+        File dir = Files.createTempDirectory("tankbattle-levels").toFile();
+        File file = new File(dir, "level_large.json");
+        LevelConfig level = new LevelConfig(99, "基准测试大型关卡", 20);
+        level.setPlayerSpawn(new LevelConfig.PlayerSpawnConfig(400, 520));
+        level.addEnemySpawn(new LevelConfig.EnemySpawnConfig(40, 40));
+        for (int row = 0; row < 60; row++) {
+            for (int col = 0; col < 80; col++) {
+                if ((row * 31 + col * 17) % 7 < 3) {
+                    level.addWall(new LevelConfig.WallConfig(col * 40, row * 40, 40, 40,
+                            (row + col) % 5 == 0 ? "steel" : "brick"));
+                }
+            }
+        }
+        try (BufferedWriter writer = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8)) {
+            LevelJsonCodec.write(level, writer);
+        }
+        return file;
+    }
+
+    private static void deleteDirectory(File dir) {
+        File[] files = dir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        dir.delete();
+    }
+
+    private static String formatMicros(long nanos) {
+        return String.format(Locale.ROOT, "%.3f", nanos / 1000.0);
+    }
+}